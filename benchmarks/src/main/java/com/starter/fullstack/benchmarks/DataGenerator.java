@@ -0,0 +1,182 @@
+package com.starter.fullstack.benchmarks;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.Product;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import com.starter.fullstack.dao.InventoryDAO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Loads a synthetic Product and Inventory dataset into Mongo. Every distribution is seeded, so the
+ * same options always produce the same documents, with best before dates relative to the day of the load.
+ *
+ * <pre>
+ * --uri=mongodb://127.0.0.1:27017/starter  database to load, dropped first unless --drop=false
+ * --inventory=1000000                      number of Inventory
+ * --products=500                           number of Products, the productTypes of Inventory
+ * --productSkew=1.0                        Zipf exponent of productType popularity, 0 for uniform
+ * --stores=50                              number of stores
+ * --storeSkew=1.0                          Zipf exponent of store popularity, 0 for uniform
+ * --storesPerItem=3                        mean availableStores per Inventory
+ * --units=POUND:30,OUNCE:25,...            relative weights of unitOfMeasurement
+ * --bestBeforeMeanDays=120                 mean days from now to bestBeforeDate
+ * --bestBeforeStddevDays=90                spread of bestBeforeDate, some land in the past
+ * --neverExpires=0.05                      fraction of Inventory that never expires
+ * --batch=5000                             documents per bulk insert
+ * --seed=42                                random seed
+ * </pre>
+ */
+public final class DataGenerator {
+  private static final String DEFAULT_UNITS = "POUND:30,OUNCE:25,GALLON:15,CUP:10,PINT:10,QUART:10";
+  private static final String[] BASE_TYPES = {"Hops", "Malt", "Yeast", "Beer", "Wine", "Cider", "Water", "Sugar"};
+  private static final String[] ADJECTIVES = {"Plain", "Golden", "Dark", "Pale", "Crystal", "Smoked", "Wild", "Dry"};
+  private final Random random;
+  private final List<String> productNames;
+  private final Sampler<String> productTypes;
+  private final Sampler<String> stores;
+  private final Sampler<UnitOfMeasurement> units;
+  private final int storesPerItem;
+  private final double bestBeforeMeanDays;
+  private final double bestBeforeStddevDays;
+  private final double neverExpires;
+  private final Instant now;
+
+  /**
+   * Default Constructor.
+   * @param options generator options.
+   */
+  DataGenerator(Options options) {
+    this.random = new Random(options.getLong("seed", InventoryData.SEED));
+    this.productNames = productNames(options.getInt("products", 500));
+    this.productTypes = Sampler.zipf(this.productNames, options.getDouble("productSkew", 1.0));
+    List<String> storeNames = new ArrayList<>();
+    for (int i = 1; i <= options.getInt("stores", 50); i++) {
+      storeNames.add(String.format("Store %03d", i));
+    }
+    this.stores = Sampler.zipf(storeNames, options.getDouble("storeSkew", 1.0));
+
+    Map<UnitOfMeasurement, Double> unitWeights = new EnumMap<>(UnitOfMeasurement.class);
+    options.getWeights("units", DEFAULT_UNITS).forEach((unit, weight) ->
+        unitWeights.put(UnitOfMeasurement.valueOf(unit), weight));
+    this.units = Sampler.weighted(unitWeights);
+    this.storesPerItem = options.getInt("storesPerItem", 3);
+    this.bestBeforeMeanDays = options.getDouble("bestBeforeMeanDays", 120);
+    this.bestBeforeStddevDays = options.getDouble("bestBeforeStddevDays", 90);
+    this.neverExpires = options.getDouble("neverExpires", 0.05);
+    this.now = Instant.now().truncatedTo(ChronoUnit.DAYS);
+  }
+
+  /**
+   * Generate and load the dataset.
+   * @param args --name=value options, see the class description.
+   */
+  public static void main(String[] args) {
+    Options options = Options.parse(args);
+    MongoClientURI uri = new MongoClientURI(options.get("uri", "mongodb://127.0.0.1:27017/starter"));
+    int inventoryCount = options.getInt("inventory", 1_000_000);
+    int batchSize = options.getInt("batch", 5000);
+    boolean drop = options.getBoolean("drop", true);
+    DataGenerator generator = new DataGenerator(options);
+    options.checkAllRead();
+
+    try (MongoClient mongoClient = new MongoClient(uri)) {
+      MongoTemplate mongoTemplate = new MongoTemplate(mongoClient,
+          uri.getDatabase() == null ? "starter" : uri.getDatabase());
+      if (drop) {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(Inventory.class);
+      }
+      mongoTemplate.insert(generator.products(), Product.class);
+
+      long started = System.nanoTime();
+      for (int from = 0; from < inventoryCount; from += batchSize) {
+        List<Inventory> batch = new ArrayList<>(batchSize);
+        for (int i = from; i < Math.min(from + batchSize, inventoryCount); i++) {
+          batch.add(generator.inventory(i));
+        }
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class).insert(batch).execute();
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Inserted %d of %d Inventory, %.0f/s%n", from + batch.size(), inventoryCount,
+            (from + batch.size()) / seconds);
+      }
+
+      // Building indexes once the data is in is much faster than maintaining them during the load.
+      System.out.println("Building indexes");
+      new InventoryDAO(mongoTemplate).setupIndexes();
+    }
+  }
+
+  /**
+   * Product names: the sample data types first, then numbered products.
+   * @param count number of products.
+   * @return names, most popular first.
+   */
+  private static List<String> productNames(int count) {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      names.add(i < BASE_TYPES.length ? BASE_TYPES[i] : String.format("Product %05d", i));
+    }
+    return names;
+  }
+
+  /**
+   * Generate the Products.
+   * @return Products.
+   */
+  List<Product> products() {
+    List<Product> products = new ArrayList<>();
+    for (String name : this.productNames) {
+      Product product = new Product();
+      product.setName(name);
+      products.add(product);
+    }
+    return products;
+  }
+
+  /**
+   * Generate one Inventory.
+   * @param index sequence number, part of the name.
+   * @return Inventory.
+   */
+  Inventory inventory(int index) {
+    String productType = this.productTypes.next(this.random);
+    Inventory inventory = new Inventory();
+    inventory.setName(ADJECTIVES[this.random.nextInt(ADJECTIVES.length)] + " " + productType + " " + index);
+    inventory.setProductType(productType);
+    inventory.setDescription("Generated " + productType);
+    inventory.setUnitOfMeasurement(this.units.next(this.random));
+    // Prices and amounts are log-normal: mostly small, with a long tail.
+    inventory.setAveragePrice(BigDecimal.valueOf(Math.round(Math.exp(1 + this.random.nextGaussian()) * 100), 2));
+    inventory.setAmount(BigDecimal.valueOf(Math.round(Math.exp(2 + this.random.nextGaussian()))));
+
+    if (this.random.nextDouble() < this.neverExpires) {
+      inventory.setNeverExpires(Boolean.TRUE);
+    } else {
+      double days = this.bestBeforeMeanDays + this.random.nextGaussian() * this.bestBeforeStddevDays;
+      inventory.setNeverExpires(Boolean.FALSE);
+      inventory.setBestBeforeDate(this.now.plus(Math.round(days * 24), ChronoUnit.HOURS));
+    }
+
+    Set<String> available = new LinkedHashSet<>();
+    int storeCount = Math.min(this.random.nextInt(2 * this.storesPerItem + 1), this.stores.size());
+    while (available.size() < storeCount) {
+      available.add(this.stores.next(this.random));
+    }
+    inventory.setAvailableStores(new ArrayList<>(available));
+    return inventory;
+  }
+}
@@ -0,0 +1,70 @@
+package com.starter.fullstack.benchmarks;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import java.io.Closeable;
+import java.io.IOException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Local mongod for a benchmark fork. The same 3.6 server the tests run against is started on a
+ * free port, unless -Dmongo.uri points the benchmarks at an existing server.
+ */
+final class EmbeddedMongo implements Closeable {
+  static final String URI_PROPERTY = "mongo.uri";
+  static final String DATABASE = "benchmarks";
+  private final MongodExecutable executable;
+  private final MongoClient mongoClient;
+
+  /**
+   * Default Constructor.
+   * @param executable started mongod, null when using an existing server.
+   * @param mongoClient client connected to the server.
+   */
+  private EmbeddedMongo(MongodExecutable executable, MongoClient mongoClient) {
+    this.executable = executable;
+    this.mongoClient = mongoClient;
+  }
+
+  /**
+   * Start mongod, or connect to the server given by -Dmongo.uri.
+   * @return running server.
+   * @throws IOException if mongod could not be started.
+   */
+  static EmbeddedMongo start() throws IOException {
+    String uri = System.getProperty(URI_PROPERTY);
+    if (uri != null) {
+      return new EmbeddedMongo(null, new MongoClient(new MongoClientURI(uri)));
+    }
+
+    int port = Network.getFreeServerPort();
+    MongodExecutable executable = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+      .version(Version.Main.V3_6)
+      .net(new Net(port, Network.localhostIsIPv6()))
+      .build());
+    executable.start();
+    return new EmbeddedMongo(executable, new MongoClient("127.0.0.1", port));
+  }
+
+  /**
+   * Template on the benchmark database.
+   * @return MongoTemplate.
+   */
+  MongoTemplate template() {
+    return new MongoTemplate(this.mongoClient, DATABASE);
+  }
+
+  @Override
+  public void close() {
+    this.mongoClient.close();
+    if (this.executable != null) {
+      this.executable.stop();
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package com.starter.fullstack.benchmarks;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import com.starter.fullstack.dao.InventoryDAO;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * InventoryDAO operations against a local mongod holding a seeded collection. Writes are undone
+ * between iterations so every iteration measures the same collection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class InventoryDAOBenchmark {
+  private static final int INSERT_BATCH = 10000;
+  private static final int SORT_LIMIT = 50;
+
+  @Param({"1000", "10000"})
+  private int documents;
+
+  private EmbeddedMongo mongo;
+  private MongoTemplate mongoTemplate;
+  private InventoryDAO inventoryDAO;
+  private Instant bestBefore;
+  private final List<String> created = new ArrayList<>();
+  private Random random;
+
+  /**
+   * Start mongod and seed the collection.
+   * @throws IOException if mongod could not be started.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.mongo = EmbeddedMongo.start();
+    this.mongoTemplate = this.mongo.template();
+    this.mongoTemplate.dropCollection(Inventory.class);
+    this.inventoryDAO = new InventoryDAO(this.mongoTemplate);
+    this.inventoryDAO.setupIndexes();
+
+    List<Inventory> inventory = InventoryData.generate(this.documents, InventoryData.SEED);
+    for (int from = 0; from < inventory.size(); from += INSERT_BATCH) {
+      this.mongoTemplate.insert(inventory.subList(from, Math.min(from + INSERT_BATCH, inventory.size())),
+        Inventory.class);
+    }
+    this.bestBefore = InventoryData.EPOCH.plus(30, ChronoUnit.DAYS);
+    this.random = new Random(InventoryData.SEED);
+  }
+
+  /**
+   * Remove what create added during the iteration.
+   */
+  @TearDown(Level.Iteration)
+  public void removeCreated() {
+    synchronized (this.created) {
+      this.inventoryDAO.deleteAll(this.created, false);
+      this.created.clear();
+    }
+  }
+
+  /**
+   * Stop mongod.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.mongo.close();
+  }
+
+  /**
+   * Read the whole collection.
+   * @return Inventory.
+   */
+  @Benchmark
+  public List<Inventory> findAll() {
+    return this.inventoryDAO.findAll();
+  }
+
+  /**
+   * Read the whole collection in name order.
+   * @return Inventory.
+   */
+  @Benchmark
+  public List<Inventory> findSorted() {
+    return this.inventoryDAO.findSorted("name", "asc");
+  }
+
+  /**
+   * Read the first page in name order.
+   * @return Inventory.
+   */
+  @Benchmark
+  public List<Inventory> findSortedLimit() {
+    return this.inventoryDAO.findSorted("name", "asc", SORT_LIMIT);
+  }
+
+  /**
+   * Filter on every filterRetrieve criterion.
+   * @return Inventory.
+   */
+  @Benchmark
+  public List<Inventory> filterRetrieve() {
+    return this.inventoryDAO.filterRetrieve(UnitOfMeasurement.GALLON, null, this.bestBefore);
+  }
+
+  /**
+   * Insert one Inventory.
+   * @return Created Inventory.
+   */
+  @Benchmark
+  public Inventory create() {
+    Inventory inventory;
+    synchronized (this.created) {
+      inventory = InventoryData.next(this.random, this.created.size());
+    }
+    Inventory stored = this.inventoryDAO.create(inventory);
+    synchronized (this.created) {
+      this.created.add(stored.getId());
+    }
+    return stored;
+  }
+
+  /**
+   * Update the Inventory held by the thread.
+   * @param target Inventory to update.
+   * @return Updated Inventory.
+   */
+  @Benchmark
+  public Optional<Inventory> update(Target target) {
+    Optional<Inventory> updated = this.inventoryDAO.update(target.inventory.getId(), target.inventory);
+    target.inventory.setVersion(updated.orElseThrow().getVersion());
+    return updated;
+  }
+
+  /**
+   * Delete an Inventory inserted just before the call.
+   * @param victim Inventory to delete.
+   * @return Deleted Inventory.
+   */
+  @Benchmark
+  public Optional<Inventory> delete(Victim victim) {
+    return this.inventoryDAO.delete(List.of(victim.id));
+  }
+
+  /**
+   * Inventory owned by one benchmark thread, so updates never conflict.
+   */
+  @State(Scope.Thread)
+  public static class Target {
+    private Inventory inventory;
+
+    /**
+     * Insert the Inventory.
+     * @param benchmark benchmark state.
+     */
+    @Setup(Level.Trial)
+    public void setup(InventoryDAOBenchmark benchmark) {
+      this.inventory = benchmark.inventoryDAO.create(InventoryData.next(new Random(InventoryData.SEED), -1));
+    }
+  }
+
+  /**
+   * Inventory inserted outside the measured call for delete to remove.
+   */
+  @State(Scope.Thread)
+  public static class Victim {
+    private String id;
+
+    /**
+     * Insert the Inventory.
+     * @param benchmark benchmark state.
+     */
+    @Setup(Level.Invocation)
+    public void setup(InventoryDAOBenchmark benchmark) {
+      this.id = benchmark.mongoTemplate.insert(InventoryData.next(benchmark.random, -1)).getId();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.starter.fullstack.benchmarks;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded Inventory so every run of a benchmark reads and writes the same documents.
+ */
+final class InventoryData {
+  static final long SEED = 42L;
+  static final Instant EPOCH = Instant.parse("2021-01-01T00:00:00Z");
+  private static final String[] PRODUCT_TYPES = {"Hops", "Malt", "Yeast", "Beer", "Wine", "Cider", "Water", "Sugar"};
+  private static final String[] STORES = {"Downtown", "Airport", "Harbor", "Mall", "Campus", "Station"};
+  private static final UnitOfMeasurement[] UNITS = UnitOfMeasurement.values();
+
+  /**
+   * Utility Class.
+   */
+  private InventoryData() {
+  }
+
+  /**
+   * Generate Inventory.
+   * @param count number of Inventory.
+   * @param seed random seed.
+   * @return Inventory without ids.
+   */
+  static List<Inventory> generate(int count, long seed) {
+    Random random = new Random(seed);
+    List<Inventory> inventory = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      inventory.add(next(random, i));
+    }
+    return inventory;
+  }
+
+  /**
+   * Generate one Inventory.
+   * @param random random source.
+   * @param index sequence number, part of the name.
+   * @return Inventory without an id.
+   */
+  static Inventory next(Random random, int index) {
+    Inventory inventory = new Inventory();
+    inventory.setName(PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)] + " " + index);
+    inventory.setProductType(PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)]);
+    inventory.setDescription("Benchmark inventory " + index);
+    inventory.setAveragePrice(BigDecimal.valueOf(random.nextInt(10000), 2));
+    inventory.setAmount(BigDecimal.valueOf(random.nextInt(100)));
+    inventory.setUnitOfMeasurement(UNITS[random.nextInt(UNITS.length)]);
+    inventory.setBestBeforeDate(EPOCH.plus(random.nextInt(365), ChronoUnit.DAYS));
+    inventory.setNeverExpires(Boolean.FALSE);
+    inventory.setAvailableStores(List.of(STORES[random.nextInt(STORES.length)], STORES[random.nextInt(STORES.length)]));
+    return inventory;
+  }
+}
@@ -0,0 +1,116 @@
+package com.starter.fullstack.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.starter.fullstack.api.Inventory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson serialization of Inventory lists in each wire format the application negotiates, with and
+ * without the gzip response compression, configured as the application configures its ObjectMappers.
+ * The encoded size of every combination is printed once per trial, to set against the time taken.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class InventorySerializationBenchmark {
+
+  @Param({"1", "100", "10000"})
+  private int size;
+
+  @Param({"json", "cbor", "smile"})
+  private String format;
+
+  @Param({"false", "true"})
+  private boolean gzip;
+
+  private ObjectMapper objectMapper;
+  private JavaType listType;
+  private List<Inventory> inventory;
+  private byte[] encoded;
+
+  /**
+   * Build the ObjectMapper and the payloads.
+   * @throws IOException if the payload could not be written.
+   */
+  @Setup
+  public void setup() throws IOException {
+    this.objectMapper = Json.mapper(factory(this.format));
+    this.listType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, Inventory.class);
+    this.inventory = InventoryData.generate(this.size, InventoryData.SEED);
+    for (int i = 0; i < this.inventory.size(); i++) {
+      this.inventory.get(i).setId(String.format("%024x", i));
+    }
+    this.encoded = serialize();
+    System.out.printf("%n# %s%s, %d Inventory: %d bytes%n", this.format, this.gzip ? "+gzip" : "", this.size,
+        this.encoded.length);
+  }
+
+  /**
+   * Write the list, compressing it as the server would.
+   * @return Encoded list.
+   * @throws IOException if the list could not be written.
+   */
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = this.gzip ? new GZIPOutputStream(bytes) : bytes) {
+      this.objectMapper.writeValue(out, this.inventory);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Read the list, decompressing it as the client would.
+   * @return Inventory.
+   * @throws IOException if the list could not be read.
+   */
+  @Benchmark
+  public List<Inventory> deserialize() throws IOException {
+    try (InputStream in = this.gzip ? new GZIPInputStream(new ByteArrayInputStream(this.encoded))
+        : new ByteArrayInputStream(this.encoded)) {
+      return this.objectMapper.readValue(in, this.listType);
+    }
+  }
+
+  /**
+   * Factory of a wire format.
+   * @param format json, cbor or smile.
+   * @return Factory.
+   */
+  private static JsonFactory factory(String format) {
+    switch (format) {
+      case "cbor":
+        return new CBORFactory();
+      case "smile":
+        return new SmileFactory();
+      default:
+        return new JsonFactory();
+    }
+  }
+}
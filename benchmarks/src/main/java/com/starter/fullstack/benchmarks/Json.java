@@ -0,0 +1,48 @@
+package com.starter.fullstack.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryFields;
+import com.starter.fullstack.rest.InventoryFieldsMixIn;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * ObjectMappers configured as the application configures its own.
+ */
+final class Json {
+
+  /**
+   * Utility Class.
+   */
+  private Json() {
+  }
+
+  /**
+   * Build the ObjectMapper.
+   * @return ObjectMapper.
+   */
+  static ObjectMapper mapper() {
+    return mapper(new JsonFactory());
+  }
+
+  /**
+   * Build an ObjectMapper writing the format of a factory, as the application's CBOR and Smile
+   * converters do.
+   * @param factory JsonFactory, CBORFactory or SmileFactory.
+   * @return ObjectMapper.
+   */
+  static ObjectMapper mapper(JsonFactory factory) {
+    return Jackson2ObjectMapperBuilder.json()
+      .factory(factory)
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+        DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .mixIn(Inventory.class, InventoryFieldsMixIn.class)
+      .filters(new SimpleFilterProvider().addFilter(InventoryFields.FILTER, SimpleBeanPropertyFilter.serializeAll()))
+      .build();
+  }
+}
@@ -0,0 +1,365 @@
+package com.starter.fullstack.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Replays a weighted mix of REST calls against a running application at a fixed rate and reports
+ * throughput and latency percentiles per call.
+ *
+ * <p>The load is open: requests are scheduled at the target rate whether or not earlier ones have
+ * answered, and latency is measured from when a request was due rather than when it was sent, so a
+ * stalled server shows up in the percentiles instead of silently lowering the rate.
+ *
+ * <pre>
+ * --target=http://127.0.0.1:8080   application to load
+ * --prefix=                        path prefix, /reactive with the reactive port to load the reactive API
+ * --rate=200                       requests per second
+ * --duration=60                    measured seconds
+ * --warmup=10                      seconds of load before measuring
+ * --concurrency=256                maximum requests in flight
+ * --mix=retrieve:30,findPage:35,...  relative weights of the calls
+ * --ids=10000                      Inventory ids to draw retrieve and update targets from
+ * --report=target/load-report.json JSON report
+ * --seed=42                        random seed
+ * </pre>
+ */
+public final class LoadDriver {
+  private static final String DEFAULT_MIX = "retrieve:30,findPage:35,findSorted:15,filterRetrieve:10,update:5,create:5";
+  private static final String[] SORTABLE = {"name", "productType", "amount", "bestBeforeDate"};
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+  private final ObjectMapper objectMapper = Json.mapper();
+  private final String base;
+  private final Random random;
+  private final List<String> ids = new ArrayList<>();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private final DataGenerator generator;
+
+  /**
+   * Default Constructor.
+   * @param base target and prefix.
+   * @param seed random seed.
+   * @param generator source of created Inventory.
+   */
+  private LoadDriver(String base, long seed, DataGenerator generator) {
+    this.base = base;
+    this.random = new Random(seed);
+    this.generator = generator;
+  }
+
+  /**
+   * Run the load test.
+   * @param args --name=value options, see the class description.
+   * @throws IOException if the report could not be written or the ids could not be read.
+   * @throws InterruptedException if interrupted while waiting for requests.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Options options = Options.parse(args);
+    String base = options.get("target", "http://127.0.0.1:8080") + options.get("prefix", "");
+    int rate = options.getInt("rate", 200);
+    int duration = options.getInt("duration", 60);
+    int warmup = options.getInt("warmup", 10);
+    int concurrency = options.getInt("concurrency", 256);
+    Sampler<String> mix = Sampler.weighted(options.getWeights("mix", DEFAULT_MIX));
+    int idCount = options.getInt("ids", 10000);
+    File report = new File(options.get("report", "target/load-report.json"));
+    long seed = options.getLong("seed", InventoryData.SEED);
+    LoadDriver driver = new LoadDriver(base, seed, new DataGenerator(Options.parse(new String[] {"--seed=" + seed})));
+    options.checkAllRead();
+
+    driver.loadIds(idCount);
+    System.out.printf("Loading %s at %d requests/s for %ds after %ds of warmup%n", base, rate, duration, warmup);
+    Map<String, Object> results = driver.run(mix, rate, warmup, duration, concurrency);
+    report.getAbsoluteFile().getParentFile().mkdirs();
+    driver.objectMapper.writerWithDefaultPrettyPrinter().writeValue(report, results);
+    System.out.println("Report written to " + report);
+  }
+
+  /**
+   * Read Inventory ids page by page for retrieve and update to target.
+   * @param count maximum number of ids.
+   * @throws IOException if a page could not be read.
+   * @throws InterruptedException if interrupted while reading.
+   */
+  private void loadIds(int count) throws IOException, InterruptedException {
+    JavaType listType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, Inventory.class);
+    String cursor = null;
+    do {
+      String uri = this.base + "/inventory?size=" + Math.min(1000, count - this.ids.size()) + "&fields=id"
+          + (cursor == null ? "" : "&cursor=" + encode(cursor));
+      HttpResponse<String> response = this.httpClient.send(get(uri), HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+        throw new IOException("Reading ids failed with " + response.statusCode() + ": " + response.body());
+      }
+      List<Inventory> page = this.objectMapper.readValue(response.body(), listType);
+      page.forEach(inventory -> this.ids.add(inventory.getId()));
+      cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+    } while (cursor != null && this.ids.size() < count);
+
+    if (this.ids.isEmpty()) {
+      throw new IOException("There is no Inventory to load, run the data generator first.");
+    }
+  }
+
+  /**
+   * Send requests at the rate until the warmup and the measurement are over.
+   * @param mix weighted calls.
+   * @param rate requests per second.
+   * @param warmup seconds before measuring.
+   * @param duration measured seconds.
+   * @param concurrency maximum requests in flight.
+   * @return results.
+   * @throws InterruptedException if interrupted while sending.
+   */
+  private Map<String, Object> run(Sampler<String> mix, int rate, int warmup, int duration, int concurrency)
+      throws InterruptedException {
+    Semaphore inFlight = new Semaphore(concurrency);
+    AtomicLong completed = new AtomicLong();
+    long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+    ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+    progress.scheduleAtFixedRate(() -> System.out.printf("%ds: %d completed, %d in flight%n",
+        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), completed.get(),
+        concurrency - inFlight.availablePermits()), 10, 10, TimeUnit.SECONDS);
+
+    for (long due = start; due < end; due += interval) {
+      long wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      inFlight.acquire();
+      String operation = mix.next(this.random);
+      long scheduled = due;
+      call(operation).whenComplete((status, failure) -> {
+        long latency = System.nanoTime() - scheduled;
+        inFlight.release();
+        completed.incrementAndGet();
+        if (scheduled >= measureFrom) {
+          this.stats.computeIfAbsent(operation, key -> new Stats()).record(latency, status, failure);
+        }
+      });
+    }
+    inFlight.acquire(concurrency);
+    progress.shutdownNow();
+    return results(rate, duration);
+  }
+
+  /**
+   * Issue one call.
+   * @param operation call name.
+   * @return HTTP status of the call.
+   */
+  private CompletableFuture<Integer> call(String operation) {
+    switch (operation) {
+      case "retrieve":
+        return send(get(this.base + "/retrieveInventory/?id=" + encode(randomId())));
+      case "findPage":
+        return send(get(this.base + "/inventory?size=50&sortVariable=name"));
+      case "findSorted":
+        return send(get(this.base + "/inventorySorted/?sortVariable=" + SORTABLE[this.random.nextInt(SORTABLE.length)]
+            + "&direction=asc&limit=50"));
+      case "filterRetrieve":
+        return send(get(this.base + "/filterRetrieve/?fields=summary&unitOfMeasure="
+            + UnitOfMeasurement.values()[this.random.nextInt(UnitOfMeasurement.values().length)]
+            + "&bestBefore=" + Instant.now().plus(this.random.nextInt(14), ChronoUnit.DAYS)));
+      case "findAll":
+        return send(get(this.base + "/inventory?fields=summary"));
+      case "create":
+        return send(post(this.base + "/inventory", this.generator.inventory(this.random.nextInt(Integer.MAX_VALUE))));
+      case "update":
+        return update(randomId());
+      default:
+        throw new IllegalArgumentException("Unknown call " + operation);
+    }
+  }
+
+  /**
+   * Read an Inventory and write it back, which includes the read in the latency.
+   * @param id Inventory id.
+   * @return HTTP status of the write.
+   */
+  private CompletableFuture<Integer> update(String id) {
+    return this.httpClient.sendAsync(get(this.base + "/retrieveInventory/?id=" + encode(id)),
+        HttpResponse.BodyHandlers.ofString())
+      .thenCompose(response -> {
+        if (response.statusCode() != 200) {
+          return CompletableFuture.completedFuture(response.statusCode());
+        }
+        if (response.body().isEmpty()) {
+          // retrieveInventory answers an empty body for a missing id.
+          return CompletableFuture.completedFuture(404);
+        }
+        try {
+          Inventory inventory = this.objectMapper.readValue(response.body(), Inventory.class);
+          inventory.setDescription("Updated " + Instant.now());
+          return send(post(this.base + "/update", inventory));
+        } catch (JsonProcessingException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      });
+  }
+
+  /**
+   * Send a request, discarding the body.
+   * @param request request.
+   * @return HTTP status.
+   */
+  private CompletableFuture<Integer> send(HttpRequest request) {
+    return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+      .thenApply(HttpResponse::statusCode);
+  }
+
+  /**
+   * GET request.
+   * @param uri uri.
+   * @return request.
+   */
+  private static HttpRequest get(String uri) {
+    return HttpRequest.newBuilder(URI.create(uri)).timeout(TIMEOUT).GET().build();
+  }
+
+  /**
+   * POST request with a JSON body.
+   * @param uri uri.
+   * @param body body.
+   * @return request.
+   */
+  private HttpRequest post(String uri, Object body) {
+    try {
+      return HttpRequest.newBuilder(URI.create(uri)).timeout(TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(body)))
+        .build();
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Draw an id.
+   * @return id.
+   */
+  private String randomId() {
+    return this.ids.get(this.random.nextInt(this.ids.size()));
+  }
+
+  /**
+   * Encode a query parameter.
+   * @param value value.
+   * @return encoded value.
+   */
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Print and collect the results.
+   * @param rate requested rate.
+   * @param duration measured seconds.
+   * @return results.
+   */
+  private Map<String, Object> results(int rate, int duration) {
+    Map<String, Object> results = new LinkedHashMap<>();
+    results.put("target", this.base);
+    results.put("rate", rate);
+    results.put("durationSeconds", duration);
+    Map<String, Object> operations = new LinkedHashMap<>();
+    long total = 0;
+
+    System.out.printf("%-15s %8s %7s %9s %9s %9s %9s %9s %9s%n", "call", "count", "errors", "req/s", "p50 ms",
+        "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Map.Entry<String, Stats> entry : new TreeMap<>(this.stats).entrySet()) {
+      Stats stat = entry.getValue();
+      Histogram histogram = stat.latency.copy();
+      long count = histogram.getTotalCount();
+      total += count;
+      Map<String, Object> operation = new LinkedHashMap<>();
+      operation.put("count", count);
+      operation.put("errors", stat.errors.get());
+      operation.put("conflicts", stat.conflicts.get());
+      operation.put("throughput", (double) count / duration);
+      operation.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+      operation.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+      operation.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+      operation.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+      operation.put("maxMs", millis(histogram.getMaxValue()));
+      operations.put(entry.getKey(), operation);
+      System.out.printf("%-15s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), count,
+          stat.errors.get(), operation.get("throughput"), operation.get("p50Ms"), operation.get("p90Ms"),
+          operation.get("p99Ms"), operation.get("p999Ms"), operation.get("maxMs"));
+    }
+    results.put("throughput", (double) total / duration);
+    results.put("operations", operations);
+    System.out.printf("Achieved %.1f requests/s of %d requested%n", (double) total / duration, rate);
+    return results;
+  }
+
+  /**
+   * Nanoseconds to milliseconds.
+   * @param nanos nanoseconds.
+   * @return milliseconds.
+   */
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  /**
+   * Latency and failures of one call.
+   */
+  private static final class Stats {
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    /**
+     * Record a completed call. Conflicting updates are counted apart from errors, as they are an
+     * expected answer under concurrent writes.
+     * @param nanos latency from when the call was due.
+     * @param status HTTP status, null if the call failed.
+     * @param failure failure, null if the call answered.
+     */
+    void record(long nanos, Integer status, Throwable failure) {
+      this.latency.recordValue(nanos);
+      if (failure != null || status == null || (status >= 400 && status != 409)) {
+        this.errors.incrementAndGet();
+      } else if (status == 409) {
+        this.conflicts.incrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.starter.fullstack.benchmarks;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options given as --name=value.
+ */
+final class Options {
+  private static final String PREFIX = "--";
+  private final Map<String, String> values;
+  private final Set<String> read = new HashSet<>();
+
+  /**
+   * Default Constructor.
+   * @param values option values by name.
+   */
+  private Options(Map<String, String> values) {
+    this.values = values;
+  }
+
+  /**
+   * Parse the command line. Throws IllegalArgumentException for arguments not in --name=value form.
+   * @param args arguments.
+   * @return Options.
+   */
+  static Options parse(String[] args) {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith(PREFIX) || equals < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      values.put(arg.substring(PREFIX.length(), equals), arg.substring(equals + 1));
+    }
+    return new Options(values);
+  }
+
+  /**
+   * String option.
+   * @param name name.
+   * @param defaultValue value when not given.
+   * @return value.
+   */
+  String get(String name, String defaultValue) {
+    this.read.add(name);
+    return this.values.getOrDefault(name, defaultValue);
+  }
+
+  /**
+   * Integer option.
+   * @param name name.
+   * @param defaultValue value when not given.
+   * @return value.
+   */
+  int getInt(String name, int defaultValue) {
+    return Integer.parseInt(get(name, String.valueOf(defaultValue)));
+  }
+
+  /**
+   * Long option.
+   * @param name name.
+   * @param defaultValue value when not given.
+   * @return value.
+   */
+  long getLong(String name, long defaultValue) {
+    return Long.parseLong(get(name, String.valueOf(defaultValue)));
+  }
+
+  /**
+   * Decimal option.
+   * @param name name.
+   * @param defaultValue value when not given.
+   * @return value.
+   */
+  double getDouble(String name, double defaultValue) {
+    return Double.parseDouble(get(name, String.valueOf(defaultValue)));
+  }
+
+  /**
+   * Boolean option.
+   * @param name name.
+   * @param defaultValue value when not given.
+   * @return value.
+   */
+  boolean getBoolean(String name, boolean defaultValue) {
+    return Boolean.parseBoolean(get(name, String.valueOf(defaultValue)));
+  }
+
+  /**
+   * Weights given as key:weight,key:weight.
+   * @param name name.
+   * @param defaultValue value when not given, in the same form.
+   * @return weights in the order given.
+   */
+  Map<String, Double> getWeights(String name, String defaultValue) {
+    Map<String, Double> weights = new LinkedHashMap<>();
+    for (String entry : get(name, defaultValue).split(",")) {
+      String[] pair = entry.split(":");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Expected key:weight in --" + name + " but got " + entry);
+      }
+      weights.put(pair[0].trim(), Double.parseDouble(pair[1]));
+    }
+    return weights;
+  }
+
+  /**
+   * Reject options that were given but never read, which are most likely misspelt.
+   */
+  void checkAllRead() {
+    Set<String> unknown = new HashSet<>(this.values.keySet());
+    unknown.removeAll(this.read);
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options " + unknown);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.starter.fullstack.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Draws values with fixed relative weights.
+ * @param <T> type of value.
+ */
+final class Sampler<T> {
+  private final List<T> values;
+  private final double[] cumulative;
+
+  /**
+   * Default Constructor.
+   * @param values values.
+   * @param weights weight of each value.
+   */
+  private Sampler(List<T> values, double[] weights) {
+    if (values.isEmpty() || values.size() != weights.length) {
+      throw new IllegalArgumentException("Every value needs exactly one weight.");
+    }
+    this.values = values;
+    this.cumulative = new double[weights.length];
+    double total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] < 0) {
+        throw new IllegalArgumentException("Weights must not be negative.");
+      }
+      total += weights[i];
+      this.cumulative[i] = total;
+    }
+    for (int i = 0; i < this.cumulative.length; i++) {
+      this.cumulative[i] /= total;
+    }
+  }
+
+  /**
+   * Sampler over explicitly weighted values.
+   * @param weights weight by value.
+   * @param <T> type of value.
+   * @return Sampler.
+   */
+  static <T> Sampler<T> weighted(Map<T, Double> weights) {
+    return new Sampler<>(new ArrayList<>(weights.keySet()),
+      weights.values().stream().mapToDouble(Double::doubleValue).toArray());
+  }
+
+  /**
+   * Zipf sampler: the value at rank k is drawn with weight 1 / (k + 1)^skew, so a skew of 0 is
+   * uniform and larger skews concentrate on the first values.
+   * @param values values, most popular first.
+   * @param skew Zipf exponent.
+   * @param <T> type of value.
+   * @return Sampler.
+   */
+  static <T> Sampler<T> zipf(List<T> values, double skew) {
+    double[] weights = new double[values.size()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = 1 / Math.pow(i + 1, skew);
+    }
+    return new Sampler<>(values, weights);
+  }
+
+  /**
+   * Draw a value.
+   * @param random random source.
+   * @return value.
+   */
+  T next(Random random) {
+    int index = Arrays.binarySearch(this.cumulative, random.nextDouble());
+    return this.values.get(Math.min(index < 0 ? -index - 1 : index, this.values.size() - 1));
+  }
+
+  /**
+   * Number of values.
+   * @return size.
+   */
+  int size() {
+    return this.values.size();
+  }
+}
@@ -0,0 +1,17 @@
+package com.starter.fullstack.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * BulkDeleteResult -- Outcome of Deleting Many Documents by Id.
+ * @param <T> type of deleted document.
+ */
+@Data
+public class BulkDeleteResult<T> {
+  private List<String> deletedIds = new ArrayList<>();
+  private List<String> missingIds = new ArrayList<>();
+  // Only populated when the caller asks for the deleted documents.
+  private List<T> deleted;
+}
@@ -0,0 +1,24 @@
+package com.starter.fullstack.api;
+
+import lombok.Data;
+
+/**
+ * CacheStats -- Counters of an In-Process Cache.
+ */
+@Data
+public class CacheStats {
+  private long size;
+  private long maximumSize;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Fraction of lookups answered from the cache.
+   * @return hit rate between 0 and 1.
+   */
+  public double getHitRate() {
+    long lookups = this.hits + this.misses;
+    return lookups == 0 ? 0 : (double) this.hits / lookups;
+  }
+}
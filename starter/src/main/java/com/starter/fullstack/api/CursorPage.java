@@ -0,0 +1,15 @@
+package com.starter.fullstack.api;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * CursorPage -- One Page of a Keyset Paginated Query.
+ * @param <T> type of item on the page.
+ */
+@Data
+public class CursorPage<T> {
+  private List<T> items;
+  private String nextCursor;
+  private Long estimatedTotal;
+}
@@ -0,0 +1,38 @@
+package com.starter.fullstack.api;
+
+import java.util.Locale;
+
+/**
+ * Import Format.
+ */
+public enum ImportFormat {
+  JSON("application/json"),
+  NDJSON("application/x-ndjson"),
+  CSV("text/csv");
+
+  private final String contentType;
+
+  /**
+   * Default Constructor.
+   * @param contentType content type.
+   */
+  ImportFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * Find the format for a request content type.
+   * @param contentType content type, parameters such as charset are ignored.
+   * @return Format.
+   */
+  public static ImportFormat fromContentType(String contentType) {
+    if (contentType != null) {
+      for (ImportFormat format : ImportFormat.values()) {
+        if (contentType.toLowerCase(Locale.ROOT).startsWith(format.contentType)) {
+          return format;
+        }
+      }
+    }
+    throw new IllegalArgumentException("Content type " + contentType + " can not be imported.");
+  }
+}
@@ -0,0 +1,46 @@
+package com.starter.fullstack.api;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ImportJob -- Progress of a Bulk Inventory Import.
+ */
+@Data
+public class ImportJob {
+  private String id;
+  private ImportFormat format;
+  private volatile Status status = Status.QUEUED;
+  private volatile long processed;
+  private volatile long inserted;
+  private volatile long failed;
+  private volatile String failure;
+  private final List<RowError> errors = new CopyOnWriteArrayList<>();
+  private Instant submitted;
+  private volatile Instant finished;
+
+  /**
+   * Import Job Status.
+   */
+  public enum Status {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  /**
+   * RowError -- A Row That Could Not Be Imported.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class RowError {
+    private long row;
+    private String message;
+  }
+}
@@ -1,5 +1,7 @@
 package com.starter.fullstack.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
@@ -21,6 +23,7 @@ public class Inventory {
   @NotBlank(message = "Inventory Name was not provided.")
   private String name;
   @NotBlank(message = "Inventory Product Type was not provided.")
+  @KnownProductType
   private String productType;
   private String description;
   @Min(0)
@@ -28,7 +31,13 @@ public class Inventory {
   @Min(0)
   private BigDecimal amount;
   private UnitOfMeasurement unitOfMeasurement;
+  // amount in the base unit of unitOfMeasurement's dimension, computed on every write.
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private BigDecimal normalizedAmount;
   private Instant bestBeforeDate;
   private Boolean neverExpires;
   private List<String> availableStores;
+  // Word prefixes typeahead looks Inventory up by, computed on every write.
+  @JsonIgnore
+  private List<String> searchTerms;
 }
@@ -0,0 +1,72 @@
+package com.starter.fullstack.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * InventoryChange -- An Inventory Write, Published to Listeners and Pushed to Subscribed Clients.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryChange {
+  private Type type;
+  private String id;
+  // Version after the write, or of the deleted Inventory. Null when it is not known.
+  private Long version;
+  // Stored Inventory after a create or update.
+  private Inventory inventory;
+  // Inventory before an update or delete, for listeners only. A delete may only have read the id,
+  // version and the fields rollups are kept from.
+  @JsonIgnore
+  private Inventory previous;
+
+  /**
+   * Change of a created Inventory.
+   * @param inventory created Inventory.
+   * @return Change.
+   */
+  public static InventoryChange created(Inventory inventory) {
+    return new InventoryChange(Type.CREATED, inventory.getId(), inventory.getVersion(), inventory, null);
+  }
+
+  /**
+   * Change of an updated Inventory.
+   * @param inventory stored Inventory.
+   * @param previous Inventory before the update.
+   * @return Change.
+   */
+  public static InventoryChange updated(Inventory inventory, Inventory previous) {
+    return new InventoryChange(Type.UPDATED, inventory.getId(), inventory.getVersion(), inventory, previous);
+  }
+
+  /**
+   * Change of a deleted Inventory.
+   * @param previous deleted Inventory.
+   * @return Change.
+   */
+  public static InventoryChange deleted(Inventory previous) {
+    return new InventoryChange(Type.DELETED, previous.getId(), previous.getVersion(), null, previous);
+  }
+
+  /**
+   * Change of more Inventory than is worth describing one by one.
+   * @return Change.
+   */
+  public static InventoryChange reload() {
+    return new InventoryChange(Type.RELOAD, null, null, null, null);
+  }
+
+  /**
+   * Inventory Change Type.
+   */
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // Clients should fetch the collection again.
+    RELOAD
+  }
+}
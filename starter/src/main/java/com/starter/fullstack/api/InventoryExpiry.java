@@ -0,0 +1,35 @@
+package com.starter.fullstack.api;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * InventoryExpiry -- Inventory About to Pass Its bestBeforeDate, and Inventory That Just Did.
+ */
+@Data
+public class InventoryExpiry {
+  private Instant asOf;
+  // Inventory expiring before this is tracked, later Inventory is not listed yet.
+  private Instant trackedUntil;
+  // Soonest first.
+  private List<Item> expiring = new ArrayList<>();
+  // Most recently expired first.
+  private List<Item> expired = new ArrayList<>();
+
+  /**
+   * One expiring or expired Inventory.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Item {
+    private String id;
+    private String name;
+    private String productType;
+    private Instant bestBeforeDate;
+  }
+}
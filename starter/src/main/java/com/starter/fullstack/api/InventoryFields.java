@@ -0,0 +1,49 @@
+package com.starter.fullstack.api;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inventory Fields -- Field Names Accepted by Projected Reads.
+ */
+public final class InventoryFields {
+  public static final String FILTER = "inventoryFields";
+  public static final String ID = "id";
+  public static final String SUMMARY = "summary";
+  // What the list views show, plus what they need to select and edit a row.
+  public static final List<String> SUMMARY_FIELDS = List.of(ID, "version", "name", "productType", "amount",
+      "unitOfMeasurement");
+  public static final List<String> ALL = List.of(ID, "version", "name", "productType", "description",
+      "averagePrice", "amount", "unitOfMeasurement", "normalizedAmount", "bestBeforeDate", "neverExpires",
+      "availableStores");
+
+  /**
+   * Utility Class.
+   */
+  private InventoryFields() {
+  }
+
+  /**
+   * Expand requested field names, replacing "summary" with the summary fields.
+   * @param fields requested field names.
+   * @return Field names, empty when every field was requested.
+   */
+  public static Set<String> expand(Collection<String> fields) {
+    Set<String> expanded = new LinkedHashSet<>();
+    if (fields == null) {
+      return expanded;
+    }
+    for (String field : fields) {
+      if (SUMMARY.equals(field)) {
+        expanded.addAll(SUMMARY_FIELDS);
+      } else if (ALL.contains(field)) {
+        expanded.add(field);
+      } else {
+        throw new IllegalArgumentException("Unknown Inventory field " + field + ".");
+      }
+    }
+    return expanded;
+  }
+}
@@ -0,0 +1,45 @@
+package com.starter.fullstack.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * InventoryFilter -- Conditions Every Found Inventory Meets, With an Optional Sort and Limit.
+ */
+@Data
+public class InventoryFilter {
+  private List<Condition> conditions = new ArrayList<>();
+  // One of the sortable fields, unsorted when null.
+  private String sort;
+  private String direction;
+  private Integer limit;
+  // Inventory fields to return, or "summary", all when empty.
+  private List<String> fields;
+
+  /**
+   * One field compared with one or more values, given as text: ISO-8601 instants for dates and
+   * unit names for unitOfMeasurement.
+   */
+  @Data
+  public static class Condition {
+    private String field;
+    private Operator operator;
+    // One value, two for BETWEEN and one or more for IN.
+    private List<String> values = new ArrayList<>();
+  }
+
+  /**
+   * Comparison of a field with its values.
+   */
+  public enum Operator {
+    EQ,
+    IN,
+    GT,
+    GTE,
+    LT,
+    LTE,
+    // Inclusive of both values.
+    BETWEEN
+  }
+}
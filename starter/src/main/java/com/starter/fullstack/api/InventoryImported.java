@@ -0,0 +1,15 @@
+package com.starter.fullstack.api;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * InventoryImported -- A Batch of Inventory Inserted by a Bulk Import, Published to Listeners.
+ */
+@Data
+@AllArgsConstructor
+public class InventoryImported {
+  // Inserted rows as parsed, bulk inserts do not set their ids.
+  private List<Inventory> inventory;
+}
@@ -0,0 +1,22 @@
+package com.starter.fullstack.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.Instant;
+import lombok.Data;
+
+/**
+ * InventoryRollup -- Stock Totals of One productType and unitOfMeasurement.
+ */
+@Data
+public class InventoryRollup {
+  @JsonIgnore
+  private String id;
+  private String productType;
+  private UnitOfMeasurement unitOfMeasurement;
+  private long count;
+  // Sum of averagePrice x amount, missing prices and amounts count as zero.
+  private BigDecimal totalValue;
+  // Earliest bestBeforeDate of Inventory that expires, null when none does.
+  private Instant earliestBestBeforeDate;
+}
@@ -0,0 +1,38 @@
+package com.starter.fullstack.api;
+
+import com.starter.fullstack.dao.KnownProductTypeValidator;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+/**
+ * The annotated productType is the name of a Product. Null is valid.
+ */
+@Documented
+@Constraint(validatedBy = KnownProductTypeValidator.class)
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface KnownProductType {
+
+  /**
+   * Message of a violation.
+   * @return message.
+   */
+  String message() default "Inventory Product Type is not a known Product.";
+
+  /**
+   * Validation groups.
+   * @return groups.
+   */
+  Class<?>[] groups() default {};
+
+  /**
+   * Payload.
+   * @return payload.
+   */
+  Class<? extends Payload>[] payload() default {};
+}
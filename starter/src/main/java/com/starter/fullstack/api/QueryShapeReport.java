@@ -0,0 +1,17 @@
+package com.starter.fullstack.api;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * QueryShapeReport -- How the Database Plans One Query Shape.
+ */
+@Data
+public class QueryShapeReport {
+  private String shape;
+  private String filter;
+  private List<String> stages;
+  private String indexName;
+  private boolean collectionScan;
+  private boolean blockingSort;
+}
@@ -0,0 +1,18 @@
+package com.starter.fullstack.api;
+
+import java.math.BigDecimal;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * StockAdjustment -- An Amount Added To, or Removed From, One Inventory.
+ */
+@Data
+public class StockAdjustment {
+  @NotBlank(message = "Inventory Id was not provided.")
+  private String id;
+  // Negative to remove stock.
+  @NotNull(message = "Stock Adjustment delta was not provided.")
+  private BigDecimal delta;
+}
@@ -0,0 +1,18 @@
+package com.starter.fullstack.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * StockAdjustmentResult -- Outcome of a Bulk Stock Adjustment, by Inventory Id.
+ */
+@Data
+public class StockAdjustmentResult {
+  private List<String> adjusted = new ArrayList<>();
+  // Would have left a negative amount, or the Inventory has no amount.
+  private List<String> rejected = new ArrayList<>();
+  private List<String> notFound = new ArrayList<>();
+  // Changed by another write between being read and adjusted, not adjusted.
+  private List<String> conflicted = new ArrayList<>();
+}
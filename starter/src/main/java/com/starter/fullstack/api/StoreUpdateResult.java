@@ -0,0 +1,17 @@
+package com.starter.fullstack.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * StoreUpdateResult -- Outcome of Adding a Store to, or Removing It From, Many Inventory.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreUpdateResult {
+  private String store;
+  // Inventory changed, those already in the requested state or not found are not counted.
+  private long modified;
+}
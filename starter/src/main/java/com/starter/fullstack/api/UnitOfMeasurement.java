@@ -1,27 +1,63 @@
 package com.starter.fullstack.api;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Getter;
 
 /**
- * Unit of Measurement.
+ * Unit of Measurement. Each unit measures a Dimension and converts to that dimension's base unit,
+ * the US fluid ounce for volume and the pound for weight. OUNCE is the fluid ounce.
  */
 public enum UnitOfMeasurement {
-  CUP("c"),
-  GALLON("gal"),
-  OUNCE("oz"),
-  PINT("pt"),
-  POUND("lb"),
-  QUART("qt");
+  CUP("c", Dimension.VOLUME, 8),
+  GALLON("gal", Dimension.VOLUME, 128),
+  OUNCE("oz", Dimension.VOLUME, 1),
+  PINT("pt", Dimension.VOLUME, 16),
+  POUND("lb", Dimension.WEIGHT, 1),
+  QUART("qt", Dimension.VOLUME, 32);
 
   @Getter
   private final String abbreviation;
+  @Getter
+  private final Dimension dimension;
+  // Base units in one of this unit.
+  @Getter
+  private final BigDecimal factor;
 
   /**
    * Default Constructor.
    * @param abbreviation abbreviation.
+   * @param dimension what the unit measures.
+   * @param factor base units in one of this unit.
    */
-  UnitOfMeasurement(String abbreviation) {
+  UnitOfMeasurement(String abbreviation, Dimension dimension, long factor) {
     this.abbreviation = abbreviation;
+    this.dimension = dimension;
+    this.factor = BigDecimal.valueOf(factor);
+  }
+
+  /**
+   * Convert an amount of this unit to the base unit of its dimension.
+   * @param amount amount in this unit.
+   * @return amount in the base unit.
+   */
+  public BigDecimal normalize(BigDecimal amount) {
+    return amount.multiply(this.factor);
+  }
+
+  /**
+   * Units measuring the same dimension as this one, this one included.
+   * @return Units.
+   */
+  public List<UnitOfMeasurement> comparable() {
+    List<UnitOfMeasurement> units = new ArrayList<>();
+    for (UnitOfMeasurement unit : values()) {
+      if (unit.dimension == this.dimension) {
+        units.add(unit);
+      }
+    }
+    return units;
   }
 
   /**
@@ -39,6 +75,13 @@ public enum UnitOfMeasurement {
     }
 
     return false;
-  } 
+  }
 
-}
\ No newline at end of file
+  /**
+   * What a unit measures.
+   */
+  public enum Dimension {
+    VOLUME,
+    WEIGHT
+  }
+}
@@ -0,0 +1,12 @@
+package com.starter.fullstack.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.inventory-cache")
+public class InventoryCacheProperties {
+  private int maximumSize = 10000;
+  private Duration timeToLive = Duration.ofSeconds(30);
+}
@@ -0,0 +1,13 @@
+package com.starter.fullstack.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.inventory-events")
+public class InventoryEventsProperties {
+  private int senderThreads = 2;
+  private int queueCapacity = 256;
+  private Duration timeout = Duration.ofMinutes(30);
+}
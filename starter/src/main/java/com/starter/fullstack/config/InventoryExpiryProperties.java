@@ -0,0 +1,14 @@
+package com.starter.fullstack.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.inventory-expiry")
+public class InventoryExpiryProperties {
+  private Duration interval = Duration.ofMinutes(1);
+  private Duration horizon = Duration.ofHours(1);
+  private Duration tick = Duration.ofSeconds(1);
+  private int maxTracked = 100000;
+}
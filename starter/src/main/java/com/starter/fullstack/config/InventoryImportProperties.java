@@ -0,0 +1,13 @@
+package com.starter.fullstack.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.inventory-import")
+public class InventoryImportProperties {
+  private int batchSize = 1000;
+  private int maxErrors = 1000;
+  private int concurrentJobs = 2;
+  private int retainedJobs = 100;
+}
@@ -0,0 +1,18 @@
+package com.starter.fullstack.config;
+
+import com.starter.fullstack.dao.MongoConversions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+/**
+ * Mongo mapping configuration, shared with the data tests.
+ */
+@Configuration
+public class MongoConfig {
+
+  @Bean
+  public MongoCustomConversions mongoCustomConversions() {
+    return MongoConversions.customConversions();
+  }
+}
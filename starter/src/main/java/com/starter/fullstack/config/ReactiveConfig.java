@@ -0,0 +1,57 @@
+package com.starter.fullstack.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starter.fullstack.dao.InventoryCache;
+import com.starter.fullstack.dao.ReactiveInventoryDAO;
+import com.starter.fullstack.rest.ReactiveInventoryHandler;
+import javax.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Opt-in reactive Inventory API. It runs on its own Netty event loop next to the servlet
+ * container, so the two stacks can be load tested against the same database side by side.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "com.starter.fullstack.reactive", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReactiveInventoryProperties.class)
+public class ReactiveConfig {
+
+  @Bean
+  public ReactiveInventoryDAO reactiveInventoryDAO(ReactiveMongoTemplate reactiveMongoTemplate,
+                                                   InventoryCache inventoryCache,
+                                                   ApplicationEventPublisher eventPublisher) {
+    return new ReactiveInventoryDAO(reactiveMongoTemplate, inventoryCache, eventPublisher);
+  }
+
+  @Bean
+  public ReactiveInventoryHandler reactiveInventoryHandler(ReactiveInventoryDAO reactiveInventoryDAO,
+                                                           ObjectMapper objectMapper, Validator validator) {
+    return new ReactiveInventoryHandler(reactiveInventoryDAO, objectMapper, validator);
+  }
+
+  @Bean(destroyMethod = "disposeNow")
+  public DisposableServer reactiveInventoryServer(ReactiveInventoryHandler reactiveInventoryHandler,
+                                                  ObjectMapper objectMapper, ReactiveInventoryProperties properties) {
+    HandlerStrategies strategies = HandlerStrategies.builder()
+      .codecs(codecs -> {
+        codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+        codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+      })
+      .build();
+    HttpHandler httpHandler = RouterFunctions.toHttpHandler(reactiveInventoryHandler.routes(), strategies);
+    return HttpServer.create().port(properties.getPort()).handle(new ReactorHttpHandlerAdapter(httpHandler)).bindNow();
+  }
+}
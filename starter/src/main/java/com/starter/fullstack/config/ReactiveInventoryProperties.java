@@ -0,0 +1,11 @@
+package com.starter.fullstack.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.reactive")
+public class ReactiveInventoryProperties {
+  private boolean enabled = false;
+  private int port = 8081;
+}
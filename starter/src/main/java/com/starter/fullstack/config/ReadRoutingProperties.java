@@ -0,0 +1,22 @@
+package com.starter.fullstack.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.read-routing")
+public class ReadRoutingProperties {
+  // Keyed by InventoryDAO operation name, operations without a route read from the primary.
+  private Map<String, Route> operations = new HashMap<>();
+
+  @Data
+  public static class Route {
+    private String readPreference = "primary";
+    private Duration maxStaleness;
+    private Map<String, String> tags = new HashMap<>();
+    private String readConcern;
+  }
+}
@@ -1,18 +1,170 @@
 package com.starter.fullstack.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mongodb.MongoClientOptions;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryFields;
+import com.starter.fullstack.dao.CollectionVersions;
+import com.starter.fullstack.dao.DaoMetrics;
+import com.starter.fullstack.dao.InventoryCache;
 import com.starter.fullstack.dao.InventoryDAO;
+import com.starter.fullstack.dao.InventoryExpiryScanner;
+import com.starter.fullstack.dao.InventoryImporter;
+import com.starter.fullstack.dao.InventoryIndexAdvisor;
+import com.starter.fullstack.dao.InventoryRollups;
+import com.starter.fullstack.dao.MeteredMongoRepositoryFactoryBean;
+import com.starter.fullstack.dao.MongoCommandMetrics;
+import com.starter.fullstack.dao.ProductCatalog;
+import com.starter.fullstack.dao.ProductDAO;
+import com.starter.fullstack.dao.ReadRoutes;
+import com.starter.fullstack.dao.StockAdjustmentBuffer;
+import com.starter.fullstack.rest.CollectionETags;
+import com.starter.fullstack.rest.InventoryChangeBroadcaster;
+import com.starter.fullstack.rest.InventoryFieldsMixIn;
+import com.starter.fullstack.rest.VaryAcceptFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import javax.validation.Validator;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 /**
  * Starter Configuration.
  */
 @Configuration
+@EnableConfigurationProperties({InventoryCacheProperties.class, InventoryEventsProperties.class,
+    InventoryExpiryProperties.class, InventoryImportProperties.class, ReadRoutingProperties.class,
+    StockAdjustmentProperties.class})
+@EnableMongoRepositories(basePackages = "com.starter.fullstack.dao",
+    repositoryFactoryBeanClass = MeteredMongoRepositoryFactoryBean.class)
 public class StarterConfig {
 
+  /**
+   * Let responses narrow Inventory fields with a filter, serializing every field unless they do.
+   * @return customizer.
+   */
   @Bean
-  public InventoryDAO inventoryDAO(MongoTemplate mongoTemplate) {
-    return new InventoryDAO(mongoTemplate);
+  public Jackson2ObjectMapperBuilderCustomizer inventoryFieldsFilter() {
+    return builder -> builder.mixIn(Inventory.class, InventoryFieldsMixIn.class)
+      .filters(new SimpleFilterProvider().addFilter(InventoryFields.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+  }
+
+  /**
+   * CBOR bodies, read and written by an ObjectMapper configured as the JSON one is.
+   * @param builder Boot's ObjectMapper builder, a new one per injection point.
+   * @return converter.
+   */
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  /**
+   * Smile bodies, read and written by an ObjectMapper configured as the JSON one is.
+   * @param builder Boot's ObjectMapper builder, a new one per injection point.
+   * @return converter.
+   */
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+  }
+
+  /**
+   * Vary: Accept on every response, as JSON, CBOR and Smile bodies share one ETag.
+   * @return filter.
+   */
+  @Bean
+  public VaryAcceptFilter varyAcceptFilter() {
+    return new VaryAcceptFilter();
+  }
+
+  @Bean
+  public MongoClientOptions mongoClientOptions(MeterRegistry meterRegistry) {
+    return MongoClientOptions.builder()
+      .addCommandListener(new MongoCommandMetrics(meterRegistry))
+      .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+      .build();
+  }
+
+  @Bean
+  public InventoryCache inventoryCache(InventoryCacheProperties properties, Clock clock) {
+    return new InventoryCache(properties.getMaximumSize(), properties.getTimeToLive(), clock);
+  }
+
+  @Bean
+  public ReadRoutes readRoutes(MongoTemplate mongoTemplate, ReadRoutingProperties properties) {
+    Map<String, ReadRoutes.Route> routes = new HashMap<>();
+    properties.getOperations().forEach((operation, route) -> routes.put(operation, ReadRoutes.Route.of(
+      route.getReadPreference(), route.getMaxStaleness(), route.getTags(), route.getReadConcern())));
+    return new ReadRoutes(mongoTemplate, routes);
+  }
+
+  @Bean
+  public InventoryDAO inventoryDAO(MongoTemplate mongoTemplate, InventoryCache inventoryCache,
+                                   MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                                   ReadRoutes readRoutes) {
+    return new InventoryDAO(mongoTemplate, inventoryCache, new DaoMetrics(meterRegistry, "inventory"),
+      eventPublisher, readRoutes);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public StockAdjustmentBuffer stockAdjustmentBuffer(InventoryDAO inventoryDAO, StockAdjustmentProperties properties) {
+    return new StockAdjustmentBuffer(inventoryDAO, properties.getStripes(), properties.getFlushThreshold(),
+      properties.getFlushInterval());
+  }
+
+  @Bean
+  public ProductCatalog productCatalog(ProductDAO productDAO, Clock clock) {
+    return new ProductCatalog(productDAO, clock);
+  }
+
+  @Bean
+  public CollectionETags collectionETags(MongoTemplate mongoTemplate) {
+    return new CollectionETags(new CollectionVersions(mongoTemplate));
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  public InventoryChangeBroadcaster inventoryChangeBroadcaster(InventoryEventsProperties properties) {
+    return new InventoryChangeBroadcaster(properties.getSenderThreads(), properties.getQueueCapacity(),
+      properties.getTimeout());
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  public InventoryRollups inventoryRollups(MongoTemplate mongoTemplate) {
+    return new InventoryRollups(mongoTemplate);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public InventoryExpiryScanner inventoryExpiryScanner(MongoTemplate mongoTemplate, Clock clock,
+                                                       InventoryExpiryProperties properties) {
+    return new InventoryExpiryScanner(mongoTemplate, clock, properties.getInterval(), properties.getHorizon(),
+      properties.getTick(), properties.getMaxTracked());
+  }
+
+  @Bean
+  public InventoryIndexAdvisor inventoryIndexAdvisor(MongoTemplate mongoTemplate) {
+    return new InventoryIndexAdvisor(mongoTemplate);
+  }
+
+  @Bean
+  public InventoryImporter inventoryImporter(MongoTemplate mongoTemplate, Validator validator,
+                                             ObjectMapper objectMapper, InventoryImportProperties properties,
+                                             ApplicationEventPublisher eventPublisher) {
+    return new InventoryImporter(mongoTemplate, validator, objectMapper, properties, eventPublisher);
   }
 }
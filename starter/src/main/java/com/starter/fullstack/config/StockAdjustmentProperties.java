@@ -0,0 +1,13 @@
+package com.starter.fullstack.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("com.starter.fullstack.stock-adjustments")
+public class StockAdjustmentProperties {
+  private int stripes = 16;
+  private int flushThreshold = 1000;
+  private Duration flushInterval = Duration.ofMillis(100);
+}
@@ -45,7 +45,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     CorsConfiguration configuration = new CorsConfiguration();
     configuration.setAllowedOrigins(Collections.singletonList(webSecurityProperties.getAllowedOrigins()));
     configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-    configuration.setAllowedHeaders(Arrays.asList("Content-type", "Authorization", "X-XSRF-TOKEN"));
+    configuration.setAllowedHeaders(Arrays.asList("Content-type", "Authorization", "X-XSRF-TOKEN", "If-None-Match"));
+    configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "X-Total-Count", "ETag"));
     configuration.setAllowCredentials(true);
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration);
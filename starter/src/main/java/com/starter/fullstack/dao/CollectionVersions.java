@@ -0,0 +1,55 @@
+package com.starter.fullstack.dao;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.Assert;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Version of a collection, shared by every instance through one document per collection that each
+ * write the application makes moves on with $inc. Combined with the estimated document count,
+ * read from collection metadata, so inserts and deletes made outside the application, mongoimport
+ * among them, move it on too. Updates made outside the application do not.
+ */
+public class CollectionVersions {
+  static final String COLLECTION = "collectionVersions";
+  private static final String VERSION = "version";
+  private static final String EPOCH = "epoch";
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   */
+  public CollectionVersions(MongoTemplate mongoTemplate) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Move the version of the collection of an entity on.
+   * @param entityClass entity class.
+   */
+  public void bump(Class<?> entityClass) {
+    // The epoch tells a version document dropped and created again apart from the one before it.
+    String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    this.mongoTemplate.upsert(query(where(PageCursor.ID).is(this.mongoTemplate.getCollectionName(entityClass))),
+        new Update().inc(VERSION, 1).setOnInsert(EPOCH, epoch), COLLECTION);
+  }
+
+  /**
+   * Current version of the collection of an entity, with two reads that do not touch the collection.
+   * @param entityClass entity class.
+   * @return Version.
+   */
+  public String current(Class<?> entityClass) {
+    String collection = this.mongoTemplate.getCollectionName(entityClass);
+    Document version = this.mongoTemplate.findById(collection, Document.class, COLLECTION);
+    long count = this.mongoTemplate.getCollection(collection).estimatedDocumentCount();
+    return version == null
+        ? "0-0-" + count
+        : version.get(EPOCH) + "-" + ((Number) version.get(VERSION)).longValue() + "-" + count;
+  }
+}
@@ -0,0 +1,101 @@
+package com.starter.fullstack.dao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.util.Assert;
+
+/**
+ * Times DAO operations as starter.dao, tagged by DAO, operation, query shape and outcome. Every
+ * timer publishes a percentile histogram so percentiles can be aggregated across instances.
+ */
+public class DaoMetrics {
+  static final String TIMER = "starter.dao";
+  private static final String SUCCESS = "success";
+  private static final String ERROR = "error";
+  private final MeterRegistry meterRegistry;
+  private final String dao;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Default Constructor.
+   * @param meterRegistry registry, null to time nothing.
+   * @param dao name of the DAO, the dao tag.
+   */
+  public DaoMetrics(MeterRegistry meterRegistry, String dao) {
+    Assert.hasText(dao, "DAO name must not be empty.");
+    this.meterRegistry = meterRegistry;
+    this.dao = dao;
+  }
+
+  /**
+   * Metrics that time nothing, for DAOs built outside the application context.
+   * @param dao name of the DAO.
+   * @return DaoMetrics.
+   */
+  public static DaoMetrics disabled(String dao) {
+    return new DaoMetrics(null, dao);
+  }
+
+  /**
+   * Time a call.
+   * @param operation operation tag.
+   * @param shape query shape tag.
+   * @param call call to time.
+   * @param <T> type of result.
+   * @param <E> type of failure.
+   * @return result of the call.
+   * @throws E if the call fails.
+   */
+  public <T, E extends Throwable> T record(String operation, String shape, Call<T, E> call) throws E {
+    if (this.meterRegistry == null) {
+      return call.call();
+    }
+
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      T result = call.call();
+      success = true;
+      return result;
+    } finally {
+      timer(operation, shape, success ? SUCCESS : ERROR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Find or register a timer.
+   * @param operation operation tag.
+   * @param shape query shape tag.
+   * @param outcome outcome tag.
+   * @return Timer.
+   */
+  private Timer timer(String operation, String shape, String outcome) {
+    return this.timers.computeIfAbsent(operation + '\u0000' + shape + '\u0000' + outcome, key -> Timer.builder(TIMER)
+      .description("Time spent in DAO operations")
+      .tag("dao", this.dao)
+      .tag("operation", operation)
+      .tag("shape", shape)
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(this.meterRegistry));
+  }
+
+  /**
+   * Timed call.
+   * @param <T> type of result.
+   * @param <E> type of failure.
+   */
+  @FunctionalInterface
+  public interface Call<T, E extends Throwable> {
+
+    /**
+     * Make the call.
+     * @return result.
+     * @throws E if the call fails.
+     */
+    T call() throws E;
+  }
+}
@@ -0,0 +1,157 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.InventoryExpiry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.util.Assert;
+
+/**
+ * Hashed timer wheel of bestBeforeDates. A timer lives in the slot of its deadline tick modulo
+ * the number of slots, so scheduling and cancelling take constant time and advancing one tick
+ * visits one slot, however many timers there are. Not thread safe.
+ */
+final class ExpiryWheel {
+  private static final Comparator<InventoryExpiry.Item> SOONEST =
+      Comparator.comparing(InventoryExpiry.Item::getBestBeforeDate).thenComparing(InventoryExpiry.Item::getId);
+  private final long tickMillis;
+  private final List<Map<String, Timer>> slots;
+  private final Map<String, Timer> timers = new HashMap<>();
+  // Last tick advanced to.
+  private long tick;
+
+  /**
+   * Default Constructor.
+   * @param slots number of slots.
+   * @param tick time between ticks, at least a millisecond.
+   * @param now time to start from.
+   */
+  ExpiryWheel(int slots, Duration tick, Instant now) {
+    Assert.isTrue(slots > 0, "Slots must be positive.");
+    Assert.isTrue(tick.toMillis() > 0, "Tick must be at least a millisecond.");
+    this.tickMillis = tick.toMillis();
+    this.slots = new ArrayList<>(slots);
+    for (int i = 0; i < slots; i++) {
+      this.slots.add(new HashMap<>());
+    }
+    this.tick = Math.floorDiv(now.toEpochMilli(), this.tickMillis);
+  }
+
+  /**
+   * Schedule an item to expire at its bestBeforeDate, replacing its timer if it has one.
+   * @param item item.
+   * @return false, with nothing scheduled, when the item is already due.
+   */
+  boolean schedule(InventoryExpiry.Item item) {
+    cancel(item.getId());
+    // The first tick at or after the bestBeforeDate.
+    long deadline = Math.floorDiv(item.getBestBeforeDate().toEpochMilli() + this.tickMillis - 1, this.tickMillis);
+    if (deadline <= this.tick) {
+      return false;
+    }
+    Timer timer = new Timer(item, deadline);
+    slot(deadline).put(item.getId(), timer);
+    this.timers.put(item.getId(), timer);
+    return true;
+  }
+
+  /**
+   * Cancel the timer of an item.
+   * @param id item id.
+   * @return true when it had one.
+   */
+  boolean cancel(String id) {
+    Timer timer = this.timers.remove(id);
+    if (timer == null) {
+      return false;
+    }
+    slot(timer.deadline).remove(id);
+    return true;
+  }
+
+  /**
+   * Whether an item has a timer.
+   * @param id item id.
+   * @return true when it does.
+   */
+  boolean contains(String id) {
+    return this.timers.containsKey(id);
+  }
+
+  /**
+   * Advance to the tick of the given time, removing the timers that are due.
+   * @param now time to advance to.
+   * @return Due items, soonest first.
+   */
+  List<InventoryExpiry.Item> advance(Instant now) {
+    long target = Math.floorDiv(now.toEpochMilli(), this.tickMillis);
+    List<InventoryExpiry.Item> due = new ArrayList<>();
+    // Every slot is visited once at most, however far behind the wheel is.
+    long steps = Math.min(target - this.tick, this.slots.size());
+    for (long step = 1; step <= steps; step++) {
+      Iterator<Timer> timers = slot(this.tick + step).values().iterator();
+      while (timers.hasNext()) {
+        Timer timer = timers.next();
+        if (timer.deadline <= target) {
+          timers.remove();
+          this.timers.remove(timer.item.getId());
+          due.add(timer.item);
+        }
+      }
+    }
+    this.tick = Math.max(this.tick, target);
+    due.sort(SOONEST);
+    return due;
+  }
+
+  /**
+   * The scheduled items expiring soonest.
+   * @param limit maximum number of items.
+   * @return Items, soonest first.
+   */
+  List<InventoryExpiry.Item> pending(int limit) {
+    return this.timers.values().stream().map(timer -> timer.item).sorted(SOONEST).limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Number of scheduled items.
+   * @return Size.
+   */
+  int size() {
+    return this.timers.size();
+  }
+
+  /**
+   * Slot of a tick.
+   * @param tick tick.
+   * @return Slot.
+   */
+  private Map<String, Timer> slot(long tick) {
+    return this.slots.get((int) Math.floorMod(tick, (long) this.slots.size()));
+  }
+
+  /**
+   * An item and the tick it is due at.
+   */
+  private static final class Timer {
+    private final InventoryExpiry.Item item;
+    private final long deadline;
+
+    /**
+     * Default Constructor.
+     * @param item item.
+     * @param deadline tick it is due at.
+     */
+    private Timer(InventoryExpiry.Item item, long deadline) {
+      this.item = item;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.CacheStats;
+import com.starter.fullstack.api.Inventory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded read-through cache of Inventory by id. Entries expire after a fixed time to live and
+ * the least recently used entry is evicted once the cache is full. Writes made through the DAO
+ * refresh or invalidate their entries, so reads never see data older than the last local write.
+ * Inventory is mutable, so the cache keeps its own copy of each entry and hands out copies of it.
+ */
+public class InventoryCache {
+  private final int maximumSize;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private final Map<String, Entry> entries;
+  private final AtomicLong invalidations = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Default Constructor.
+   * @param maximumSize maximum number of cached Inventory, 0 disables caching.
+   * @param timeToLive how long an entry may be served after it was loaded.
+   * @param clock clock.
+   */
+  public InventoryCache(int maximumSize, Duration timeToLive, Clock clock) {
+    Assert.isTrue(maximumSize >= 0, "Cache size must not be negative.");
+    Assert.notNull(timeToLive, "Time to live must not be null.");
+    Assert.notNull(clock, "Clock must not be null.");
+    this.maximumSize = maximumSize;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        boolean evict = size() > maximumSize;
+        if (evict) {
+          evictions.increment();
+        }
+        return evict;
+      }
+    };
+  }
+
+  /**
+   * A cache that never holds anything.
+   * @return Disabled cache.
+   */
+  public static InventoryCache disabled() {
+    return new InventoryCache(0, Duration.ZERO, Clock.systemUTC());
+  }
+
+  /**
+   * Get a cached Inventory, loading and caching it on a miss.
+   * @param id Inventory id.
+   * @param loader loads the Inventory from the database.
+   * @return Found Inventory.
+   */
+  public Optional<Inventory> get(String id, Function<String, Optional<Inventory>> loader) {
+    if (this.maximumSize == 0) {
+      return loader.apply(id);
+    }
+
+    Instant now = this.clock.instant();
+    synchronized (this.entries) {
+      Entry entry = this.entries.get(id);
+      if (entry != null && now.isBefore(entry.expires)) {
+        this.hits.increment();
+        return Optional.of(copy(entry.inventory));
+      }
+      if (entry != null) {
+        this.entries.remove(id);
+      }
+    }
+    this.misses.increment();
+
+    // A write that lands while we load may have invalidated what we are about to cache.
+    long invalidationsBeforeLoad = this.invalidations.get();
+    Optional<Inventory> loaded = loader.apply(id);
+    loaded.ifPresent(inventory -> {
+      synchronized (this.entries) {
+        if (this.invalidations.get() == invalidationsBeforeLoad) {
+          this.entries.put(id, new Entry(copy(inventory), now.plus(this.timeToLive)));
+        }
+      }
+    });
+    return loaded;
+  }
+
+  /**
+   * Cache an Inventory that was just written, unless a newer version is already cached.
+   * @param inventory Inventory as stored.
+   */
+  public void put(Inventory inventory) {
+    if (this.maximumSize == 0) {
+      return;
+    }
+    synchronized (this.entries) {
+      this.invalidations.incrementAndGet();
+      Entry cached = this.entries.get(inventory.getId());
+      if (cached == null || cached.inventory.getVersion() <= inventory.getVersion()) {
+        this.entries.put(inventory.getId(), new Entry(copy(inventory), this.clock.instant().plus(this.timeToLive)));
+      }
+    }
+  }
+
+  /**
+   * Drop cached Inventory.
+   * @param ids Inventory ids.
+   */
+  public void invalidate(Collection<String> ids) {
+    if (this.maximumSize == 0) {
+      return;
+    }
+    synchronized (this.entries) {
+      this.invalidations.incrementAndGet();
+      // One lookup per id, keySet().removeAll would scan the list of ids once per cached entry.
+      ids.forEach(this.entries::remove);
+    }
+  }
+
+  /**
+   * Snapshot the cache counters.
+   * @return Stats.
+   */
+  public CacheStats stats() {
+    CacheStats stats = new CacheStats();
+    synchronized (this.entries) {
+      stats.setSize(this.entries.size());
+    }
+    stats.setMaximumSize(this.maximumSize);
+    stats.setHits(this.hits.sum());
+    stats.setMisses(this.misses.sum());
+    stats.setEvictions(this.evictions.sum());
+    return stats;
+  }
+
+  /**
+   * Copy an Inventory so changes to it do not reach the cache or other readers.
+   * @param inventory Inventory.
+   * @return Copy.
+   */
+  private static Inventory copy(Inventory inventory) {
+    Inventory copy = new Inventory();
+    copy.setId(inventory.getId());
+    copy.setVersion(inventory.getVersion());
+    copy.setName(inventory.getName());
+    copy.setProductType(inventory.getProductType());
+    copy.setDescription(inventory.getDescription());
+    copy.setAveragePrice(inventory.getAveragePrice());
+    copy.setAmount(inventory.getAmount());
+    copy.setUnitOfMeasurement(inventory.getUnitOfMeasurement());
+    copy.setNormalizedAmount(inventory.getNormalizedAmount());
+    copy.setBestBeforeDate(inventory.getBestBeforeDate());
+    copy.setNeverExpires(inventory.getNeverExpires());
+    copy.setAvailableStores(inventory.getAvailableStores() == null ? null
+        : new ArrayList<>(inventory.getAvailableStores()));
+    copy.setSearchTerms(inventory.getSearchTerms() == null ? null : new ArrayList<>(inventory.getSearchTerms()));
+    return copy;
+  }
+
+  /**
+   * Cached Inventory and when it stops being served.
+   */
+  private static final class Entry {
+    private final Inventory inventory;
+    private final Instant expires;
+
+    /**
+     * Default Constructor.
+     * @param inventory Inventory.
+     * @param expires expiry.
+     */
+    private Entry(Inventory inventory, Instant expires) {
+      this.inventory = inventory;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.starter.fullstack.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starter.fullstack.api.Inventory;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads Inventory from CSV one record at a time. The first record names the Inventory field
+ * held by each column; availableStores holds store names separated by '|'. Quoted fields may
+ * contain commas, line breaks and doubled quotes.
+ */
+class InventoryCsvReader {
+  private static final String AVAILABLE_STORES = "availableStores";
+  private final PushbackReader reader;
+  private final ObjectMapper objectMapper;
+  private List<String> header;
+
+  /**
+   * Default Constructor.
+   * @param reader CSV source.
+   * @param objectMapper converts each record to Inventory.
+   */
+  InventoryCsvReader(Reader reader, ObjectMapper objectMapper) {
+    this.reader = new PushbackReader(reader, 1);
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Read the next Inventory.
+   * @return Inventory, or null when there are no more records.
+   * @throws IOException if the source can not be read.
+   * @throws IllegalArgumentException if the record does not describe an Inventory.
+   */
+  Inventory next() throws IOException {
+    if (this.header == null) {
+      this.header = readRecord();
+      if (this.header == null) {
+        return null;
+      }
+    }
+
+    List<String> record = readRecord();
+    if (record == null) {
+      return null;
+    }
+    if (record.size() > this.header.size()) {
+      throw new IllegalArgumentException("Record has more columns than the header.");
+    }
+
+    Map<String, Object> fields = new HashMap<>();
+    for (int i = 0; i < record.size(); i++) {
+      String value = record.get(i);
+      if (!value.isEmpty()) {
+        String field = this.header.get(i);
+        fields.put(field, AVAILABLE_STORES.equals(field) ? Arrays.asList(value.split("\\|")) : value);
+      }
+    }
+    return this.objectMapper.convertValue(fields, Inventory.class);
+  }
+
+  /**
+   * Read one record, skipping blank lines.
+   * @return Fields of the record, or null at the end of the source.
+   * @throws IOException if the source can not be read.
+   */
+  private List<String> readRecord() throws IOException {
+    List<String> record = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    boolean read = false;
+    int c = this.reader.read();
+
+    while (c != -1) {
+      read = true;
+      if (quoted) {
+        if (c == '"') {
+          int next = this.reader.read();
+          if (next == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            if (next != -1) {
+              this.reader.unread(next);
+            }
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        record.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        if (!record.isEmpty() || field.length() > 0) {
+          break;
+        }
+      } else if (c != '\r') {
+        field.append((char) c);
+      }
+      c = this.reader.read();
+    }
+
+    if (!read || record.isEmpty() && field.length() == 0) {
+      return null;
+    }
+    record.add(field.toString());
+    return record;
+  }
+}
@@ -1,19 +1,49 @@
 package com.starter.fullstack.dao;
 
+import com.starter.fullstack.api.BulkDeleteResult;
+import com.starter.fullstack.api.CacheStats;
+import com.starter.fullstack.api.CursorPage;
 import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryFields;
+import com.starter.fullstack.api.InventoryFilter;
+import com.starter.fullstack.api.StockAdjustmentResult;
+import com.starter.fullstack.api.StoreUpdateResult;
 import com.starter.fullstack.api.UnitOfMeasurement;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import org.bson.types.Decimal128;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.data.mongodb.core.index.IndexOperations;
-import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.Pair;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.RequestParam;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -25,17 +55,89 @@ import static org.springframework.data.mongodb.core.query.Query.query;
  */
 public class InventoryDAO  {
   private final MongoTemplate mongoTemplate;
-  private static final String NAME = "name";
-  private static final String PRODUCT_TYPE = "productType";
-  private static final String ASC = "asc";
+  private final InventoryCache inventoryCache;
+  private final DaoMetrics daoMetrics;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ReadRoutes readRoutes;
+  private final InventoryFilterTemplates filterTemplates = new InventoryFilterTemplates();
+  private static final String NAME = InventoryIndexes.NAME;
+  private static final String PRODUCT_TYPE = InventoryIndexes.PRODUCT_TYPE;
+  private static final String DESCRIPTION = InventoryIndexes.DESCRIPTION;
+  private static final String VERSION = "version";
+  static final String ASC = "asc";
+  static final int STREAM_BATCH_SIZE = 500;
+  static final int DELETE_CHUNK_SIZE = 1000;
+  static final int MAX_SEARCH_LIMIT = 100;
+  private static final int SEARCH_CANDIDATES = 4;
+  private static final int MAX_ADJUST_ATTEMPTS = 3;
+  private static final int BSON_STRING = 2;
+  // Ids of the last stock adjustment batches applied, kept on each Inventory so a retried batch is not applied twice.
+  private static final String ADJUSTMENTS = "adjustments";
+  private static final int KEPT_ADJUSTMENTS = 16;
+  static final Map<String, Function<Inventory, String>> KEYSET_SORTS =
+      Map.of(NAME, Inventory::getName, PRODUCT_TYPE, Inventory::getProductType);
 
   /**
    * Default Constructor.
    * @param mongoTemplate MongoTemplate.
    */
   public InventoryDAO(MongoTemplate mongoTemplate) {
+    this(mongoTemplate, InventoryCache.disabled());
+  }
+
+  /**
+   * Constructor with a near-cache in front of retrieve.
+   * @param mongoTemplate MongoTemplate.
+   * @param inventoryCache InventoryCache.
+   */
+  public InventoryDAO(MongoTemplate mongoTemplate, InventoryCache inventoryCache) {
+    this(mongoTemplate, inventoryCache, DaoMetrics.disabled("inventory"));
+  }
+
+  /**
+   * Constructor with a near-cache in front of retrieve and timers around every operation.
+   * @param mongoTemplate MongoTemplate.
+   * @param inventoryCache InventoryCache.
+   * @param daoMetrics DaoMetrics.
+   */
+  public InventoryDAO(MongoTemplate mongoTemplate, InventoryCache inventoryCache, DaoMetrics daoMetrics) {
+    this(mongoTemplate, inventoryCache, daoMetrics, change -> { });
+  }
+
+  /**
+   * Constructor that also publishes an InventoryChange after every write.
+   * @param mongoTemplate MongoTemplate.
+   * @param inventoryCache InventoryCache.
+   * @param daoMetrics DaoMetrics.
+   * @param eventPublisher receives an InventoryChange for each created, updated and deleted Inventory.
+   */
+  public InventoryDAO(MongoTemplate mongoTemplate, InventoryCache inventoryCache, DaoMetrics daoMetrics,
+                      ApplicationEventPublisher eventPublisher) {
+    this(mongoTemplate, inventoryCache, daoMetrics, eventPublisher, ReadRoutes.primary(mongoTemplate));
+  }
+
+  /**
+   * Constructor that also routes list reads by operation name, so they may read from secondaries.
+   * Writes, and retrieve, which has to see the write made just before it, stay on the primary.
+   * @param mongoTemplate MongoTemplate.
+   * @param inventoryCache InventoryCache.
+   * @param daoMetrics DaoMetrics.
+   * @param eventPublisher receives an InventoryChange for each created, updated and deleted Inventory.
+   * @param readRoutes ReadRoutes of findAll, findSorted, findPage, filterRetrieve, search, typeahead,
+   *                   textSearch, findByQuantity and stream.
+   */
+  public InventoryDAO(MongoTemplate mongoTemplate, InventoryCache inventoryCache, DaoMetrics daoMetrics,
+                      ApplicationEventPublisher eventPublisher, ReadRoutes readRoutes) {
     Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    Assert.notNull(inventoryCache, "Inventory Cache must not be null.");
+    Assert.notNull(daoMetrics, "DAO Metrics must not be null.");
+    Assert.notNull(eventPublisher, "Event Publisher must not be null.");
+    Assert.notNull(readRoutes, "Read Routes must not be null.");
     this.mongoTemplate = mongoTemplate;
+    this.inventoryCache = inventoryCache;
+    this.daoMetrics = daoMetrics;
+    this.eventPublisher = eventPublisher;
+    this.readRoutes = readRoutes;
   }
 
   /**
@@ -43,9 +145,100 @@ public class InventoryDAO  {
    */
   @PostConstruct
   public void setupIndexes() {
+    // Amounts and prices were stored as strings before they were stored as Decimal128.
+    storeDecimals();
     IndexOperations indexOps = this.mongoTemplate.indexOps(Inventory.class);
-    indexOps.ensureIndex(new Index(NAME, Sort.Direction.ASC));
-    indexOps.ensureIndex(new Index(PRODUCT_TYPE, Sort.Direction.ASC));
+    Set<String> existing = indexOps.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+    if (!existing.contains(InventoryIndexes.EXPIRY_INDEX)) {
+      // Writes have stored the flag since the expiry index was added, earlier Inventory needs it once.
+      storeNeverExpires();
+    }
+    InventoryIndexes.OBSOLETE.stream().filter(existing::contains).forEach(indexOps::dropIndex);
+    for (IndexDefinition index : InventoryIndexes.catalog()) {
+      indexOps.ensureIndex(index);
+    }
+    normalizeAmounts();
+    indexSearchTerms();
+  }
+
+  /**
+   * Store normalizedAmount on Inventory written before it was computed, a bulk update per batch.
+   * Inventory missing one is found through the unitOfMeasurement, normalizedAmount index.
+   * @return Number of Inventory updated.
+   */
+  public long normalizeAmounts() {
+    Query missing = query(where(InventoryIndexes.UNIT_OF_MEASUREMENT).in(Arrays.asList(UnitOfMeasurement.values()))
+        .and(InventoryIndexes.NORMALIZED_AMOUNT).is(null)
+        .and(InventoryIndexes.AMOUNT).ne(null));
+    missing.fields().include(InventoryIndexes.AMOUNT).include(InventoryIndexes.UNIT_OF_MEASUREMENT);
+    return backfill(missing,
+      inventory -> new Update().set(InventoryIndexes.NORMALIZED_AMOUNT, normalizedAmount(inventory)));
+  }
+
+  /**
+   * Store amount and averagePrice as Decimal128 on Inventory that holds them as strings, a bulk
+   * update per batch, so they compare, sort, $inc and aggregate as numbers.
+   * @return Number of Inventory updated.
+   */
+  public long storeDecimals() {
+    Query strings = query(new Criteria().orOperator(where(InventoryIndexes.AMOUNT).type(BSON_STRING),
+        where(InventoryIndexes.AVERAGE_PRICE).type(BSON_STRING)));
+    strings.fields().include(InventoryIndexes.AMOUNT).include(InventoryIndexes.AVERAGE_PRICE);
+    return backfill(strings, inventory -> {
+      Update update = new Update();
+      if (inventory.getAmount() != null) {
+        update.set(InventoryIndexes.AMOUNT, new Decimal128(inventory.getAmount()));
+      }
+      if (inventory.getAveragePrice() != null) {
+        update.set(InventoryIndexes.AVERAGE_PRICE, new Decimal128(inventory.getAveragePrice()));
+      }
+      return update;
+    });
+  }
+
+  /**
+   * Store neverExpires as false on Inventory written without it, so the partial expiry index holds it.
+   * @return Number of Inventory updated.
+   */
+  public long storeNeverExpires() {
+    return this.mongoTemplate.updateMulti(query(where(InventoryIndexes.NEVER_EXPIRES).is(null)),
+      new Update().set(InventoryIndexes.NEVER_EXPIRES, false), Inventory.class).getModifiedCount();
+  }
+
+  /**
+   * Store searchTerms on Inventory written before they were computed, a bulk update per batch.
+   * Inventory missing them is found through the searchTerms index.
+   * @return Number of Inventory updated.
+   */
+  public long indexSearchTerms() {
+    Query missing = query(where(InventorySearchTerms.FIELD).is(null));
+    missing.fields().include(NAME).include(PRODUCT_TYPE).include(DESCRIPTION);
+    return backfill(missing,
+      inventory -> new Update().set(InventorySearchTerms.FIELD, InventorySearchTerms.of(inventory)));
+  }
+
+  /**
+   * Update every Inventory a query finds, a bulk update per batch.
+   * @param query Inventory to update, reading the fields the update is computed from.
+   * @param update computes the update of one Inventory.
+   * @return Number of Inventory updated.
+   */
+  private long backfill(Query query, Function<Inventory, Update> update) {
+    long count = 0;
+    List<Pair<Query, Update>> updates = new ArrayList<>();
+    try (CloseableIterator<Inventory> cursor =
+           this.mongoTemplate.stream(query.cursorBatchSize(STREAM_BATCH_SIZE), Inventory.class)) {
+      while (cursor.hasNext()) {
+        Inventory inventory = cursor.next();
+        updates.add(Pair.of(query(where(PageCursor.ID).is(inventory.getId())), update.apply(inventory)));
+        if (updates.size() == STREAM_BATCH_SIZE || !cursor.hasNext()) {
+          this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class).updateOne(updates).execute();
+          count += updates.size();
+          updates.clear();
+        }
+      }
+    }
+    return count;
   }
 
   /**
@@ -55,18 +248,63 @@ public class InventoryDAO  {
    * @return List of found Inventory.
    */
   public List<Inventory> findSorted(String sortVariable, String direction) {
-    Query query = new Query();
+    return findSorted(sortVariable, direction, null);
+  }
 
-    Collation collation = Collation.of("en").numericOrderingEnabled();
+  /**
+   * Find the first Inventory in sort order. The sort is read from an index on the field, built with the
+   * collation text sorts run under, so a limit only touches that many documents.
+   * @param sortVariable variable to sort by
+   * @param direction direction to sort in
+   * @param limit maximum number of Inventory to return, all when null
+   * @return List of found Inventory.
+   */
+  public List<Inventory> findSorted(String sortVariable, String direction, Integer limit) {
+    return findSorted(sortVariable, direction, limit, null);
+  }
+
+  /**
+   * Find the first Inventory in sort order, reading only the requested fields.
+   * @param sortVariable variable to sort by
+   * @param direction direction to sort in
+   * @param limit maximum number of Inventory to return, all when null
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return List of found Inventory.
+   */
+  public List<Inventory> findSorted(String sortVariable, String direction, Integer limit, Collection<String> fields) {
+    return this.daoMetrics.record("findSorted", InventoryIndexes.sortShape(sortVariable), () -> {
+      Query query = project(sortedQuery(sortVariable, direction, limit), fields);
+      List<Inventory> myClassList =  this.readRoutes.get("findSorted").find(query, Inventory.class);
+      return myClassList;
+    });
+  }
+
+  /**
+   * Build the findSorted query.
+   * @param sortVariable variable to sort by, one of the sortable fields.
+   * @param direction direction to sort in
+   * @param limit maximum number of Inventory to return, all when null
+   * @return Query.
+   */
+  static Query sortedQuery(String sortVariable, String direction, Integer limit) {
+    Assert.isTrue(InventoryIndexes.SORTABLE.contains(sortVariable),
+        "Inventory can only be sorted by " + InventoryIndexes.SORTABLE + ".");
+    Assert.isTrue(limit == null || limit > 0, "Limit must be positive.");
+    Query query = new Query();
 
-    if (direction.equals(ASC)) {
-      query.with(Sort.by(Sort.Direction.ASC, sortVariable)).collation(collation);
+    if (ASC.equals(direction)) {
+      query.with(Sort.by(Sort.Direction.ASC, sortVariable));
     } else {
-      query.with(Sort.by(Sort.Direction.DESC, sortVariable)).collation(collation);
+      query.with(Sort.by(Sort.Direction.DESC, sortVariable));
+    }
+    if (InventoryIndexes.COLLATED_SORTABLE.contains(sortVariable)) {
+      query.collation(InventoryIndexes.SORT_COLLATION);
     }
 
-    List<Inventory> myClassList =  mongoTemplate.find(query, Inventory.class);
-    return myClassList;
+    if (limit != null) {
+      query.limit(limit);
+    }
+    return query;
   }
 
 
@@ -75,9 +313,100 @@ public class InventoryDAO  {
    * @return List of found Inventory.
    */
   public List<Inventory> findAll() {
-    List<Inventory> testInv = this.mongoTemplate.findAll(Inventory.class);
+    return this.daoMetrics.record("findAll", "all", () -> {
+      List<Inventory> testInv = this.readRoutes.get("findAll").findAll(Inventory.class);
+
+      return testInv;
+    });
+  }
+
+  /**
+   * Find All Inventory, reading only the requested fields.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return List of found Inventory.
+   */
+  public List<Inventory> findAll(Collection<String> fields) {
+    return this.daoMetrics.record("findAll", "all",
+      () -> this.readRoutes.get("findAll").find(project(new Query(), fields), Inventory.class));
+  }
 
-    return testInv;
+  /**
+   * Find a Page of Inventory.
+   * @param size maximum number of Inventory on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param sortVariable variable to sort by: name or productType, null to page in id order.
+   * @param direction direction to sort in.
+   * @param estimateTotal include the estimated number of Inventory in the collection.
+   * @return Page of found Inventory.
+   */
+  public CursorPage<Inventory> findPage(int size, String cursor, String sortVariable, String direction,
+                                        boolean estimateTotal) {
+    return findPage(size, cursor, sortVariable, direction, estimateTotal, null);
+  }
+
+  /**
+   * Find a Page of Inventory, reading only the requested fields and those the cursor needs.
+   * @param size maximum number of Inventory on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param sortVariable variable to sort by: name or productType, null to page in id order.
+   * @param direction direction to sort in.
+   * @param estimateTotal include the estimated number of Inventory in the collection.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Page of found Inventory.
+   */
+  public CursorPage<Inventory> findPage(int size, String cursor, String sortVariable, String direction,
+                                        boolean estimateTotal, Collection<String> fields) {
+    return this.daoMetrics.record("findPage", pageShape(sortVariable), () -> {
+      Query query = pageQuery(size, cursor, sortVariable, direction, fields);
+      MongoTemplate reads = this.readRoutes.get("findPage");
+      List<Inventory> results = reads.find(query, Inventory.class);
+
+      Long estimatedTotal = null;
+      if (estimateTotal) {
+        estimatedTotal = reads.getCollection(reads.getCollectionName(Inventory.class)).estimatedDocumentCount();
+      }
+      return PageCursor.toPage(results, size, keysetValue(sortVariable), Inventory::getId, estimatedTotal);
+    });
+  }
+
+  /**
+   * Name the shape of a findPage query by the variable it pages by.
+   * @param sortVariable variable to sort by, null when paging in id order.
+   * @return Shape.
+   */
+  static String pageShape(String sortVariable) {
+    return "page:" + (sortVariable == null ? PageCursor.ID
+        : KEYSET_SORTS.containsKey(sortVariable) ? sortVariable : "invalid");
+  }
+
+  /**
+   * Build the findPage query.
+   * @param size maximum number of Inventory on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param sortVariable variable to sort by: name or productType, null to page in id order.
+   * @param direction direction to sort in.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Query.
+   */
+  static Query pageQuery(int size, String cursor, String sortVariable, String direction, Collection<String> fields) {
+    Assert.isTrue(sortVariable == null || KEYSET_SORTS.containsKey(sortVariable),
+        "Inventory can only be paged by " + KEYSET_SORTS.keySet() + ".");
+    Sort.Direction sortDirection = ASC.equals(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+    Query query = PageCursor.apply(new Query(), sortVariable, sortDirection, cursor, size);
+    if (sortVariable == null) {
+      return project(query, fields, InventoryFields.ID);
+    }
+    return project(query, fields, InventoryFields.ID, sortVariable);
+  }
+
+  /**
+   * Extracts the keyset sort value of an Inventory.
+   * @param sortVariable variable paged by, null when paging in id order.
+   * @return Extractor, null when paging in id order.
+   */
+  static Function<Inventory, String> keysetValue(String sortVariable) {
+    return sortVariable == null ? null : KEYSET_SORTS.get(sortVariable);
   }
 
 
@@ -87,11 +416,16 @@ public class InventoryDAO  {
    * @return Created/Updated Inventory.
    */
   public Inventory create(Inventory inventory) {
-    inventory.setId(null);
+    return this.daoMetrics.record("create", "document", () -> {
+      inventory.setId(null);
+      derive(inventory);
 
-    mongoTemplate.insert(inventory);
+      mongoTemplate.insert(inventory);
+      this.inventoryCache.put(inventory);
+      this.eventPublisher.publishEvent(InventoryChange.created(inventory));
 
-    return inventory;
+      return inventory;
+    });
   }
 
   /**
@@ -100,12 +434,16 @@ public class InventoryDAO  {
    * @return Found Inventory.
    */
   public Optional<Inventory> retrieve(String id) {
-    Inventory foundInventory = null;
-    foundInventory = mongoTemplate.findById(id, Inventory.class);
-    
-    Optional<Inventory> optFoundInv = Optional.ofNullable(foundInventory);
- 
-    return optFoundInv;
+    return this.daoMetrics.record("retrieve", "id", () -> this.inventoryCache.get(id,
+      key -> Optional.ofNullable(mongoTemplate.findById(key, Inventory.class))));
+  }
+
+  /**
+   * Near-cache counters for retrieve.
+   * @return Stats.
+   */
+  public CacheStats cacheStats() {
+    return this.inventoryCache.stats();
   }
 
 
@@ -121,23 +459,430 @@ public class InventoryDAO  {
   public List<Inventory> filterRetrieve(@RequestParam(required = false) UnitOfMeasurement measurementUnit,
                                         @RequestParam(required = false) BigDecimal amount,
                                         @RequestParam(required = false) Instant bestBeforeDate) {
+    return filterRetrieve(measurementUnit, amount, bestBeforeDate, null);
+  }
+
+  /**
+   * Filter Retrieve Inventory, reading only the requested fields. When the fields and the filter
+   * all sit in one index and id is not requested, the query is answered from the index alone.
+   * @param measurementUnit Unit of measurement to filter on, optional.
+   * @param amount Amount to look for, optional.
+   * @param bestBeforeDate Best before date to look for, optional.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory.
+   */
+  public List<Inventory> filterRetrieve(UnitOfMeasurement measurementUnit, BigDecimal amount, Instant bestBeforeDate,
+                                        Collection<String> fields) {
+    String shape = InventoryIndexes.filterShape(measurementUnit != null, amount != null, bestBeforeDate != null);
+    return this.daoMetrics.record("filterRetrieve", shape, () -> {
+      Query query = project(filterQuery(measurementUnit, amount, bestBeforeDate), fields);
+      return this.readRoutes.get("filterRetrieve").find(query, Inventory.class);
+    });
+  }
+
+  /**
+   * Find Inventory meeting every condition of a filter, sorted and limited as it asks. The filter is
+   * bound into the template cached for its shape, built the first time the shape is seen.
+   * @param filter conditions on allow-listed fields, with an optional sort, limit and fields.
+   * @return Found Inventory.
+   */
+  public List<Inventory> search(InventoryFilter filter) {
+    InventoryFilterTemplates.Template template = this.filterTemplates.template(filter);
+    return this.daoMetrics.record("search", template.getShape(),
+      () -> this.readRoutes.get("search").find(project(template.bind(filter), filter.getFields()),
+        Inventory.class));
+  }
+
+  /**
+   * Find Inventory as a query is typed. Names starting with the query as typed come first, read
+   * in name order from the name index. Further matches are Inventory with a word of their name,
+   * productType or description starting with each query word, looked up in the searchTerms index
+   * and ranked name matches first.
+   * @param text query as typed.
+   * @param limit maximum number of Inventory to return.
+   * @param fields Inventory fields to return, or "summary", all when empty
+   * @return Found Inventory, best match first.
+   */
+  public List<Inventory> typeahead(String text, int limit, Collection<String> fields) {
+    Assert.hasText(text, "Search text was not provided");
+    Assert.isTrue(limit > 0 && limit <= MAX_SEARCH_LIMIT, "Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+    String query = text.trim().toLowerCase(Locale.ROOT);
+    List<String> tokens = InventorySearchTerms.words(query);
+    Assert.notEmpty(tokens, "Search text must contain a letter or digit.");
+    String[] required = {InventoryFields.ID, NAME, PRODUCT_TYPE, DESCRIPTION};
+
+    return this.daoMetrics.record("typeahead", tokens.size() == 1 ? "word" : "words", () -> {
+      MongoTemplate reads = this.readRoutes.get("typeahead");
+      Query prefix = prefixQuery(text.trim(), limit);
+      List<Inventory> found = reads.find(project(prefix, fields, required), Inventory.class);
+      if (found.size() == limit) {
+        return found;
+      }
+
+      List<String> ids = found.stream().map(Inventory::getId).collect(Collectors.toList());
+      List<String> terms = tokens.stream().map(InventorySearchTerms::term).distinct().collect(Collectors.toList());
+      // Extra candidates leave room for the ranking and for tokens longer than the stored prefixes.
+      Query words = wordsQuery(terms, ids, limit * SEARCH_CANDIDATES);
+      List<Inventory> ranked = reads.find(project(words, fields, required), Inventory.class).stream()
+          .filter(inventory -> InventorySearchTerms.matches(inventory, tokens))
+          .sorted(InventorySearchTerms.ranking(query, tokens))
+          .limit(limit - found.size())
+          .collect(Collectors.toList());
+      found.addAll(ranked);
+      return found;
+    });
+  }
+
+  /**
+   * Build the typeahead query for names starting with the text as typed, in name order.
+   * @param text text as typed, trimmed.
+   * @param limit maximum number of Inventory to return.
+   * @return Query.
+   */
+  static Query prefixQuery(String text, int limit) {
+    return query(where(NAME).regex(InventorySearchTerms.prefixPattern(text))).with(Sort.by(NAME)).limit(limit);
+  }
+
+  /**
+   * Build the typeahead query for Inventory with a searchTerm for every word, other than those
+   * already found by name.
+   * @param terms searchTerms every Inventory found has.
+   * @param ids ids of Inventory already found.
+   * @param limit maximum number of candidates.
+   * @return Query.
+   */
+  static Query wordsQuery(List<String> terms, List<String> ids, int limit) {
+    Criteria criteria = where(InventorySearchTerms.FIELD).all(terms);
+    // An empty $nin would still let the planner consider a scan of the whole _id index.
+    if (!ids.isEmpty()) {
+      criteria.and(PageCursor.ID).nin(ids);
+    }
+    return query(criteria).limit(limit);
+  }
+
+  /**
+   * Full-text search of name, productType and description through the text index, which stems
+   * words and drops stop words. Name matches weigh most.
+   * @param text words or "quoted phrases" to search for, -word to exclude.
+   * @param limit maximum number of Inventory to return.
+   * @param fields Inventory fields to return, or "summary", all when empty
+   * @return Found Inventory, highest text score first.
+   */
+  public List<Inventory> textSearch(String text, int limit, Collection<String> fields) {
+    Assert.hasText(text, "Search text was not provided");
+    Assert.isTrue(limit > 0 && limit <= MAX_SEARCH_LIMIT, "Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+    return this.daoMetrics.record("textSearch", "text", () -> {
+      Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore().limit(limit);
+      return this.readRoutes.get("textSearch").find(project(query, fields), Inventory.class);
+    });
+  }
+
+  /**
+   * Find Inventory holding a quantity within a range, whatever unit of the same dimension it is
+   * measured in. The bounds are given in one unit, converted to its dimension's base unit and
+   * matched against normalizedAmount through the unitOfMeasurement, normalizedAmount index.
+   * @param unit unit the bounds are given in.
+   * @param min least quantity, optional.
+   * @param max greatest quantity, optional.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory, smallest quantity first.
+   */
+  public List<Inventory> findByQuantity(UnitOfMeasurement unit, BigDecimal min, BigDecimal max,
+                                        Collection<String> fields) {
+    Assert.notNull(unit, "Unit of Measurement was not provided");
+    return this.daoMetrics.record("findByQuantity", InventoryIndexes.quantityShape(min != null, max != null),
+      () -> this.readRoutes.get("findByQuantity").find(project(quantityQuery(unit, min, max), fields),
+        Inventory.class));
+  }
+
+  /**
+   * Find the Inventory available at a store, optionally of one productType, in id order. Answered
+   * from the multikey availableStores index.
+   * @param store store name.
+   * @param productType productType to filter on, optional.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory.
+   */
+  public List<Inventory> findByStore(String store, String productType, Collection<String> fields) {
+    Assert.hasText(store, "Store was not provided");
+    return this.daoMetrics.record("findByStore", InventoryIndexes.storeShape(productType != null),
+      () -> this.readRoutes.get("findByStore").find(project(storeQuery(store, productType), fields),
+        Inventory.class));
+  }
+
+  /**
+   * Find a Page of the Inventory available at a store, optionally of one productType, in id order.
+   * @param store store name.
+   * @param productType productType to filter on, optional.
+   * @param size maximum number of Inventory on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Page of found Inventory.
+   */
+  public CursorPage<Inventory> findStorePage(String store, String productType, int size, String cursor,
+                                             Collection<String> fields) {
+    Assert.hasText(store, "Store was not provided");
+    return this.daoMetrics.record("findStorePage", InventoryIndexes.storeShape(productType != null), () -> {
+      Query query = PageCursor.apply(query(storeCriteria(store, productType)), null, Sort.Direction.ASC, cursor,
+          size);
+      List<Inventory> results = this.readRoutes.get("findStorePage")
+          .find(project(query, fields, InventoryFields.ID), Inventory.class);
+      return PageCursor.toPage(results, size, null, Inventory::getId, null);
+    });
+  }
+
+  /**
+   * Make Inventory available at a store with one updateMulti. Only Inventory not yet at the store
+   * matches, so each one changed moves to its next version and the count is what changed.
+   * @param store store name.
+   * @param ids Ids of Inventory.
+   * @return Store and number of Inventory changed.
+   */
+  public StoreUpdateResult addStore(String store, List<String> ids) {
+    return updateStores("addStore", store, ids, where(InventoryIndexes.AVAILABLE_STORES).ne(store),
+        new Update().addToSet(InventoryIndexes.AVAILABLE_STORES, store));
+  }
+
+  /**
+   * Stop Inventory being available at a store with one updateMulti. Only Inventory at the store
+   * matches, so each one changed moves to its next version and the count is what changed.
+   * @param store store name.
+   * @param ids Ids of Inventory.
+   * @return Store and number of Inventory changed.
+   */
+  public StoreUpdateResult removeStore(String store, List<String> ids) {
+    return updateStores("removeStore", store, ids, where(InventoryIndexes.AVAILABLE_STORES).is(store),
+        new Update().pull(InventoryIndexes.AVAILABLE_STORES, store));
+  }
+
+  /**
+   * Apply a store update to the Inventory with the given ids that need it. Listeners are told to
+   * reload once, the changed Inventory is not read back.
+   * @param operation operation name.
+   * @param store store name.
+   * @param ids Ids of Inventory.
+   * @param needed criteria matching Inventory the update changes.
+   * @param update Update of availableStores.
+   * @return Store and number of Inventory changed.
+   */
+  private StoreUpdateResult updateStores(String operation, String store, List<String> ids, Criteria needed,
+                                         Update update) {
+    Assert.hasText(store, "Store was not provided");
+    Assert.notEmpty(ids, "Inventory Ids were not provided");
+    return this.daoMetrics.record(operation, "ids", () -> {
+      long modified = this.mongoTemplate.updateMulti(query(where(PageCursor.ID).in(ids)).addCriteria(needed),
+          update.inc(VERSION, 1), Inventory.class).getModifiedCount();
+      this.inventoryCache.invalidate(ids);
+      if (modified > 0) {
+        this.eventPublisher.publishEvent(InventoryChange.reload());
+      }
+      return new StoreUpdateResult(store, modified);
+    });
+  }
+
+  /**
+   * Stream Inventory through a server side cursor, handing each Inventory to the consumer as
+   * soon as it is read so memory does not grow with the size of the collection.
+   * @param measurementUnit Unit of measurement to filter on, optional.
+   * @param amount Amount to look for, optional.
+   * @param bestBeforeDate Best before date to look for, optional.
+   * @param consumer receives each found Inventory.
+   * @return Number of Inventory streamed.
+   */
+  public long stream(UnitOfMeasurement measurementUnit, BigDecimal amount, Instant bestBeforeDate,
+                     Consumer<Inventory> consumer) {
+    String shape = InventoryIndexes.filterShape(measurementUnit != null, amount != null, bestBeforeDate != null);
+    return this.daoMetrics.record("stream", shape, () -> {
+      Query query = filterQuery(measurementUnit, amount, bestBeforeDate).cursorBatchSize(STREAM_BATCH_SIZE);
+      long count = 0;
+
+      try (CloseableIterator<Inventory> cursor = this.readRoutes.get("stream").stream(query, Inventory.class)) {
+        while (cursor.hasNext()) {
+          consumer.accept(cursor.next());
+          count++;
+        }
+      }
+      return count;
+    });
+  }
+
+  /**
+   * Match an Inventory only while it is at the expected version.
+   * @param id Inventory id.
+   * @param version version the caller read.
+   * @return Query.
+   */
+  static Query versionedQuery(String id, long version) {
+    // Documents loaded outside the application may not have a version yet.
+    Criteria expectedVersion = version == 0
+        ? new Criteria().orOperator(where(VERSION).is(0L), where(VERSION).exists(false))
+        : where(VERSION).is(version);
+    return query(where(PageCursor.ID).is(id)).addCriteria(expectedVersion);
+  }
+
+  /**
+   * Set the editable fields of an Inventory and move it to the next version.
+   * @param inventory Inventory holding the new values.
+   * @return Update.
+   */
+  static Update versionedUpdate(Inventory inventory) {
+    return new Update().set("name", inventory.getName())
+                       .set("productType", inventory.getProductType())
+                       .set("description", inventory.getDescription())
+                       .set("averagePrice", inventory.getAveragePrice())
+                       .set("amount", inventory.getAmount())
+                       .set("unitOfMeasurement", inventory.getUnitOfMeasurement())
+                       .set(InventoryIndexes.NORMALIZED_AMOUNT, normalizedAmount(inventory))
+                       .set(InventorySearchTerms.FIELD, InventorySearchTerms.of(inventory))
+                       .set("bestBeforeDate", inventory.getBestBeforeDate())
+                       .set(InventoryIndexes.NEVER_EXPIRES, Boolean.TRUE.equals(inventory.getNeverExpires()))
+                       .inc(VERSION, 1);
+  }
+
+  /**
+   * The stored Inventory after versionedUpdate, built without reading it back.
+   * @param previous Inventory before the update.
+   * @param inventory Inventory holding the new values.
+   * @return Updated Inventory.
+   */
+  static Inventory updated(Inventory previous, Inventory inventory) {
+    Inventory updated = new Inventory();
+    updated.setId(previous.getId());
+    updated.setVersion(previous.getVersion() + 1);
+    updated.setName(inventory.getName());
+    updated.setProductType(inventory.getProductType());
+    updated.setDescription(inventory.getDescription());
+    updated.setAveragePrice(inventory.getAveragePrice());
+    updated.setAmount(inventory.getAmount());
+    updated.setUnitOfMeasurement(inventory.getUnitOfMeasurement());
+    updated.setBestBeforeDate(inventory.getBestBeforeDate());
+    updated.setNeverExpires(inventory.getNeverExpires());
+    updated.setAvailableStores(previous.getAvailableStores());
+    return derive(updated);
+  }
+
+  /**
+   * Compute the fields stored for queries rather than written by clients, and store a missing
+   * neverExpires as false.
+   * @param inventory Inventory about to be stored.
+   * @return the Inventory.
+   */
+  static Inventory derive(Inventory inventory) {
+    inventory.setNeverExpires(Boolean.TRUE.equals(inventory.getNeverExpires()));
+    inventory.setNormalizedAmount(normalizedAmount(inventory));
+    inventory.setSearchTerms(InventorySearchTerms.of(inventory));
+    return inventory;
+  }
+
+  /**
+   * amount converted to the base unit of its unitOfMeasurement's dimension.
+   * @param inventory Inventory.
+   * @return Normalized amount, null when the amount or unit is missing.
+   */
+  static BigDecimal normalizedAmount(Inventory inventory) {
+    if (inventory.getAmount() == null || inventory.getUnitOfMeasurement() == null) {
+      return null;
+    }
+    return inventory.getUnitOfMeasurement().normalize(inventory.getAmount());
+  }
+
+  /**
+   * Restrict a query to the requested fields. _id is left out unless requested, which lets a
+   * query whose filter and fields fit one index be covered by it.
+   * @param query Query to restrict.
+   * @param fields requested fields, all when empty.
+   * @param required fields the caller needs whatever was requested.
+   * @return the query.
+   */
+  static Query project(Query query, Collection<String> fields, String... required) {
+    Set<String> projected = InventoryFields.expand(fields);
+    if (projected.isEmpty()) {
+      // Every field clients see, the search terms are only read by the database.
+      query.fields().exclude(InventorySearchTerms.FIELD);
+      return query;
+    }
+
+    projected.addAll(Arrays.asList(required));
+    for (String field : projected) {
+      query.fields().include(field);
+    }
+    if (!projected.contains(InventoryFields.ID)) {
+      query.fields().exclude(PageCursor.ID);
+    }
+    return query;
+  }
+
+  /**
+   * Build the query shared by findByQuantity and the index advisor.
+   * @param unit unit the bounds are given in.
+   * @param min least quantity, optional.
+   * @param max greatest quantity, optional.
+   * @return Query.
+   */
+  static Query quantityQuery(UnitOfMeasurement unit, BigDecimal min, BigDecimal max) {
+    Criteria quantity = where(InventoryIndexes.UNIT_OF_MEASUREMENT).in(unit.comparable())
+        .and(InventoryIndexes.NORMALIZED_AMOUNT);
+    if (min != null) {
+      quantity.gte(unit.normalize(min));
+    }
+    if (max != null) {
+      quantity.lte(unit.normalize(max));
+    }
+    if (min == null && max == null) {
+      quantity.ne(null);
+    }
+    return query(quantity).with(Sort.by(InventoryIndexes.NORMALIZED_AMOUNT));
+  }
+
+  /**
+   * Build the query shared by findByStore and the index advisor.
+   * @param store store name.
+   * @param productType productType to filter on, optional.
+   * @return Query.
+   */
+  static Query storeQuery(String store, String productType) {
+    return query(storeCriteria(store, productType)).with(Sort.by(PageCursor.ID));
+  }
+
+  /**
+   * Match Inventory available at a store, an equality on any element of availableStores.
+   * @param store store name.
+   * @param productType productType to filter on, optional.
+   * @return Criteria.
+   */
+  private static Criteria storeCriteria(String store, String productType) {
+    Criteria criteria = where(InventoryIndexes.AVAILABLE_STORES).is(store);
+    if (productType != null) {
+      criteria.and(PRODUCT_TYPE).is(productType);
+    }
+    return criteria;
+  }
+
+  /**
+   * Build the query shared by filterRetrieve, stream and the index advisor.
+   * @param measurementUnit Unit of measurement to filter on, optional.
+   * @param amount Amount to look for, optional.
+   * @param bestBeforeDate Best before date to look for, optional.
+   * @return Query.
+   */
+  static Query filterQuery(UnitOfMeasurement measurementUnit, BigDecimal amount, Instant bestBeforeDate) {
     Query query = new Query();
 
     if (measurementUnit != null) {
-      query.addCriteria(where("unitOfMeasurement").is(measurementUnit));
+      query.addCriteria(where(InventoryIndexes.UNIT_OF_MEASUREMENT).is(measurementUnit));
     }
 
 
     if (amount != null) {
-      query.addCriteria(where("amount").is(amount));
+      query.addCriteria(where(InventoryIndexes.AMOUNT).is(amount));
     }
 
 
     if (bestBeforeDate != null) {
-      query.addCriteria(where("bestBeforeDate").lt(bestBeforeDate));
+      query.addCriteria(where(InventoryIndexes.BEST_BEFORE_DATE).lt(bestBeforeDate));
     }
 
-    return mongoTemplate.find(query, Inventory.class);
+    return query;
   }
 
 
@@ -146,46 +891,277 @@ public class InventoryDAO  {
 
 
   /**
-   * Update Inventory.
+   * Update Inventory if it is still at the version the caller read, incrementing the version and
+   * returning the stored Inventory in the same round trip. Throws OptimisticLockingFailureException
+   * if the Inventory was changed since it was read.
    * @param id Inventory id to Update.
    * @param inventory Inventory to Update.
-   * @return Updated Inventory.
+   * @return Updated Inventory, empty if there is no Inventory with the id.
    */
   public Optional<Inventory> update(String id, Inventory inventory) {
+    return this.daoMetrics.record("update", "id", () -> applyUpdate(id, inventory));
+  }
+
+  /**
+   * Apply a versioned update.
+   * @param id Inventory id to Update.
+   * @param inventory Inventory to Update.
+   * @return Updated Inventory, empty if there is no Inventory with the id.
+   */
+  private Optional<Inventory> applyUpdate(String id, Inventory inventory) {
+    // The previous state is returned so listeners see both sides of the change, the new state is
+    // the previous one with the update applied.
+    Inventory previous = this.mongoTemplate.findAndModify(versionedQuery(id, inventory.getVersion()),
+        versionedUpdate(inventory), FindAndModifyOptions.options().returnNew(false).upsert(false), Inventory.class);
+
+    if (previous != null) {
+      Inventory updated = updated(previous, inventory);
+      this.inventoryCache.put(updated);
+      this.eventPublisher.publishEvent(InventoryChange.updated(updated, previous));
+      return Optional.of(updated);
+    }
+
+    this.inventoryCache.invalidate(List.of(id));
+    if (this.mongoTemplate.exists(query(where(PageCursor.ID).is(id)), Inventory.class)) {
+      throw new OptimisticLockingFailureException(
+        "Inventory " + id + " is no longer at version " + inventory.getVersion() + ".");
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Add to the amount of one Inventory with $inc, so concurrent adjustments all apply rather than
+   * overwrite each other. The update only matches while the amount stays non-negative and the
+   * Inventory is still in the unitOfMeasurement normalizedAmount is moved in, read from the near-cache.
+   * @param id Inventory id.
+   * @param delta amount to add, negative to remove stock.
+   * @return Adjusted Inventory, empty if there is no Inventory with the id.
+   */
+  public Optional<Inventory> adjustAmount(String id, BigDecimal delta) {
+    Assert.notNull(id, "Inventory Id was not provided");
+    Assert.notNull(delta, "Stock Adjustment delta was not provided");
+    return this.daoMetrics.record("adjustAmount", "id", () -> {
+      Optional<Inventory> known = this.inventoryCache.get(id,
+        key -> Optional.ofNullable(this.mongoTemplate.findById(key, Inventory.class)));
+      for (int attempt = 0; attempt < MAX_ADJUST_ATTEMPTS && known.isPresent(); attempt++) {
+        UnitOfMeasurement unit = known.get().getUnitOfMeasurement();
+        Query query = query(where(PageCursor.ID).is(id)
+            .and(InventoryIndexes.AMOUNT).gte(new Decimal128(delta.negate().max(BigDecimal.ZERO)))
+            .and(InventoryIndexes.UNIT_OF_MEASUREMENT).is(unit));
+        Inventory previous = this.mongoTemplate.findAndModify(query, adjustment(unit, delta),
+            FindAndModifyOptions.options().returnNew(false).upsert(false), Inventory.class);
+        if (previous != null) {
+          Inventory adjusted = adjusted(previous, delta);
+          this.inventoryCache.put(adjusted);
+          this.eventPublisher.publishEvent(InventoryChange.updated(adjusted, previous));
+          return Optional.of(adjusted);
+        }
+
+        // Either the stock ran out or the unit changed since it was cached, retry for the latter.
+        this.inventoryCache.invalidate(List.of(id));
+        known = Optional.ofNullable(this.mongoTemplate.findById(id, Inventory.class));
+        if (known.isPresent() && known.get().getUnitOfMeasurement() == unit) {
+          BigDecimal amount = known.get().getAmount();
+          Assert.notNull(amount, "Inventory " + id + " has no amount to adjust.");
+          Assert.isTrue(amount.add(delta).signum() >= 0,
+              "Adjusting Inventory " + id + " by " + delta + " would leave a negative amount.");
+        }
+      }
+      if (known.isPresent()) {
+        throw new OptimisticLockingFailureException("Inventory " + id + " kept changing while it was adjusted.");
+      }
+      return Optional.empty();
+    });
+  }
+
+  /**
+   * Add to the amounts of many Inventory, each delta already summed per Inventory, with one
+   * unordered bulk write. The Inventory is read first and each update pinned to the version read,
+   * so the amount checked against going negative is the one adjusted and listeners get the exact
+   * previous state. Each update also records adjustmentId on the Inventory and only matches one not
+   * carrying it yet, so a batch whose write failed part way can be retried with the same id without
+   * adjusting any Inventory twice. An update that matched nothing had its Inventory changed or
+   * deleted since the read, and is reported as conflicted.
+   * @param adjustmentId id of the batch, the same for every attempt to apply it.
+   * @param deltas amount to add per Inventory id.
+   * @return Ids adjusted, rejected, not found and conflicted.
+   */
+  public StockAdjustmentResult adjustAmounts(String adjustmentId, Map<String, BigDecimal> deltas) {
+    Assert.hasText(adjustmentId, "Stock Adjustment id was not provided");
+    Assert.notNull(deltas, "Stock Adjustments were not provided");
+    return this.daoMetrics.record("adjustAmounts", "bulk", () -> {
+      StockAdjustmentResult result = new StockAdjustmentResult();
+      Map<String, Inventory> found = this.mongoTemplate.find(query(where(PageCursor.ID).in(deltas.keySet())
+          .and(ADJUSTMENTS).ne(adjustmentId)), Inventory.class).stream()
+          .collect(Collectors.toMap(Inventory::getId, Function.identity()));
+      // Inventory carrying the id were adjusted by an earlier attempt, whose changes were never published.
+      Set<String> adjustedEarlier = found.size() == deltas.size() ? Set.of() : carrying(adjustmentId,
+          deltas.keySet().stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList()));
+      if (!adjustedEarlier.isEmpty()) {
+        this.inventoryCache.invalidate(adjustedEarlier);
+        this.eventPublisher.publishEvent(InventoryChange.reload());
+      }
 
-    Update update = new Update().set("name", inventory.getName())
-                                .set("productType", inventory.getProductType())
-                                .set("description", inventory.getDescription())
-                                .set("averagePrice", inventory.getAveragePrice())
-                                .set("amount", inventory.getAmount())
-                                .set("unitOfMeasurement", inventory.getUnitOfMeasurement())
-                                .set("bestBeforeDate", inventory.getBestBeforeDate())
-                                .set("neverExpires", inventory.getNeverExpires());
+      BulkOperations bulk = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+      List<Inventory> previous = new ArrayList<>();
+      List<Inventory> adjusted = new ArrayList<>();
+      deltas.forEach((id, delta) -> {
+        Inventory current = found.get(id);
+        if (adjustedEarlier.contains(id)) {
+          result.getAdjusted().add(id);
+        } else if (current == null) {
+          result.getNotFound().add(id);
+        } else if (current.getAmount() == null || current.getAmount().add(delta).signum() < 0) {
+          result.getRejected().add(id);
+        } else {
+          bulk.updateOne(versionedQuery(id, current.getVersion()).addCriteria(where(ADJUSTMENTS).ne(adjustmentId)),
+              adjustment(current.getUnitOfMeasurement(), delta).push(ADJUSTMENTS).slice(-KEPT_ADJUSTMENTS)
+                  .each(adjustmentId));
+          previous.add(current);
+          adjusted.add(adjusted(current, delta));
+        }
+      });
+      if (previous.isEmpty()) {
+        return result;
+      }
 
-    mongoTemplate.upsert(query(where("_id").is(id)), update, Inventory.class);
-    
+      List<String> ids = previous.stream().map(Inventory::getId).collect(Collectors.toList());
+      int matched;
+      try {
+        matched = bulk.execute().getMatchedCount();
+      } catch (DataAccessException e) {
+        // Some of the updates may have applied: the caller retries the batch under the same id.
+        this.inventoryCache.invalidate(ids);
+        throw e;
+      }
+      Set<String> applied = matched == ids.size() ? Set.copyOf(ids) : carrying(adjustmentId, ids);
 
-    Optional<Inventory> optFoundInv = Optional.ofNullable(inventory);
- 
-    return optFoundInv;
+      for (int i = 0; i < previous.size(); i++) {
+        String id = ids.get(i);
+        if (applied.contains(id)) {
+          this.inventoryCache.put(adjusted.get(i));
+          this.eventPublisher.publishEvent(InventoryChange.updated(adjusted.get(i), previous.get(i)));
+          result.getAdjusted().add(id);
+        } else {
+          this.inventoryCache.invalidate(List.of(id));
+          result.getConflicted().add(id);
+        }
+      }
+      return result;
+    });
+  }
 
+  /**
+   * Ids of the Inventory a stock adjustment batch was applied to.
+   * @param adjustmentId id of the batch.
+   * @param ids Inventory ids to look at.
+   * @return Ids.
+   */
+  private Set<String> carrying(String adjustmentId, Collection<String> ids) {
+    Query query = query(where(PageCursor.ID).in(ids).and(ADJUSTMENTS).is(adjustmentId));
+    query.fields().include(PageCursor.ID);
+    return this.mongoTemplate.find(query, Inventory.class).stream().map(Inventory::getId)
+        .collect(Collectors.toSet());
+  }
 
+  /**
+   * Add to amount and normalizedAmount and move to the next version.
+   * @param unit unitOfMeasurement of the Inventory.
+   * @param delta amount to add.
+   * @return Update.
+   */
+  private static Update adjustment(UnitOfMeasurement unit, BigDecimal delta) {
+    Update update = new Update().inc(InventoryIndexes.AMOUNT, new Decimal128(delta)).inc(VERSION, 1);
+    if (unit != null) {
+      update.inc(InventoryIndexes.NORMALIZED_AMOUNT, new Decimal128(unit.normalize(delta)));
+    }
+    return update;
   }
 
   /**
-   * Delete Inventory By Id.
+   * The stored Inventory after adjustment, built without reading it back.
+   * @param previous Inventory before the adjustment.
+   * @param delta amount added.
+   * @return Adjusted Inventory.
+   */
+  static Inventory adjusted(Inventory previous, BigDecimal delta) {
+    Inventory adjusted = updated(previous, previous);
+    adjusted.setAmount(previous.getAmount().add(delta));
+    return derive(adjusted);
+  }
+
+  /**
+   * Delete Inventory By Id. Only the Inventory returned is read in full, the rest is removed as
+   * deleteAll removes it.
    * @param id Id of Inventory.
-   * @return Deleted Inventory.
+   * @return Deleted Inventory of the last id, empty if it was not found.
    */
   public Optional<Inventory> delete(List<String> id) {
-    Inventory deletedInventory = null;
+    Assert.notNull(id, "Inventory Ids were not provided");
+    return this.daoMetrics.record("delete", "ids", () -> {
+      Inventory last = id.isEmpty() ? null : this.mongoTemplate.findById(id.get(id.size() - 1), Inventory.class);
+      BulkDeleteResult<Inventory> result = deleteChunks(id, false);
 
-    for (int i = 0; i < id.size(); i++) {
-      deletedInventory = mongoTemplate.findAndRemove(query(where("_id").is(id.get(i))), Inventory.class);
+      return last != null && result.getDeletedIds().contains(last.getId()) ? Optional.of(last) : Optional.empty();
+    });
+  }
+
+  /**
+   * Delete many Inventory By Id. Each chunk of ids costs one lookup of the Inventory that exist,
+   * reading only the fields delete listeners need unless the documents are wanted, and one deleteMany.
+   * @param ids Ids of Inventory.
+   * @param returnDocuments whether to fetch and return the deleted Inventory.
+   * @return Deleted and missing ids.
+   */
+  public BulkDeleteResult<Inventory> deleteAll(List<String> ids, boolean returnDocuments) {
+    return this.daoMetrics.record("deleteAll", returnDocuments ? "documents" : "ids",
+      () -> deleteChunks(ids, returnDocuments));
+  }
+
+  /**
+   * Delete Inventory chunk by chunk.
+   * @param ids Ids of Inventory.
+   * @param returnDocuments whether to fetch and return the deleted Inventory.
+   * @return Deleted and missing ids.
+   */
+  private BulkDeleteResult<Inventory> deleteChunks(List<String> ids, boolean returnDocuments) {
+    Assert.notNull(ids, "Inventory Ids were not provided");
+    List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+    BulkDeleteResult<Inventory> result = new BulkDeleteResult<>();
+    if (returnDocuments) {
+      result.setDeleted(new ArrayList<>());
     }
 
-    Optional<Inventory> optDeletedInv = Optional.ofNullable(deletedInventory);
- 
-    return optDeletedInv;
+    for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+      List<String> chunk = distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size()));
+      Query existing = query(where(PageCursor.ID).in(chunk));
+      if (!returnDocuments) {
+        // The fields delete listeners need, rollups are kept from them.
+        for (String field : InventoryRollups.FIELDS) {
+          existing.fields().include(field);
+        }
+      }
+
+      List<Inventory> found = this.mongoTemplate.find(existing, Inventory.class);
+      Set<String> foundIds = new HashSet<>();
+      for (Inventory inventory : found) {
+        foundIds.add(inventory.getId());
+      }
+      if (!foundIds.isEmpty()) {
+        this.mongoTemplate.remove(query(where(PageCursor.ID).in(foundIds)), Inventory.class);
+      }
+      this.inventoryCache.invalidate(chunk);
+      for (Inventory inventory : found) {
+        this.eventPublisher.publishEvent(InventoryChange.deleted(inventory));
+      }
+
+      for (String id : chunk) {
+        (foundIds.contains(id) ? result.getDeletedIds() : result.getMissingIds()).add(id);
+      }
+      if (returnDocuments) {
+        result.getDeleted().addAll(found);
+      }
+    }
+    return result;
   }
 }
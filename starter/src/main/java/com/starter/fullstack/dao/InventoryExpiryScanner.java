@@ -0,0 +1,311 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryExpiry;
+import com.starter.fullstack.api.InventoryImported;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Tracks the Inventory expiring within the next horizon in an ExpiryWheel, and remembers the Inventory
+ * that expired most recently. A scan only reads the Inventory that entered the horizon since the
+ * previous scan, in bestBeforeDate order through the partial expiry index, so its cost follows what
+ * is about to expire rather than the size of the collection. Between scans the wheel ticks on its
+ * own and tracked Inventory expires on time without a query. InventoryChanges keep the tracked
+ * Inventory current, an import has the next scan read the whole horizon again.
+ */
+public class InventoryExpiryScanner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InventoryExpiryScanner.class);
+  private static final String BEST_BEFORE_DATE = InventoryIndexes.BEST_BEFORE_DATE;
+  private static final int SLOTS = 512;
+  private static final int EXPIRED_HISTORY = 1000;
+  private final MongoTemplate mongoTemplate;
+  private final Clock clock;
+  private final Duration interval;
+  private final Duration horizon;
+  private final Duration tick;
+  private final int maxTracked;
+  private final ExpiryWheel wheel;
+  private final Map<String, InventoryExpiry.Item> expired = new LinkedHashMap<>();
+  // Inventory expiring before this has been read into the wheel.
+  private Instant trackedUntil;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   * @param clock Clock.
+   * @param interval time between scans.
+   * @param horizon how far ahead of now Inventory is tracked.
+   * @param tick time between ticks of the wheel, how late an expiry may be reported.
+   * @param maxTracked most Inventory tracked at once, a scan stops reading once the wheel holds as many.
+   */
+  public InventoryExpiryScanner(MongoTemplate mongoTemplate, Clock clock, Duration interval, Duration horizon,
+                                Duration tick, int maxTracked) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    Assert.notNull(clock, "Clock must not be null.");
+    Assert.isTrue(interval != null && !interval.isNegative() && !interval.isZero(), "Interval must be positive.");
+    Assert.isTrue(horizon != null && !horizon.isNegative(), "Horizon must not be negative.");
+    Assert.notNull(tick, "Tick must not be null.");
+    Assert.isTrue(maxTracked > 0, "Max tracked must be positive.");
+    this.mongoTemplate = mongoTemplate;
+    this.clock = clock;
+    this.interval = interval;
+    this.horizon = horizon;
+    this.tick = tick;
+    this.maxTracked = maxTracked;
+    this.trackedUntil = clock.instant();
+    this.wheel = new ExpiryWheel(SLOTS, tick, this.trackedUntil);
+  }
+
+  /**
+   * Scan now and every interval, and tick the wheel. Both run on one thread, a tick waits for a
+   * scan and then catches up.
+   */
+  public void start() {
+    this.scheduler = Executors.newSingleThreadScheduledExecutor();
+    this.scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        scan();
+      } catch (DataAccessException e) {
+        LOGGER.warn("Could not scan for expiring Inventory, retrying in {}", this.interval, e);
+      }
+    }, 0, this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    this.scheduler.scheduleAtFixedRate(this::advance, this.tick.toMillis(), this.tick.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop scanning and ticking.
+   */
+  public void shutdown() {
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Read the Inventory expiring between what is tracked and the end of the horizon into the wheel,
+   * a batch at a time in bestBeforeDate order.
+   * @return Number of Inventory read.
+   */
+  public int scan() {
+    Instant now = this.clock.instant();
+    Instant until = now.plus(this.horizon);
+    Instant cursor;
+    synchronized (this) {
+      expire(this.wheel.advance(now));
+      cursor = this.trackedUntil;
+      // Inventory written from here on is tracked by changed(), this scan may have read past it.
+      this.trackedUntil = until;
+    }
+
+    Instant resume = cursor;
+    int count = 0;
+    try {
+      boolean inclusive = true;
+      while (cursor.isBefore(until)) {
+        Criteria after = where(BEST_BEFORE_DATE);
+        List<Inventory> batch = find(inclusive ? after.gte(cursor).lt(until) : after.gt(cursor).lt(until),
+            InventoryDAO.STREAM_BATCH_SIZE);
+        count += batch.size();
+        if (!track(batch, now)) {
+          return count;
+        }
+        if (batch.size() < InventoryDAO.STREAM_BATCH_SIZE) {
+          resume = until;
+          break;
+        }
+
+        Instant last = batch.get(batch.size() - 1).getBestBeforeDate();
+        if (last.equals(batch.get(0).getBestBeforeDate())) {
+          // A whole batch on one instant, read the rest of it before moving past it.
+          List<Inventory> rest = find(where(BEST_BEFORE_DATE).is(last), 0);
+          count += rest.size();
+          if (!track(rest, now)) {
+            return count;
+          }
+          inclusive = false;
+        } else {
+          // Inventory on the last instant may continue into the next batch, it is read again.
+          inclusive = true;
+        }
+        cursor = last;
+        resume = last;
+      }
+      resume = until;
+      return count;
+    } finally {
+      synchronized (this) {
+        if (resume.isBefore(this.trackedUntil)) {
+          this.trackedUntil = resume;
+        }
+      }
+    }
+  }
+
+  /**
+   * Tick the wheel to now, moving the Inventory that is due to the expired.
+   * @return Inventory that expired, soonest first.
+   */
+  public synchronized List<InventoryExpiry.Item> advance() {
+    List<InventoryExpiry.Item> due = this.wheel.advance(this.clock.instant());
+    expire(due);
+    return due;
+  }
+
+  /**
+   * The tracked Inventory expiring soonest and the Inventory that expired most recently.
+   * @param limit maximum number of each.
+   * @return InventoryExpiry.
+   */
+  public synchronized InventoryExpiry report(int limit) {
+    Assert.isTrue(limit > 0, "Limit must be positive.");
+    InventoryExpiry report = new InventoryExpiry();
+    report.setAsOf(this.clock.instant());
+    report.setTrackedUntil(this.trackedUntil);
+    report.setExpiring(this.wheel.pending(limit));
+    List<InventoryExpiry.Item> expired = new ArrayList<>(this.expired.values());
+    Collections.reverse(expired);
+    report.setExpired(expired.subList(0, Math.min(limit, expired.size())));
+    return report;
+  }
+
+  /**
+   * Keep the tracked Inventory current with a write.
+   * @param change InventoryChange.
+   */
+  @EventListener
+  public synchronized void changed(InventoryChange change) {
+    switch (change.getType()) {
+      case CREATED:
+      case UPDATED:
+        Inventory inventory = change.getInventory();
+        Instant expiry = expiry(inventory);
+        boolean moved = change.getPrevious() == null || !Objects.equals(expiry, expiry(change.getPrevious()));
+        if (!moved && !this.wheel.contains(inventory.getId())) {
+          // Not tracked, or already expired, and still expiring when it did.
+          break;
+        }
+        this.wheel.cancel(inventory.getId());
+        if (moved) {
+          // Expired under the old date, it expires again under the new one when that is due.
+          this.expired.remove(inventory.getId());
+        }
+        if (expiry != null && expiry.isBefore(this.trackedUntil)) {
+          InventoryExpiry.Item item = item(inventory);
+          if (!this.wheel.schedule(item)) {
+            expire(List.of(item));
+          }
+        }
+        break;
+      case DELETED:
+        this.wheel.cancel(change.getId());
+        this.expired.remove(change.getId());
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Have the next scan read the horizon again, imports are not published one Inventory at a time.
+   * @param imported InventoryImported.
+   */
+  @EventListener
+  public synchronized void imported(InventoryImported imported) {
+    Instant now = this.clock.instant();
+    if (now.isBefore(this.trackedUntil)) {
+      this.trackedUntil = now;
+    }
+  }
+
+  /**
+   * Find Inventory that expires, in bestBeforeDate order. The neverExpires equality lets the partial
+   * expiry index answer the query.
+   * @param expiring bestBeforeDate criteria.
+   * @param limit maximum number of Inventory, 0 for all.
+   * @return Inventory with its id, name, productType and bestBeforeDate.
+   */
+  private List<Inventory> find(Criteria expiring, int limit) {
+    Query query = query(where(InventoryIndexes.NEVER_EXPIRES).is(false)).addCriteria(expiring)
+        .with(Sort.by(BEST_BEFORE_DATE)).limit(limit);
+    query.fields().include(InventoryIndexes.NAME).include(InventoryIndexes.PRODUCT_TYPE).include(BEST_BEFORE_DATE);
+    return this.mongoTemplate.find(query, Inventory.class);
+  }
+
+  /**
+   * Schedule read Inventory, or expire it when it is already due.
+   * @param batch Inventory read.
+   * @param now time of the scan.
+   * @return false when the wheel is full.
+   */
+  private synchronized boolean track(List<Inventory> batch, Instant now) {
+    for (Inventory inventory : batch) {
+      if (this.wheel.size() >= this.maxTracked && !this.wheel.contains(inventory.getId())) {
+        LOGGER.warn("Tracking {} expiring Inventory, the rest is read once some has expired", this.maxTracked);
+        return false;
+      }
+      InventoryExpiry.Item item = item(inventory);
+      if (!this.wheel.schedule(item)) {
+        expire(List.of(item));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remember expired Inventory, forgetting the oldest beyond the history kept.
+   * @param items expired Inventory.
+   */
+  private void expire(List<InventoryExpiry.Item> items) {
+    for (InventoryExpiry.Item item : items) {
+      this.expired.remove(item.getId());
+      this.expired.put(item.getId(), item);
+    }
+    while (this.expired.size() > EXPIRED_HISTORY) {
+      this.expired.remove(this.expired.keySet().iterator().next());
+    }
+  }
+
+  /**
+   * Item of an Inventory.
+   * @param inventory Inventory.
+   * @return Item.
+   */
+  private static InventoryExpiry.Item item(Inventory inventory) {
+    return new InventoryExpiry.Item(inventory.getId(), inventory.getName(), inventory.getProductType(),
+        inventory.getBestBeforeDate());
+  }
+
+  /**
+   * Date an Inventory expires, null when it never does.
+   * @param inventory Inventory.
+   * @return bestBeforeDate.
+   */
+  private static Instant expiry(Inventory inventory) {
+    return Boolean.TRUE.equals(inventory.getNeverExpires()) ? null : inventory.getBestBeforeDate();
+  }
+}
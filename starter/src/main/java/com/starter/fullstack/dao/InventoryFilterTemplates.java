@@ -0,0 +1,282 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.InventoryFilter;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+
+/**
+ * Compiles InventoryFilters into Queries. What depends only on the shape of a filter, the fields
+ * and operators it uses and its sort, is validated and worked out once into a Template cached per
+ * shape. A call then only parses its values and binds them into a new filter document.
+ */
+final class InventoryFilterTemplates {
+  // Shapes are combinations of allow-listed fields and operators, this only guards the memory.
+  private static final int MAX_TEMPLATES = 512;
+  private static final String UNCACHED = "uncached";
+  private static final Map<String, FieldType> FIELDS = Map.of(
+      InventoryIndexes.NAME, FieldType.TEXT,
+      InventoryIndexes.PRODUCT_TYPE, FieldType.TEXT,
+      InventoryIndexes.UNIT_OF_MEASUREMENT, FieldType.UNIT,
+      InventoryIndexes.AMOUNT, FieldType.NUMBER,
+      InventoryIndexes.AVERAGE_PRICE, FieldType.NUMBER,
+      InventoryIndexes.BEST_BEFORE_DATE, FieldType.DATE,
+      InventoryIndexes.NEVER_EXPIRES, FieldType.FLAG);
+  private static final Map<InventoryFilter.Operator, String> OPERATORS = Map.of(
+      InventoryFilter.Operator.EQ, "$eq",
+      InventoryFilter.Operator.GT, "$gt",
+      InventoryFilter.Operator.GTE, "$gte",
+      InventoryFilter.Operator.LT, "$lt",
+      InventoryFilter.Operator.LTE, "$lte");
+  // Conditions in the order templates hold them, so filters listing them differently share one.
+  private static final Comparator<InventoryFilter.Condition> CANONICAL =
+      Comparator.comparing(InventoryFilter.Condition::getField, Comparator.nullsFirst(Comparator.naturalOrder()))
+          .thenComparing(InventoryFilter.Condition::getOperator, Comparator.nullsFirst(Comparator.naturalOrder()));
+  private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+  /**
+   * The template of a filter's shape, validated and cached the first time the shape is seen.
+   * @param filter InventoryFilter.
+   * @return Template.
+   */
+  Template template(InventoryFilter filter) {
+    Assert.notNull(filter, "Inventory Filter was not provided");
+    List<InventoryFilter.Condition> conditions = canonical(filter);
+    String sortShape = filter.getSort() == null ? ""
+        : "|sort:" + filter.getSort() + ":" + (InventoryDAO.ASC.equals(filter.getDirection()) ? "asc" : "desc");
+    String shape = conditions.stream()
+        .map(condition -> condition.getField() + ":" + condition.getOperator())
+        .collect(Collectors.joining(",")) + sortShape;
+
+    Template template = this.templates.get(shape);
+    if (template == null) {
+      if (this.templates.size() < MAX_TEMPLATES) {
+        template = this.templates.computeIfAbsent(shape,
+          key -> new Template(key, conditions, filter.getSort(), filter.getDirection()));
+      } else {
+        template = new Template(UNCACHED, conditions, filter.getSort(), filter.getDirection());
+      }
+    }
+    return template;
+  }
+
+  /**
+   * Number of cached templates.
+   * @return Size.
+   */
+  int size() {
+    return this.templates.size();
+  }
+
+  /**
+   * A filter's conditions in canonical order.
+   * @param filter InventoryFilter.
+   * @return Conditions.
+   */
+  private static List<InventoryFilter.Condition> canonical(InventoryFilter filter) {
+    List<InventoryFilter.Condition> conditions = filter.getConditions() == null
+        ? new ArrayList<>() : new ArrayList<>(filter.getConditions());
+    Assert.noNullElements(conditions, "Inventory Filter conditions must not be null.");
+    conditions.sort(CANONICAL);
+    return conditions;
+  }
+
+  /**
+   * The Mongo operators a condition writes into its field's criteria.
+   * @param operator InventoryFilter operator.
+   * @return Mongo operators.
+   */
+  private static List<String> mongoOperators(InventoryFilter.Operator operator) {
+    switch (operator) {
+      case IN:
+        return List.of("$in");
+      case BETWEEN:
+        return List.of("$gte", "$lte");
+      default:
+        return List.of(OPERATORS.get(operator));
+    }
+  }
+
+  /**
+   * How the values of a filterable field are parsed and which operators apply to it.
+   */
+  private enum FieldType {
+    TEXT(EnumSet.of(InventoryFilter.Operator.EQ, InventoryFilter.Operator.IN), value -> value),
+    UNIT(EnumSet.of(InventoryFilter.Operator.EQ, InventoryFilter.Operator.IN),
+      value -> UnitOfMeasurement.valueOf(value).name()),
+    NUMBER(EnumSet.allOf(InventoryFilter.Operator.class), value -> new Decimal128(new BigDecimal(value))),
+    DATE(EnumSet.allOf(InventoryFilter.Operator.class), FieldType::date),
+    FLAG(EnumSet.of(InventoryFilter.Operator.EQ), FieldType::flag);
+
+    private final Set<InventoryFilter.Operator> operators;
+    private final Function<String, Object> parser;
+
+    /**
+     * Default Constructor.
+     * @param operators operators that apply.
+     * @param parser parses a value to what the database stores.
+     */
+    FieldType(Set<InventoryFilter.Operator> operators, Function<String, Object> parser) {
+      this.operators = operators;
+      this.parser = parser;
+    }
+
+    /**
+     * Parse a value.
+     * @param value value as text.
+     * @return value as stored.
+     */
+    private Object parse(String value) {
+      Assert.notNull(value, "Inventory Filter values must not be null.");
+      return this.parser.apply(value);
+    }
+
+    /**
+     * Parse an ISO-8601 instant.
+     * @param value value as text.
+     * @return Date.
+     */
+    private static Object date(String value) {
+      try {
+        return Date.from(Instant.parse(value));
+      } catch (DateTimeParseException e) {
+        throw new IllegalArgumentException("Inventory Filter date " + value + " is not an ISO-8601 instant.", e);
+      }
+    }
+
+    /**
+     * Parse true or false.
+     * @param value value as text.
+     * @return Boolean.
+     */
+    private static Object flag(String value) {
+      Assert.isTrue("true".equals(value) || "false".equals(value), "Inventory Filter flag must be true or false.");
+      return Boolean.valueOf(value);
+    }
+  }
+
+  /**
+   * A compiled filter shape: its conditions checked against the allow-list, and its sort.
+   */
+  static final class Template {
+    private final String shape;
+    private final List<String> fields = new ArrayList<>();
+    private final List<FieldType> types = new ArrayList<>();
+    private final List<InventoryFilter.Operator> operators = new ArrayList<>();
+    private final Sort sort;
+    private final boolean collated;
+
+    /**
+     * Validate and compile a shape.
+     * @param shape name of the shape.
+     * @param conditions conditions in canonical order.
+     * @param sortField field to sort on, null for none.
+     * @param direction sort direction.
+     */
+    private Template(String shape, List<InventoryFilter.Condition> conditions, String sortField, String direction) {
+      Map<String, Set<String>> written = new HashMap<>();
+      for (InventoryFilter.Condition condition : conditions) {
+        FieldType type = FIELDS.get(condition.getField());
+        Assert.notNull(type, "Inventory can only be filtered by " + FIELDS.keySet() + ".");
+        Assert.notNull(condition.getOperator(), "Inventory Filter operator was not provided");
+        Assert.isTrue(type.operators.contains(condition.getOperator()),
+            condition.getField() + " can only be filtered with " + type.operators + ".");
+        // The conditions on a field share its criteria document, so no two may write the same operator.
+        Set<String> fieldOperators = written.computeIfAbsent(condition.getField(), key -> new HashSet<>());
+        for (String operator : mongoOperators(condition.getOperator())) {
+          Assert.isTrue(fieldOperators.add(operator),
+              condition.getField() + " has more than one condition on " + operator + ".");
+        }
+        this.fields.add(condition.getField());
+        this.types.add(type);
+        this.operators.add(condition.getOperator());
+      }
+
+      if (sortField == null) {
+        this.sort = null;
+        this.collated = false;
+      } else {
+        Assert.isTrue(InventoryIndexes.SORTABLE.contains(sortField),
+            "Inventory can only be sorted by " + InventoryIndexes.SORTABLE + ".");
+        this.sort = Sort.by(InventoryDAO.ASC.equals(direction) ? Sort.Direction.ASC : Sort.Direction.DESC, sortField);
+        // Text sorts read the collated indexes findSorted uses, the other fields the plain indexes.
+        this.collated = InventoryIndexes.COLLATED_SORTABLE.contains(sortField);
+      }
+      this.shape = shape;
+    }
+
+    /**
+     * Name of the shape, or "uncached" once the cache is full.
+     * @return Shape.
+     */
+    String getShape() {
+      return this.shape;
+    }
+
+    /**
+     * Bind a filter of this shape into a Query.
+     * @param filter InventoryFilter of this template's shape.
+     * @return Query.
+     */
+    Query bind(InventoryFilter filter) {
+      List<InventoryFilter.Condition> conditions = canonical(filter);
+      Document criteria = new Document();
+      for (int i = 0; i < this.fields.size(); i++) {
+        List<String> values = conditions.get(i).getValues();
+        Assert.notNull(values, "Inventory Filter values were not provided");
+        FieldType type = this.types.get(i);
+        Document field = (Document) criteria.computeIfAbsent(this.fields.get(i), key -> new Document());
+
+        switch (this.operators.get(i)) {
+          case IN:
+            Assert.notEmpty(values, "IN needs at least one value.");
+            field.put("$in", values.stream().map(type::parse).collect(Collectors.toList()));
+            break;
+          case BETWEEN:
+            Assert.isTrue(values.size() == 2, "BETWEEN needs two values.");
+            field.put("$gte", type.parse(values.get(0)));
+            field.put("$lte", type.parse(values.get(1)));
+            break;
+          default:
+            Assert.isTrue(values.size() == 1, this.operators.get(i) + " needs one value.");
+            // Writes and storeNeverExpires store a missing flag as false, so $eq false can use the
+            // partial expiry index.
+            field.put(OPERATORS.get(this.operators.get(i)), type.parse(values.get(0)));
+            break;
+        }
+      }
+
+      Query query = new BasicQuery(criteria);
+      if (this.sort != null) {
+        query.with(this.sort);
+        if (this.collated) {
+          query.collation(InventoryIndexes.SORT_COLLATION);
+        }
+      }
+      if (filter.getLimit() != null) {
+        Assert.isTrue(filter.getLimit() > 0, "Limit must be positive.");
+        query.limit(filter.getLimit());
+      }
+      return query;
+    }
+  }
+}
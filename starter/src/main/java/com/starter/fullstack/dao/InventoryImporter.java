@@ -0,0 +1,298 @@
+package com.starter.fullstack.dao;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BulkWriteError;
+import com.starter.fullstack.api.ImportFormat;
+import com.starter.fullstack.api.ImportJob;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryImported;
+import com.starter.fullstack.config.InventoryImportProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Imports Inventory in the background from a spooled request body. Rows are parsed one at a
+ * time, validated in parallel a batch at a time and written with unordered bulk inserts, so
+ * memory is bounded by the batch size rather than by the size of the import.
+ */
+public class InventoryImporter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InventoryImporter.class);
+  private final MongoTemplate mongoTemplate;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final InventoryImportProperties properties;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ExecutorService executor;
+  private final Map<String, ImportJob> jobs;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   * @param validator validates each row against the Inventory constraints.
+   * @param objectMapper parses rows.
+   * @param properties batch size and job limits.
+   * @param eventPublisher receives an InventoryImported for each batch that inserted Inventory.
+   */
+  public InventoryImporter(MongoTemplate mongoTemplate, Validator validator, ObjectMapper objectMapper,
+                           InventoryImportProperties properties, ApplicationEventPublisher eventPublisher) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    Assert.notNull(validator, "Validator must not be null.");
+    Assert.notNull(objectMapper, "Object Mapper must not be null.");
+    Assert.notNull(eventPublisher, "Event Publisher must not be null.");
+    Assert.isTrue(properties.getBatchSize() > 0, "Import batch size must be positive.");
+    this.mongoTemplate = mongoTemplate;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.properties = properties;
+    this.eventPublisher = eventPublisher;
+    this.executor = Executors.newFixedThreadPool(properties.getConcurrentJobs());
+    this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+        // Only finished jobs are evicted, so queued and running jobs stay visible to their pollers.
+        Iterator<ImportJob> retained = values().iterator();
+        while (size() > properties.getRetainedJobs() && retained.hasNext()) {
+          if (retained.next().getFinished() != null) {
+            retained.remove();
+          }
+        }
+        return false;
+      }
+    });
+  }
+
+  /**
+   * Spool an import body to disk and queue it.
+   * @param body import body.
+   * @param format format of the body.
+   * @return Queued Job.
+   * @throws IOException if the body can not be spooled.
+   */
+  public ImportJob submit(InputStream body, ImportFormat format) throws IOException {
+    Path spool = Files.createTempFile("inventory-import-", "." + format.name().toLowerCase(Locale.ROOT));
+    try {
+      Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(spool);
+      throw e;
+    }
+
+    ImportJob job = new ImportJob();
+    job.setId(UUID.randomUUID().toString());
+    job.setFormat(format);
+    job.setSubmitted(Instant.now());
+    this.jobs.put(job.getId(), job);
+    this.executor.execute(() -> run(job, spool));
+    return job;
+  }
+
+  /**
+   * Find an Import Job.
+   * @param id Job id.
+   * @return Found Job.
+   */
+  public Optional<ImportJob> find(String id) {
+    return Optional.ofNullable(this.jobs.get(id));
+  }
+
+  /**
+   * Stop accepting jobs, letting queued jobs finish.
+   */
+  public void shutdown() {
+    this.executor.shutdown();
+  }
+
+  /**
+   * Run an import.
+   * @param job Job to report progress on.
+   * @param spool spooled body.
+   */
+  private void run(ImportJob job, Path spool) {
+    job.setStatus(ImportJob.Status.RUNNING);
+    try (InputStream in = Files.newInputStream(spool)) {
+      RowSource rows = open(job.getFormat(), in);
+      List<Inventory> batch = new ArrayList<>(this.properties.getBatchSize());
+      List<Long> batchRows = new ArrayList<>(this.properties.getBatchSize());
+      long row = 0;
+
+      while (true) {
+        Inventory inventory;
+        try {
+          inventory = rows.next();
+        } catch (JsonParseException e) {
+          // After a syntax error the parser can not tell where the next row starts, so the rows read
+          // so far are written and the job stops at this one.
+          job.setProcessed(++row);
+          reject(job, row, e.getOriginalMessage());
+          write(job, batch, batchRows);
+          throw e;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+          job.setProcessed(++row);
+          reject(job, row, e.getMessage());
+          continue;
+        }
+        if (inventory == null) {
+          break;
+        }
+
+        job.setProcessed(++row);
+        batch.add(inventory);
+        batchRows.add(row);
+        if (batch.size() == this.properties.getBatchSize()) {
+          write(job, batch, batchRows);
+          batch.clear();
+          batchRows.clear();
+        }
+      }
+      write(job, batch, batchRows);
+      job.setStatus(ImportJob.Status.COMPLETED);
+    } catch (IOException | DataAccessException e) {
+      LOGGER.warn("Inventory import {} failed", job.getId(), e);
+      job.setFailure(e.getMessage());
+      job.setStatus(ImportJob.Status.FAILED);
+    } finally {
+      job.setFinished(Instant.now());
+      try {
+        Files.deleteIfExists(spool);
+      } catch (IOException e) {
+        LOGGER.warn("Could not remove import spool {}", spool, e);
+      }
+    }
+  }
+
+  /**
+   * Open a row source over an import body.
+   * @param format format of the body.
+   * @param in body.
+   * @return Row source.
+   * @throws IOException if the body can not be read.
+   */
+  private RowSource open(ImportFormat format, InputStream in) throws IOException {
+    if (format == ImportFormat.CSV) {
+      return new InventoryCsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), this.objectMapper)::next;
+    }
+
+    // A JSON array and a newline delimited stream both read as a sequence of root values. Each
+    // value is parsed as a tree first so a row that does not bind leaves the parser on track; a
+    // row that is not JSON at all throws a JsonParseException, which stops the import.
+    MappingIterator<JsonNode> values = this.objectMapper.readerFor(JsonNode.class).readValues(in);
+    return () -> values.hasNextValue() ? this.objectMapper.treeToValue(values.nextValue(), Inventory.class) : null;
+  }
+
+  /**
+   * Validate a batch in parallel and bulk insert the valid rows.
+   * @param job Job to report progress on.
+   * @param batch parsed rows.
+   * @param batchRows row number of each parsed row.
+   */
+  private void write(ImportJob job, List<Inventory> batch, List<Long> batchRows) {
+    List<Set<ConstraintViolation<Inventory>>> violations = batch.parallelStream()
+        .map(inventory -> this.validator.validate(inventory))
+        .collect(Collectors.toList());
+
+    List<Inventory> valid = new ArrayList<>(batch.size());
+    List<Long> validRows = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      if (violations.get(i).isEmpty()) {
+        Inventory inventory = batch.get(i);
+        inventory.setId(null);
+        InventoryDAO.derive(inventory);
+        valid.add(inventory);
+        validRows.add(batchRows.get(i));
+      } else {
+        reject(job, batchRows.get(i), violations.get(i).stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .collect(Collectors.joining("; ")));
+      }
+    }
+    if (valid.isEmpty()) {
+      return;
+    }
+
+    BulkOperations bulk = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+    List<Inventory> inserted = new ArrayList<>(valid);
+    try {
+      bulk.insert(valid).execute();
+    } catch (BulkOperationException e) {
+      Set<Integer> failed = new HashSet<>();
+      for (BulkWriteError error : e.getErrors()) {
+        reject(job, validRows.get(error.getIndex()), error.getMessage());
+        failed.add(error.getIndex());
+      }
+      inserted.clear();
+      for (int i = 0; i < valid.size(); i++) {
+        if (!failed.contains(i)) {
+          inserted.add(valid.get(i));
+        }
+      }
+    }
+    job.setInserted(job.getInserted() + inserted.size());
+    // One event per batch rather than one per row.
+    if (!inserted.isEmpty()) {
+      this.eventPublisher.publishEvent(new InventoryImported(inserted));
+    }
+  }
+
+  /**
+   * Record a row that could not be imported.
+   * @param job Job to report on.
+   * @param row row number.
+   * @param message reason.
+   */
+  private void reject(ImportJob job, long row, String message) {
+    job.setFailed(job.getFailed() + 1);
+    if (job.getErrors().size() < this.properties.getMaxErrors()) {
+      job.getErrors().add(new ImportJob.RowError(row, message));
+    }
+  }
+
+  /**
+   * Source of parsed rows.
+   */
+  @FunctionalInterface
+  private interface RowSource {
+
+    /**
+     * Read the next row.
+     * @return Inventory, or null when there are no more rows.
+     * @throws IOException if the row can not be read or parsed.
+     */
+    Inventory next() throws IOException;
+  }
+}
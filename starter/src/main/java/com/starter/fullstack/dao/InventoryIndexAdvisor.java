@@ -0,0 +1,202 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryFilter;
+import com.starter.fullstack.api.QueryShapeReport;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+
+/**
+ * Explains every query shape the inventory read paths produce and flags the shapes the
+ * database would answer with a collection scan or an in-memory sort.
+ */
+public class InventoryIndexAdvisor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InventoryIndexAdvisor.class);
+  private static final String COLLSCAN = "COLLSCAN";
+  private static final String SORT = "SORT";
+  private static final int SORT_LIMIT = 50;
+  private final MongoTemplate mongoTemplate;
+  private final QueryMapper queryMapper;
+  private final InventoryFilterTemplates filterTemplates = new InventoryFilterTemplates();
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   */
+  public InventoryIndexAdvisor(MongoTemplate mongoTemplate) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    this.mongoTemplate = mongoTemplate;
+    this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+  }
+
+  /**
+   * Explain each filtered, each quantity range, each store, each sorted and each paged query shape,
+   * a search per indexed field and both typeahead lookups.
+   * @return Report per shape.
+   */
+  public List<QueryShapeReport> explain() {
+    List<QueryShapeReport> reports = new ArrayList<>();
+    for (int filters = 1; filters < 8; filters++) {
+      boolean measurementUnit = (filters & 1) != 0;
+      boolean amount = (filters & 2) != 0;
+      boolean bestBeforeDate = (filters & 4) != 0;
+      Query query = InventoryDAO.filterQuery(measurementUnit ? UnitOfMeasurement.CUP : null,
+          amount ? BigDecimal.ONE : null, bestBeforeDate ? Instant.now() : null);
+      reports.add(explain(InventoryIndexes.filterShape(measurementUnit, amount, bestBeforeDate), query));
+    }
+    for (int bounds = 1; bounds < 4; bounds++) {
+      boolean min = (bounds & 1) != 0;
+      boolean max = (bounds & 2) != 0;
+      Query query = InventoryDAO.quantityQuery(UnitOfMeasurement.GALLON, min ? BigDecimal.ONE : null,
+          max ? BigDecimal.TEN : null);
+      reports.add(explain(InventoryIndexes.quantityShape(min, max), query));
+    }
+    for (String productType : Arrays.asList(null, "Food")) {
+      reports.add(explain(InventoryIndexes.storeShape(productType != null),
+          InventoryDAO.storeQuery("Main Street", productType)));
+    }
+    for (String sortVariable : InventoryIndexes.SORTABLE) {
+      reports.add(explain(InventoryIndexes.sortShape(sortVariable),
+          InventoryDAO.sortedQuery(sortVariable, "asc", SORT_LIMIT)));
+    }
+    List<String> pageSorts = new ArrayList<>(InventoryDAO.KEYSET_SORTS.keySet());
+    pageSorts.add(0, null);
+    for (String sortVariable : pageSorts) {
+      reports.add(explain(InventoryDAO.pageShape(sortVariable),
+          InventoryDAO.pageQuery(SORT_LIMIT, null, sortVariable, "asc", null)));
+    }
+    for (InventoryFilter filter : searchFilters()) {
+      InventoryFilterTemplates.Template template = this.filterTemplates.template(filter);
+      reports.add(explain("search:" + template.getShape(), template.bind(filter)));
+    }
+    reports.add(explain("typeahead:name", InventoryDAO.prefixQuery("Amb", SORT_LIMIT)));
+    reports.add(explain("typeahead:" + InventorySearchTerms.FIELD,
+        InventoryDAO.wordsQuery(List.of(InventorySearchTerms.term("amber")), List.of(), SORT_LIMIT)));
+    return reports;
+  }
+
+  /**
+   * One search filter per indexed field. Search shapes are any combination of allow-listed fields
+   * and operators, so only these single condition shapes are explained; combinations are recorded
+   * per template shape by DaoMetrics, and averagePrice and neverExpires have no index to report on.
+   * @return Filters.
+   */
+  private static List<InventoryFilter> searchFilters() {
+    List<InventoryFilter> filters = new ArrayList<>();
+    filters.add(searchFilter(InventoryIndexes.NAME, InventoryFilter.Operator.EQ, "Amber"));
+    filters.add(searchFilter(InventoryIndexes.PRODUCT_TYPE, InventoryFilter.Operator.EQ, "Food"));
+    filters.add(searchFilter(InventoryIndexes.UNIT_OF_MEASUREMENT, InventoryFilter.Operator.EQ,
+        UnitOfMeasurement.CUP.name()));
+    filters.add(searchFilter(InventoryIndexes.AMOUNT, InventoryFilter.Operator.GTE, "1"));
+    filters.add(searchFilter(InventoryIndexes.BEST_BEFORE_DATE, InventoryFilter.Operator.LT,
+        Instant.now().toString()));
+    return filters;
+  }
+
+  /**
+   * A search filter of one condition.
+   * @param field field.
+   * @param operator operator.
+   * @param value value as text.
+   * @return Filter.
+   */
+  private static InventoryFilter searchFilter(String field, InventoryFilter.Operator operator, String value) {
+    InventoryFilter.Condition condition = new InventoryFilter.Condition();
+    condition.setField(field);
+    condition.setOperator(operator);
+    condition.getValues().add(value);
+    InventoryFilter filter = new InventoryFilter();
+    filter.getConditions().add(condition);
+    return filter;
+  }
+
+  /**
+   * Log the shapes still answered by a collection scan once the application is up.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reportOnStartup() {
+    List<QueryShapeReport> reports;
+    try {
+      reports = explain();
+    } catch (DataAccessException e) {
+      LOGGER.warn("Could not explain inventory query shapes", e);
+      return;
+    }
+
+    for (QueryShapeReport report : reports) {
+      if (report.isCollectionScan() || report.isBlockingSort()) {
+        LOGGER.warn("Inventory query shape {} is answered by {}: {}",
+            report.getShape(), report.getStages(), report.getFilter());
+      } else {
+        LOGGER.info("Inventory query shape {} uses index {}", report.getShape(), report.getIndexName());
+      }
+    }
+  }
+
+  /**
+   * Explain one query.
+   * @param shape name of the query shape.
+   * @param query query.
+   * @return Report.
+   */
+  private QueryShapeReport explain(String shape, Query query) {
+    Document filter = this.queryMapper.getMappedObject(query.getQueryObject(),
+        this.mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Inventory.class));
+    Document find = new Document("find", this.mongoTemplate.getCollectionName(Inventory.class))
+        .append("filter", filter);
+    if (!query.getSortObject().isEmpty()) {
+      find.append("sort", query.getSortObject());
+    }
+    query.getCollation().ifPresent(collation -> find.append("collation", collation.toDocument()));
+    if (query.getLimit() > 0) {
+      find.append("limit", query.getLimit());
+    }
+    Document command = new Document("explain", find).append("verbosity", "queryPlanner");
+    Document plan = this.mongoTemplate.executeCommand(command).get("queryPlanner", Document.class)
+        .get("winningPlan", Document.class);
+
+    QueryShapeReport report = new QueryShapeReport();
+    report.setShape(shape);
+    report.setFilter(filter.toJson());
+    report.setStages(new ArrayList<>());
+    walk(plan, report);
+    report.setCollectionScan(report.getStages().contains(COLLSCAN));
+    report.setBlockingSort(report.getStages().contains(SORT));
+    return report;
+  }
+
+  /**
+   * Collect the stages of a plan, outermost first.
+   * @param stage plan stage.
+   * @param report report to fill.
+   */
+  @SuppressWarnings("unchecked")
+  private void walk(Document stage, QueryShapeReport report) {
+    report.getStages().add(stage.getString("stage"));
+    if (stage.containsKey("indexName")) {
+      report.setIndexName(stage.getString("indexName"));
+    }
+    if (stage.containsKey("inputStage")) {
+      walk(stage.get("inputStage", Document.class), report);
+    }
+    if (stage.containsKey("inputStages")) {
+      for (Document input : (List<Document>) stage.get("inputStages")) {
+        walk(input, report);
+      }
+    }
+  }
+}
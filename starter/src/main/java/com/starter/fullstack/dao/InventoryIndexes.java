@@ -0,0 +1,155 @@
+package com.starter.fullstack.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Collation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Index catalog of the inventory collection. The filter indexes follow the equality, sort,
+ * range rule so that every query shape filterRetrieve can produce is answered by an index scan:
+ * equality on unitOfMeasurement and amount first, the bestBeforeDate range last.
+ */
+final class InventoryIndexes {
+  static final String NAME = "name";
+  static final String DESCRIPTION = "description";
+  static final String PRODUCT_TYPE = "productType";
+  static final String UNIT_OF_MEASUREMENT = "unitOfMeasurement";
+  static final String AMOUNT = "amount";
+  static final String AVERAGE_PRICE = "averagePrice";
+  static final String NORMALIZED_AMOUNT = "normalizedAmount";
+  static final String BEST_BEFORE_DATE = "bestBeforeDate";
+  static final String NEVER_EXPIRES = "neverExpires";
+  static final String AVAILABLE_STORES = "availableStores";
+  static final String EXPIRY_INDEX = "expiry";
+  static final List<String> SORTABLE = List.of(NAME, PRODUCT_TYPE, DESCRIPTION, AMOUNT, AVERAGE_PRICE,
+      UNIT_OF_MEASUREMENT, BEST_BEFORE_DATE);
+  // findSorted orders text the way people read it, "Item 2" before "Item 10". Other fields sort the same
+  // under the simple collation, and use the plain indexes.
+  static final Collation SORT_COLLATION = Collation.of("en").numericOrderingEnabled();
+  static final Set<String> COLLATED_SORTABLE = Set.of(NAME, PRODUCT_TYPE, DESCRIPTION);
+  // Indexes the catalog no longer has, dropped at startup.
+  static final List<String> OBSOLETE = List.of(NAME + "_1", PRODUCT_TYPE + "_1", AMOUNT + "_sort",
+      AVERAGE_PRICE + "_sort", UNIT_OF_MEASUREMENT + "_sort", BEST_BEFORE_DATE + "_sort");
+
+  /**
+   * Utility Class.
+   */
+  private InventoryIndexes() {
+  }
+
+  /**
+   * Every index the inventory collection should have.
+   * @return Index definitions.
+   */
+  static List<IndexDefinition> catalog() {
+    List<IndexDefinition> indexes = new ArrayList<>();
+
+    // Keyset pagination by name or productType, tie broken by id. Also serve equality and range
+    // queries on name or productType alone.
+    indexes.add(new Index(NAME, Sort.Direction.ASC).on(PageCursor.ID, Sort.Direction.ASC));
+    indexes.add(new Index(PRODUCT_TYPE, Sort.Direction.ASC).on(PageCursor.ID, Sort.Direction.ASC));
+
+    // filterRetrieve: unitOfMeasurement [+ amount] [+ bestBeforeDate], amount [+ bestBeforeDate], bestBeforeDate.
+    indexes.add(new Index(UNIT_OF_MEASUREMENT, Sort.Direction.ASC)
+        .on(AMOUNT, Sort.Direction.ASC)
+        .on(BEST_BEFORE_DATE, Sort.Direction.ASC));
+    indexes.add(new Index(AMOUNT, Sort.Direction.ASC).on(BEST_BEFORE_DATE, Sort.Direction.ASC));
+    indexes.add(new Index(BEST_BEFORE_DATE, Sort.Direction.ASC));
+
+    // findByQuantity: the units of one dimension, a range of normalizedAmount, sorted on it.
+    indexes.add(new Index(UNIT_OF_MEASUREMENT, Sort.Direction.ASC).on(NORMALIZED_AMOUNT, Sort.Direction.ASC));
+
+    // InventoryRollups: the earliest bestBeforeDate left in a group once the earliest one is removed.
+    indexes.add(new Index(PRODUCT_TYPE, Sort.Direction.ASC)
+        .on(UNIT_OF_MEASUREMENT, Sort.Direction.ASC)
+        .on(BEST_BEFORE_DATE, Sort.Direction.ASC));
+
+    // InventoryExpiryScanner: bestBeforeDate order over the Inventory that expires only. A partial
+    // filter can not use $ne, so writes store neverExpires as false rather than leaving it out.
+    indexes.add(new Index(BEST_BEFORE_DATE, Sort.Direction.ASC).on(PageCursor.ID, Sort.Direction.ASC)
+        .named(EXPIRY_INDEX).partial(PartialIndexFilter.of(where(NEVER_EXPIRES).is(false))));
+
+    // findByStore: multikey, one key per store an Inventory is available at, paged in id order with
+    // or without an equality on productType.
+    indexes.add(new Index(AVAILABLE_STORES, Sort.Direction.ASC).on(PageCursor.ID, Sort.Direction.ASC));
+    indexes.add(new Index(AVAILABLE_STORES, Sort.Direction.ASC)
+        .on(PRODUCT_TYPE, Sort.Direction.ASC)
+        .on(PageCursor.ID, Sort.Direction.ASC));
+
+    // typeahead: one key per word prefix. textSearch: the one text index a collection may have,
+    // a name match counting most.
+    indexes.add(new Index(InventorySearchTerms.FIELD, Sort.Direction.ASC));
+    indexes.add(new TextIndexDefinition.TextIndexDefinitionBuilder()
+        .named("inventory_text")
+        .onField(NAME, 10F)
+        .onField(PRODUCT_TYPE, 5F)
+        .onField(DESCRIPTION)
+        .build());
+
+    // findSorted: text fields indexed with the collation their sort runs under. Named explicitly as
+    // the same keys may already be indexed with the simple collation. amount, unitOfMeasurement and
+    // bestBeforeDate sort on the filter indexes above, averagePrice on its own.
+    for (String field : COLLATED_SORTABLE) {
+      indexes.add(new Index(field, Sort.Direction.ASC).named(field + "_sort").collation(SORT_COLLATION));
+    }
+    indexes.add(new Index(AVERAGE_PRICE, Sort.Direction.ASC));
+    return indexes;
+  }
+
+  /**
+   * Name the shape of a findSorted query by its sort field, keeping fields outside the allow-list
+   * from becoming shapes of their own.
+   * @param sortVariable field sorted on.
+   * @return Shape.
+   */
+  static String sortShape(String sortVariable) {
+    return "sort:" + (SORTABLE.contains(sortVariable) ? sortVariable : "invalid");
+  }
+
+  /**
+   * Name the shape of a findByQuantity query by the bounds it uses.
+   * @param min whether a lower bound is given.
+   * @param max whether an upper bound is given.
+   * @return Shape.
+   */
+  static String quantityShape(boolean min, boolean max) {
+    return NORMALIZED_AMOUNT + (min ? ">=" : "") + (max ? "<=" : "");
+  }
+
+  /**
+   * Name the shape of a findByStore query by whether it also filters on productType.
+   * @param productType whether productType is filtered on.
+   * @return Shape.
+   */
+  static String storeShape(boolean productType) {
+    return AVAILABLE_STORES + "=" + (productType ? "," + PRODUCT_TYPE + "=" : "");
+  }
+
+  /**
+   * Name the shape of a filterRetrieve query by the filters it uses.
+   * @param measurementUnit whether unitOfMeasurement is filtered on.
+   * @param amount whether amount is filtered on.
+   * @param bestBeforeDate whether bestBeforeDate is filtered on.
+   * @return Shape, "none" when nothing is filtered on.
+   */
+  static String filterShape(boolean measurementUnit, boolean amount, boolean bestBeforeDate) {
+    List<String> fields = new ArrayList<>();
+    if (measurementUnit) {
+      fields.add(UNIT_OF_MEASUREMENT + "=");
+    }
+    if (amount) {
+      fields.add(AMOUNT + "=");
+    }
+    if (bestBeforeDate) {
+      fields.add(BEST_BEFORE_DATE + "<");
+    }
+    return fields.isEmpty() ? "none" : String.join(",", fields);
+  }
+}
@@ -0,0 +1,341 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryImported;
+import com.starter.fullstack.api.InventoryRollup;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.Assert;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Keeps one InventoryRollup per productType and unitOfMeasurement, so totals are read from as many
+ * documents as there are groups rather than from every Inventory. Rollups follow InventoryChanges
+ * and imports incrementally, with $inc on the count and value and $min on the earliest date. The
+ * updates are applied in order on a single thread off the write path, so they trail the writes by
+ * a moment. Rebuild recomputes every rollup with one aggregation, to repair them.
+ */
+public class InventoryRollups {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InventoryRollups.class);
+  private static final String PRODUCT_TYPE = InventoryIndexes.PRODUCT_TYPE;
+  private static final String UNIT_OF_MEASUREMENT = InventoryIndexes.UNIT_OF_MEASUREMENT;
+  private static final String AVERAGE_PRICE = "averagePrice";
+  private static final String AMOUNT = InventoryIndexes.AMOUNT;
+  private static final String BEST_BEFORE_DATE = InventoryIndexes.BEST_BEFORE_DATE;
+  private static final String NEVER_EXPIRES = "neverExpires";
+  private static final String COUNT = "count";
+  private static final String TOTAL_VALUE = "totalValue";
+  private static final String EARLIEST = "earliestBestBeforeDate";
+  private static final List<String> NUMERIC_TYPES = List.of("double", "int", "long", "decimal");
+  // Fields of an Inventory the rollups are kept from.
+  static final List<String> FIELDS = List.of(PageCursor.ID, "version", PRODUCT_TYPE, UNIT_OF_MEASUREMENT,
+      AVERAGE_PRICE, AMOUNT, BEST_BEFORE_DATE, NEVER_EXPIRES);
+  private final MongoTemplate mongoTemplate;
+  private final Executor executor;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   */
+  public InventoryRollups(MongoTemplate mongoTemplate) {
+    this(mongoTemplate, Executors.newSingleThreadExecutor());
+  }
+
+  /**
+   * Constructor applying the updates on the given executor, which must run them one at a time in order.
+   * @param mongoTemplate MongoTemplate.
+   * @param executor Executor.
+   */
+  public InventoryRollups(MongoTemplate mongoTemplate, Executor executor) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    Assert.notNull(executor, "Executor must not be null.");
+    this.mongoTemplate = mongoTemplate;
+    this.executor = executor;
+  }
+
+  /**
+   * Index the rollups by group, and build them if there is Inventory but no rollups yet.
+   */
+  @PostConstruct
+  public void setup() {
+    this.mongoTemplate.indexOps(InventoryRollup.class).ensureIndex(new Index(PRODUCT_TYPE, Sort.Direction.ASC)
+        .on(UNIT_OF_MEASUREMENT, Sort.Direction.ASC).unique());
+    if (!this.mongoTemplate.exists(new Query(), InventoryRollup.class)
+        && this.mongoTemplate.exists(new Query(), Inventory.class)) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Find every rollup, ordered by productType and unitOfMeasurement.
+   * @return Rollups.
+   */
+  public List<InventoryRollup> findAll() {
+    return this.mongoTemplate.find(new Query().with(Sort.by(PRODUCT_TYPE, UNIT_OF_MEASUREMENT)),
+        InventoryRollup.class);
+  }
+
+  /**
+   * Recompute every rollup from the inventory collection. Runs on the update thread so no
+   * incremental update interleaves with it, waiting for the updates queued before it.
+   * @return Rollups.
+   */
+  public List<InventoryRollup> rebuild() {
+    CompletableFuture.runAsync(this::recompute, this.executor).join();
+    return findAll();
+  }
+
+  /**
+   * Stop applying updates once those queued have been applied.
+   */
+  public void shutdown() {
+    if (this.executor instanceof ExecutorService) {
+      ((ExecutorService) this.executor).shutdown();
+    }
+  }
+
+  /**
+   * Queue the rollup updates of an InventoryChange.
+   * @param change InventoryChange.
+   */
+  @EventListener
+  public void changed(InventoryChange change) {
+    this.executor.execute(() -> apply(change));
+  }
+
+  /**
+   * Queue the rollup updates of an imported batch, one per group.
+   * @param imported InventoryImported.
+   */
+  @EventListener
+  public void imported(InventoryImported imported) {
+    this.executor.execute(() -> {
+      Map<List<Object>, Totals> groups = new LinkedHashMap<>();
+      for (Inventory inventory : imported.getInventory()) {
+        Totals totals = groups.computeIfAbsent(
+            Arrays.asList(inventory.getProductType(), inventory.getUnitOfMeasurement()), key -> new Totals());
+        totals.count++;
+        totals.value = totals.value.add(value(inventory));
+        Instant expiry = expiry(inventory);
+        if (expiry != null && (totals.earliest == null || expiry.isBefore(totals.earliest))) {
+          totals.earliest = expiry;
+        }
+      }
+      groups.forEach((group, totals) -> adjust((String) group.get(0), (UnitOfMeasurement) group.get(1),
+          totals.count, totals.value, totals.earliest, null));
+    });
+  }
+
+  /**
+   * Apply an InventoryChange.
+   * @param change InventoryChange.
+   */
+  private void apply(InventoryChange change) {
+    Inventory current = change.getInventory();
+    Inventory previous = change.getPrevious();
+    switch (change.getType()) {
+      case CREATED:
+        adjust(current.getProductType(), current.getUnitOfMeasurement(), 1, value(current), expiry(current), null);
+        break;
+      case DELETED:
+        adjust(previous.getProductType(), previous.getUnitOfMeasurement(), -1, value(previous).negate(), null,
+            expiry(previous));
+        break;
+      case UPDATED:
+        if (Objects.equals(current.getProductType(), previous.getProductType())
+            && current.getUnitOfMeasurement() == previous.getUnitOfMeasurement()) {
+          BigDecimal delta = value(current).subtract(value(previous));
+          boolean sameExpiry = Objects.equals(expiry(current), expiry(previous));
+          if (delta.signum() != 0 || !sameExpiry) {
+            adjust(current.getProductType(), current.getUnitOfMeasurement(), 0, delta, expiry(current),
+                sameExpiry ? null : expiry(previous));
+          }
+        } else {
+          adjust(previous.getProductType(), previous.getUnitOfMeasurement(), -1, value(previous).negate(), null,
+              expiry(previous));
+          adjust(current.getProductType(), current.getUnitOfMeasurement(), 1, value(current), expiry(current), null);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Move one group's rollup by the given amounts.
+   * @param productType group productType.
+   * @param unitOfMeasurement group unitOfMeasurement.
+   * @param count change in count.
+   * @param value change in total value.
+   * @param added bestBeforeDate that joined the group, null for none.
+   * @param removed bestBeforeDate that left the group, null for none.
+   */
+  private void adjust(String productType, UnitOfMeasurement unitOfMeasurement, long count, BigDecimal value,
+                      Instant added, Instant removed) {
+    Query group = group(productType, unitOfMeasurement);
+    Update update = new Update().inc(COUNT, count).inc(TOTAL_VALUE, new Decimal128(value));
+    if (added != null) {
+      update.min(EARLIEST, added);
+    }
+
+    try {
+      InventoryRollup rollup;
+      try {
+        rollup = this.mongoTemplate.findAndModify(group, update,
+            FindAndModifyOptions.options().returnNew(true).upsert(true), InventoryRollup.class);
+      } catch (DuplicateKeyException e) {
+        // Another instance created the group first, it exists now.
+        rollup = this.mongoTemplate.findAndModify(group, update,
+            FindAndModifyOptions.options().returnNew(true).upsert(true), InventoryRollup.class);
+      }
+
+      if (rollup.getCount() <= 0) {
+        this.mongoTemplate.remove(query(where(PageCursor.ID).is(rollup.getId())).addCriteria(where(COUNT).lte(0)),
+            InventoryRollup.class);
+      } else if (removed != null && (rollup.getEarliestBestBeforeDate() == null
+          || !removed.isAfter(rollup.getEarliestBestBeforeDate()))) {
+        // The earliest date may have left with the removed Inventory, $min can not undo that.
+        Query next = query(where(PRODUCT_TYPE).is(productType).and(UNIT_OF_MEASUREMENT).is(unitOfMeasurement)
+            .and(BEST_BEFORE_DATE).ne(null).and(NEVER_EXPIRES).ne(true))
+            .with(Sort.by(BEST_BEFORE_DATE)).limit(1);
+        next.fields().include(BEST_BEFORE_DATE);
+        Inventory earliest = this.mongoTemplate.findOne(next, Inventory.class);
+        this.mongoTemplate.updateFirst(group, earliest == null ? new Update().unset(EARLIEST)
+            : new Update().set(EARLIEST, earliest.getBestBeforeDate()), InventoryRollup.class);
+      }
+    } catch (DataAccessException e) {
+      LOGGER.warn("Could not update the {} {} rollup, rebuild the rollups to repair it", productType,
+          unitOfMeasurement, e);
+    }
+  }
+
+  /**
+   * Recompute every rollup: group the inventory collection, upsert each group's totals and remove
+   * the rollups of groups that no longer have Inventory.
+   */
+  private void recompute() {
+    Document expiry = new Document("$cond", Arrays.asList(
+        new Document("$eq", Arrays.asList("$" + NEVER_EXPIRES, true)), null, "$" + BEST_BEFORE_DATE));
+    Document group = new Document("$group", new Document(PageCursor.ID,
+        new Document(PRODUCT_TYPE, "$" + PRODUCT_TYPE).append(UNIT_OF_MEASUREMENT, "$" + UNIT_OF_MEASUREMENT))
+        .append(COUNT, new Document("$sum", 1))
+        .append(TOTAL_VALUE, new Document("$sum",
+            new Document("$multiply", Arrays.asList(numeric(AVERAGE_PRICE), numeric(AMOUNT)))))
+        .append(EARLIEST, new Document("$min", expiry)));
+    List<Document> groups = this.mongoTemplate.aggregate(Aggregation.newAggregation(context -> group),
+        this.mongoTemplate.getCollectionName(Inventory.class), Document.class).getMappedResults();
+
+    List<String> ids = new ArrayList<>();
+    for (Document result : groups) {
+      Document key = result.get(PageCursor.ID, Document.class);
+      String productType = key.getString(PRODUCT_TYPE);
+      String unit = key.getString(UNIT_OF_MEASUREMENT);
+      Update totals = new Update().set(COUNT, ((Number) result.get(COUNT)).longValue())
+          .set(TOTAL_VALUE, new Decimal128(decimal(result.get(TOTAL_VALUE))));
+      Date earliest = result.getDate(EARLIEST);
+      if (earliest == null) {
+        totals.unset(EARLIEST);
+      } else {
+        totals.set(EARLIEST, earliest);
+      }
+
+      InventoryRollup rollup = this.mongoTemplate.findAndModify(
+          group(productType, unit == null ? null : UnitOfMeasurement.valueOf(unit)), totals,
+          FindAndModifyOptions.options().returnNew(true).upsert(true), InventoryRollup.class);
+      ids.add(rollup.getId());
+    }
+    this.mongoTemplate.remove(query(where(PageCursor.ID).nin(ids)), InventoryRollup.class);
+  }
+
+  /**
+   * Match the rollup of a group.
+   * @param productType group productType.
+   * @param unitOfMeasurement group unitOfMeasurement.
+   * @return Query.
+   */
+  private static Query group(String productType, UnitOfMeasurement unitOfMeasurement) {
+    return query(where(PRODUCT_TYPE).is(productType).and(UNIT_OF_MEASUREMENT).is(unitOfMeasurement));
+  }
+
+  /**
+   * Aggregation expression reading a field as a number, zero when it is missing or not numeric.
+   * Values written as strings before amounts were stored as Decimal128 count as zero.
+   * @param field field.
+   * @return Expression.
+   */
+  private static Document numeric(String field) {
+    return new Document("$cond", Arrays.asList(
+        new Document("$in", Arrays.asList(new Document("$type", "$" + field), NUMERIC_TYPES)), "$" + field, 0));
+  }
+
+  /**
+   * BigDecimal of an aggregated number.
+   * @param number Decimal128, Double, Integer or Long.
+   * @return BigDecimal.
+   */
+  private static BigDecimal decimal(Object number) {
+    if (number instanceof Decimal128) {
+      return ((Decimal128) number).bigDecimalValue();
+    }
+    return new BigDecimal(number.toString());
+  }
+
+  /**
+   * Stock value of an Inventory, zero when the price or amount is missing.
+   * @param inventory Inventory.
+   * @return averagePrice x amount.
+   */
+  private static BigDecimal value(Inventory inventory) {
+    if (inventory.getAveragePrice() == null || inventory.getAmount() == null) {
+      return BigDecimal.ZERO;
+    }
+    return inventory.getAveragePrice().multiply(inventory.getAmount());
+  }
+
+  /**
+   * Date an Inventory expires, null when it never does.
+   * @param inventory Inventory.
+   * @return bestBeforeDate.
+   */
+  private static Instant expiry(Inventory inventory) {
+    return Boolean.TRUE.equals(inventory.getNeverExpires()) ? null : inventory.getBestBeforeDate();
+  }
+
+  /**
+   * Totals of one group of an imported batch.
+   */
+  private static final class Totals {
+    private long count;
+    private BigDecimal value = BigDecimal.ZERO;
+    private Instant earliest;
+  }
+}
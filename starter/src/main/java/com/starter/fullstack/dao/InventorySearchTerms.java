@@ -0,0 +1,152 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Edge n-grams of the words in an Inventory's name, productType and description, stored in the
+ * multikey indexed searchTerms field. A typeahead token is then an equality match on one index
+ * key, "amb" finding "Amber Ale", instead of an unanchored regex over every document.
+ */
+final class InventorySearchTerms {
+  static final String FIELD = "searchTerms";
+  // Longer tokens are matched on their first MAX_GRAM characters, then checked in full.
+  static final int MAX_GRAM = 12;
+  // Words beyond this, usually the tail of a long description, are left to the text index.
+  private static final int MAX_WORDS = 24;
+  private static final String SEPARATORS = "[^\\p{L}\\p{N}]+";
+
+  /**
+   * Utility Class.
+   */
+  private InventorySearchTerms() {
+  }
+
+  /**
+   * Every prefix, up to MAX_GRAM characters, of the words an Inventory is searched by.
+   * @param inventory Inventory.
+   * @return Terms.
+   */
+  static List<String> of(Inventory inventory) {
+    Set<String> words = new LinkedHashSet<>();
+    words.addAll(words(inventory.getName()));
+    words.addAll(words(inventory.getProductType()));
+    words.addAll(words(inventory.getDescription()));
+
+    Set<String> terms = new LinkedHashSet<>();
+    int count = 0;
+    for (String word : words) {
+      if (count++ == MAX_WORDS) {
+        break;
+      }
+      for (int length = 1; length <= Math.min(word.length(), MAX_GRAM); length++) {
+        terms.add(word.substring(0, length));
+      }
+    }
+    return new ArrayList<>(terms);
+  }
+
+  /**
+   * The lower case words of a text.
+   * @param text text, may be null.
+   * @return Words.
+   */
+  static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split(SEPARATORS)) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  /**
+   * The index key a typeahead token is looked up by.
+   * @param token lower case token.
+   * @return Term.
+   */
+  static String term(String token) {
+    return token.length() > MAX_GRAM ? token.substring(0, MAX_GRAM) : token;
+  }
+
+  /**
+   * Regular expression matching text that starts with a prefix, with every character that is not a
+   * letter or digit escaped so the database reads it as a literal and bounds an index scan by it.
+   * @param prefix prefix.
+   * @return Pattern.
+   */
+  static String prefixPattern(String prefix) {
+    StringBuilder pattern = new StringBuilder("^");
+    prefix.codePoints().forEach(c -> {
+      if (!Character.isLetterOrDigit(c)) {
+        pattern.append('\\');
+      }
+      pattern.appendCodePoint(c);
+    });
+    return pattern.toString();
+  }
+
+  /**
+   * Order typeahead candidates: names starting with the query, then names with a word starting
+   * with the first token, then productType matches, then description matches, shorter names first.
+   * @param query lower case query.
+   * @param tokens query tokens.
+   * @return Comparator.
+   */
+  static Comparator<Inventory> ranking(String query, List<String> tokens) {
+    return Comparator.<Inventory>comparingInt(inventory -> rank(inventory, query, tokens.get(0)))
+        .thenComparingInt(inventory -> inventory.getName() == null ? 0 : inventory.getName().length())
+        .thenComparing(Inventory::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+  }
+
+  /**
+   * Whether every token starts a word of the Inventory. Tokens longer than MAX_GRAM only had their
+   * first characters looked up.
+   * @param inventory Inventory.
+   * @param tokens query tokens.
+   * @return true when the Inventory matches.
+   */
+  static boolean matches(Inventory inventory, List<String> tokens) {
+    List<String> words = new ArrayList<>(words(inventory.getName()));
+    words.addAll(words(inventory.getProductType()));
+    words.addAll(words(inventory.getDescription()));
+    return tokens.stream().allMatch(token -> words.stream().anyMatch(word -> word.startsWith(token)));
+  }
+
+  /**
+   * Rank of one candidate, lower is better.
+   * @param inventory Inventory.
+   * @param query lower case query.
+   * @param token first query token.
+   * @return Rank.
+   */
+  private static int rank(Inventory inventory, String query, String token) {
+    String name = inventory.getName() == null ? "" : inventory.getName().toLowerCase(Locale.ROOT);
+    if (name.startsWith(query)) {
+      return 0;
+    }
+    if (startsWord(inventory.getName(), token)) {
+      return 1;
+    }
+    return startsWord(inventory.getProductType(), token) ? 2 : 3;
+  }
+
+  /**
+   * Whether a word of a text starts with a token.
+   * @param text text, may be null.
+   * @param token lower case token.
+   * @return true when one does.
+   */
+  private static boolean startsWord(String text, String token) {
+    return words(text).stream().anyMatch(word -> word.startsWith(token));
+  }
+}
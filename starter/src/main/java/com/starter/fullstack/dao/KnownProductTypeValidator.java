@@ -0,0 +1,34 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.KnownProductType;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import org.springframework.util.Assert;
+
+/**
+ * Checks KnownProductType against the ProductCatalog, so validating an Inventory write, imported
+ * rows included, costs no query. Created by Spring's validator factory, which injects the catalog.
+ */
+public class KnownProductTypeValidator implements ConstraintValidator<KnownProductType, String> {
+  private final ProductCatalog productCatalog;
+
+  /**
+   * Default Constructor.
+   * @param productCatalog ProductCatalog.
+   */
+  public KnownProductTypeValidator(ProductCatalog productCatalog) {
+    Assert.notNull(productCatalog, "Product Catalog must not be null.");
+    this.productCatalog = productCatalog;
+  }
+
+  /**
+   * Accept a missing productType, it is required elsewhere, or the name of a Product in the catalog.
+   * @param productType productType to check.
+   * @param context ConstraintValidatorContext.
+   * @return true when valid.
+   */
+  @Override
+  public boolean isValid(String productType, ConstraintValidatorContext context) {
+    return productType == null || this.productCatalog.contains(productType);
+  }
+}
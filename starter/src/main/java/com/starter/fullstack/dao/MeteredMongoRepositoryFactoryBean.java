@@ -0,0 +1,74 @@
+package com.starter.fullstack.dao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+
+/**
+ * Mongo repository factory that times every repository method with DaoMetrics, tagged by
+ * method and by whether it is a CRUD, derived query or custom method.
+ * @param <T> type of repository.
+ * @param <S> type of domain object.
+ * @param <I> type of id.
+ */
+public class MeteredMongoRepositoryFactoryBean<T extends Repository<S, I>, S, I extends Serializable>
+    extends MongoRepositoryFactoryBean<T, S, I> {
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Default Constructor.
+   * @param repositoryInterface repository interface.
+   */
+  public MeteredMongoRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+    super(repositoryInterface);
+  }
+
+  /**
+   * Registry to time repository methods in, nothing is timed without one.
+   * @param meterRegistry MeterRegistry.
+   */
+  @Autowired(required = false)
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Repository factory whose proxies time every method, when a registry is set.
+   * @param operations MongoOperations.
+   * @return RepositoryFactorySupport.
+   */
+  @Override
+  protected RepositoryFactorySupport getFactoryInstance(MongoOperations operations) {
+    RepositoryFactorySupport factory = super.getFactoryInstance(operations);
+    if (this.meterRegistry != null) {
+      factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> {
+        DaoMetrics daoMetrics = new DaoMetrics(this.meterRegistry,
+            information.getDomainType().getSimpleName().toLowerCase(Locale.ROOT));
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> daoMetrics.record(invocation.getMethod().getName(),
+            shape(information, invocation.getMethod()), invocation::proceed));
+      });
+    }
+    return factory;
+  }
+
+  /**
+   * Shape of a repository method.
+   * @param information repository metadata.
+   * @param method invoked method.
+   * @return Shape.
+   */
+  private static String shape(RepositoryInformation information, Method method) {
+    if (information.isCustomMethod(method)) {
+      return "custom";
+    }
+    return information.isQueryMethod(method) ? "derived" : "crud";
+  }
+}
@@ -0,0 +1,132 @@
+package com.starter.fullstack.dao;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.util.Assert;
+
+/**
+ * Records the latency of every command the driver sends, and the documents and bytes each
+ * command returned, tagged by command name.
+ */
+public class MongoCommandMetrics implements CommandListener {
+  static final String COMMANDS = "starter.mongo.commands";
+  static final String DOCUMENTS = "starter.mongo.documents";
+  static final String BYTES = "starter.mongo.bytes";
+  private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+  private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Map<String, DistributionSummary> documents = new ConcurrentHashMap<>();
+  private final Map<String, DistributionSummary> bytes = new ConcurrentHashMap<>();
+
+  /**
+   * Default Constructor.
+   * @param meterRegistry MeterRegistry.
+   */
+  public MongoCommandMetrics(MeterRegistry meterRegistry) {
+    Assert.notNull(meterRegistry, "Meter Registry must not be null.");
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Nothing is recorded when a command starts.
+   * @param event CommandStartedEvent.
+   */
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    // Latency comes with the outcome.
+  }
+
+  /**
+   * Record the latency of a command that succeeded, and the documents and bytes it returned.
+   * @param event CommandSucceededEvent.
+   */
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    String command = event.getCommandName();
+    timer(command, "success").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+    BsonDocument response = event.getResponse();
+    if (response != null) {
+      this.documents.computeIfAbsent(command, key -> DistributionSummary.builder(DOCUMENTS)
+        .description("Documents returned by Mongo commands")
+        .tag("command", key)
+        .register(this.meterRegistry)).record(documentsReturned(response));
+      this.bytes.computeIfAbsent(command, key -> DistributionSummary.builder(BYTES)
+        .description("Bytes returned by Mongo commands")
+        .baseUnit("bytes")
+        .tag("command", key)
+        .register(this.meterRegistry)).record(size(response));
+    }
+  }
+
+  /**
+   * Record the latency of a command that failed.
+   * @param event CommandFailedEvent.
+   */
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    timer(event.getCommandName(), "error").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Find or register a command timer.
+   * @param command command name.
+   * @param outcome outcome tag.
+   * @return Timer.
+   */
+  private Timer timer(String command, String outcome) {
+    return this.timers.computeIfAbsent(command + '\u0000' + outcome, key -> Timer.builder(COMMANDS)
+      .description("Time spent in Mongo commands")
+      .tag("command", command)
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(this.meterRegistry));
+  }
+
+  /**
+   * Count the documents in a command response: the batch of a cursor, or the document of a
+   * findAndModify.
+   * @param response response.
+   * @return documents returned.
+   */
+  static int documentsReturned(BsonDocument response) {
+    BsonValue cursor = response.get("cursor");
+    if (cursor != null && cursor.isDocument()) {
+      for (String batch : new String[] {"firstBatch", "nextBatch"}) {
+        BsonValue documents = cursor.asDocument().get(batch);
+        if (documents != null && documents.isArray()) {
+          return documents.asArray().size();
+        }
+      }
+    }
+    BsonValue value = response.get("value");
+    return value != null && value.isDocument() ? 1 : 0;
+  }
+
+  /**
+   * Size of a command response as BSON.
+   * @param response response.
+   * @return bytes.
+   */
+  private static int size(BsonDocument response) {
+    try (BasicOutputBuffer buffer = new BasicOutputBuffer(); BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+      CODEC.encode(writer, response, ENCODER_CONTEXT);
+      return buffer.getSize();
+    }
+  }
+}
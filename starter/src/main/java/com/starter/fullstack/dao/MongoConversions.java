@@ -0,0 +1,57 @@
+package com.starter.fullstack.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+/**
+ * Store BigDecimal as Decimal128 rather than the String Spring Data writes by default, so amounts
+ * and prices compare, sort and aggregate as numbers in the database. Strings written before still
+ * read back as BigDecimal, and InventoryDAO converts them to Decimal128 once at startup.
+ */
+public final class MongoConversions {
+
+  /**
+   * Utility Class.
+   */
+  private MongoConversions() {
+  }
+
+  /**
+   * Custom conversions for the Mongo mapping converters.
+   * @return Conversions.
+   */
+  public static MongoCustomConversions customConversions() {
+    return new MongoCustomConversions(List.of(BigDecimalToDecimal128.INSTANCE, Decimal128ToBigDecimal.INSTANCE));
+  }
+
+  /**
+   * Writes BigDecimal as Decimal128.
+   */
+  @WritingConverter
+  private enum BigDecimalToDecimal128 implements Converter<BigDecimal, Decimal128> {
+    INSTANCE;
+
+    @Override
+    public Decimal128 convert(BigDecimal source) {
+      return new Decimal128(source);
+    }
+  }
+
+  /**
+   * Reads Decimal128 as BigDecimal.
+   */
+  @ReadingConverter
+  private enum Decimal128ToBigDecimal implements Converter<Decimal128, BigDecimal> {
+    INSTANCE;
+
+    @Override
+    public BigDecimal convert(Decimal128 source) {
+      return source.bigDecimalValue();
+    }
+  }
+}
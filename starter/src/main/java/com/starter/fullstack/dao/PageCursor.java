@@ -0,0 +1,144 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.CursorPage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Opaque continuation token for keyset pagination. Encodes the sort key value and id of
+ * the last item on a page, so the next page starts with an index seek instead of a skip.
+ */
+final class PageCursor {
+  static final String ID = "_id";
+  static final int MAX_PAGE_SIZE = 1000;
+  private static final String VALUE = "v";
+
+  private final String value;
+  private final String id;
+
+  /**
+   * Default Constructor.
+   * @param value sort key value of the last item, may be null.
+   * @param id id of the last item.
+   */
+  private PageCursor(String value, String id) {
+    this.value = value;
+    this.id = id;
+  }
+
+  /**
+   * Restrict, sort and limit a query so it returns the page after the given cursor.
+   * @param query Query to restrict.
+   * @param sortKey field to sort by, or null to sort by id only.
+   * @param direction direction to sort in.
+   * @param token cursor from the previous page, or null for the first page.
+   * @param size page size.
+   * @return the query.
+   */
+  static Query apply(Query query, String sortKey, Sort.Direction direction, String token, int size) {
+    Assert.isTrue(size > 0 && size <= MAX_PAGE_SIZE, "Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    boolean asc = direction.isAscending();
+
+    if (token != null) {
+      PageCursor cursor = decode(token);
+      if (sortKey == null) {
+        query.addCriteria(asc ? where(ID).gt(cursor.id) : where(ID).lt(cursor.id));
+      } else {
+        query.addCriteria(after(sortKey, asc, cursor));
+      }
+    }
+
+    if (sortKey == null) {
+      query.with(Sort.by(direction, ID));
+    } else {
+      query.with(Sort.by(direction, sortKey, ID));
+    }
+    // One extra document tells us whether another page exists.
+    return query.limit(size + 1);
+  }
+
+  /**
+   * Build a page from the results of a query restricted by {@link #apply}.
+   * @param results query results, at most one more than the page size.
+   * @param size page size.
+   * @param sortValue extracts the sort key value of an item, or null when sorting by id only.
+   * @param id extracts the id of an item.
+   * @param estimatedTotal estimated collection size, or null.
+   * @param <T> type of item.
+   * @return Page.
+   */
+  static <T> CursorPage<T> toPage(List<T> results, int size, Function<T, String> sortValue,
+                                  Function<T, String> id, Long estimatedTotal) {
+    CursorPage<T> page = new CursorPage<>();
+    page.setEstimatedTotal(estimatedTotal);
+
+    if (results.size() <= size) {
+      page.setItems(results);
+      return page;
+    }
+
+    List<T> items = new ArrayList<>(results.subList(0, size));
+    T last = items.get(size - 1);
+    page.setItems(items);
+    page.setNextCursor(encode(sortValue == null ? null : sortValue.apply(last), id.apply(last)));
+    return page;
+  }
+
+  /**
+   * Criteria matching everything strictly after the cursor position in (sortKey, _id) order.
+   * @param sortKey field sorted by.
+   * @param asc whether the sort is ascending.
+   * @param cursor cursor position.
+   * @return Criteria.
+   */
+  private static Criteria after(String sortKey, boolean asc, PageCursor cursor) {
+    Criteria sameValue = where(sortKey).is(cursor.value);
+    Criteria tieBreak = asc ? sameValue.and(ID).gt(cursor.id) : sameValue.and(ID).lt(cursor.id);
+
+    // Missing values sort first, so they only have values after them when ascending, and when
+    // descending they come after every value.
+    if (cursor.value == null) {
+      return asc ? new Criteria().orOperator(tieBreak, where(sortKey).ne(null)) : tieBreak;
+    }
+    if (asc) {
+      return new Criteria().orOperator(where(sortKey).gt(cursor.value), tieBreak);
+    }
+    return new Criteria().orOperator(where(sortKey).lt(cursor.value), tieBreak, where(sortKey).is(null));
+  }
+
+  /**
+   * Encode a cursor position.
+   * @param value sort key value.
+   * @param id id.
+   * @return token.
+   */
+  private static String encode(String value, String id) {
+    String json = new Document(VALUE, value).append(ID, id).toJson();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor token.
+   * @param token token.
+   * @return cursor position.
+   */
+  private static PageCursor decode(String token) {
+    try {
+      Document document = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+      Assert.isTrue(document.get(ID) instanceof String, "Page cursor is invalid.");
+      return new PageCursor(document.getString(VALUE), document.getString(ID));
+    } catch (JsonParseException | ClassCastException e) {
+      throw new IllegalArgumentException("Page cursor is invalid.", e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Product;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.springframework.util.Assert;
+
+/**
+ * The name of every Product, held in memory. Products are few and rarely written, so the names are
+ * loaded at startup and again after each Product write, and Inventory productTypes are checked
+ * against them without a query. To pick up Products written by another instance, a name that is
+ * not found reloads the catalog at most once per MISS_RELOAD, and a catalog older than MAX_AGE is
+ * reloaded before it is checked, so a deleted Product stops being accepted.
+ */
+public class ProductCatalog {
+  private static final Duration MISS_RELOAD = Duration.ofSeconds(5);
+  private static final Duration MAX_AGE = Duration.ofSeconds(30);
+  private final ProductDAO productDAO;
+  private final Clock clock;
+  private volatile Snapshot snapshot;
+
+  /**
+   * Default Constructor.
+   * @param productDAO ProductDAO.
+   * @param clock Clock.
+   */
+  public ProductCatalog(ProductDAO productDAO, Clock clock) {
+    Assert.notNull(productDAO, "Product DAO must not be null.");
+    Assert.notNull(clock, "Clock must not be null.");
+    this.productDAO = productDAO;
+    this.clock = clock;
+  }
+
+  /**
+   * Load every Product name. Loads run one at a time, so an older load can not replace a newer one.
+   */
+  @PostConstruct
+  public synchronized void refresh() {
+    Instant loaded = this.clock.instant();
+    this.snapshot = new Snapshot(this.productDAO.findAll().stream().map(Product::getName)
+        .collect(Collectors.toUnmodifiableSet()), loaded);
+  }
+
+  /**
+   * Whether a Product has the given name.
+   * @param name Product name.
+   * @return true when one does.
+   */
+  public boolean contains(String name) {
+    Snapshot current = this.snapshot;
+    boolean known = current.names.contains(name);
+    if (this.clock.instant().isBefore(current.loaded.plus(known ? MAX_AGE : MISS_RELOAD))) {
+      return known;
+    }
+    synchronized (this) {
+      if (this.snapshot == current) {
+        refresh();
+      }
+    }
+    return this.snapshot.names.contains(name);
+  }
+
+  /**
+   * The Product names of one load.
+   */
+  private static final class Snapshot {
+    private final Set<String> names;
+    private final Instant loaded;
+
+    /**
+     * Default Constructor.
+     * @param names Product names.
+     * @param loaded time of the load.
+     */
+    private Snapshot(Set<String> names, Instant loaded) {
+      this.names = names;
+      this.loaded = loaded;
+    }
+  }
+}
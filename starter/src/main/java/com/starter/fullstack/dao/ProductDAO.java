@@ -8,7 +8,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 /**
  * Product DAO
  */
-public interface ProductDAO extends MongoRepository<Product, String> {
+public interface ProductDAO extends MongoRepository<Product, String>, ProductDAOCustom {
 
   /**
    * Find Products By Their Name.
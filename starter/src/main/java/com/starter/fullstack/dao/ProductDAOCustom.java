@@ -0,0 +1,19 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.CursorPage;
+import com.starter.fullstack.api.Product;
+
+/**
+ * Product DAO operations implemented directly against MongoTemplate.
+ */
+public interface ProductDAOCustom {
+
+  /**
+   * Find a Page of Products in id order.
+   * @param size maximum number of Products on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param estimateTotal include the estimated number of Products in the collection.
+   * @return Page of found Products.
+   */
+  CursorPage<Product> findPage(int size, String cursor, boolean estimateTotal);
+}
@@ -0,0 +1,45 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.CursorPage;
+import com.starter.fullstack.api.Product;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+
+/**
+ * Product DAO Custom Implementation.
+ */
+public class ProductDAOImpl implements ProductDAOCustom {
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate MongoTemplate.
+   */
+  public ProductDAOImpl(MongoTemplate mongoTemplate) {
+    Assert.notNull(mongoTemplate, "MongoTemplate must not be null.");
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Find a Page of Products in id order.
+   * @param size maximum number of Products on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param estimateTotal include the estimated number of Products in the collection.
+   * @return Page of found Products.
+   */
+  @Override
+  public CursorPage<Product> findPage(int size, String cursor, boolean estimateTotal) {
+    Query query = PageCursor.apply(new Query(), null, Sort.Direction.ASC, cursor, size);
+    List<Product> results = this.mongoTemplate.find(query, Product.class);
+
+    Long estimatedTotal = null;
+    if (estimateTotal) {
+      estimatedTotal = this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(Product.class))
+        .estimatedDocumentCount();
+    }
+    return PageCursor.toPage(results, size, null, Product::getId, estimatedTotal);
+  }
+}
@@ -0,0 +1,253 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.BulkDeleteResult;
+import com.starter.fullstack.api.CursorPage;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Non-blocking counterpart of InventoryDAO. Queries are built by the same helpers so both
+ * answer identically, and writes keep the shared near-cache coherent.
+ */
+public class ReactiveInventoryDAO {
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final InventoryCache inventoryCache;
+  private final ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Default Constructor.
+   * @param mongoTemplate ReactiveMongoTemplate.
+   * @param inventoryCache InventoryCache shared with InventoryDAO.
+   */
+  public ReactiveInventoryDAO(ReactiveMongoTemplate mongoTemplate, InventoryCache inventoryCache) {
+    this(mongoTemplate, inventoryCache, change -> { });
+  }
+
+  /**
+   * Constructor that also publishes an InventoryChange after every write, as InventoryDAO does.
+   * @param mongoTemplate ReactiveMongoTemplate.
+   * @param inventoryCache InventoryCache shared with InventoryDAO.
+   * @param eventPublisher receives an InventoryChange for each created, updated and deleted Inventory.
+   */
+  public ReactiveInventoryDAO(ReactiveMongoTemplate mongoTemplate, InventoryCache inventoryCache,
+                              ApplicationEventPublisher eventPublisher) {
+    Assert.notNull(mongoTemplate, "Reactive MongoTemplate must not be null.");
+    Assert.notNull(inventoryCache, "Inventory Cache must not be null.");
+    Assert.notNull(eventPublisher, "Event Publisher must not be null.");
+    this.mongoTemplate = mongoTemplate;
+    this.inventoryCache = inventoryCache;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Find All Inventory, reading only the requested fields. Inventory is read in batches as the
+   * subscriber requests it.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory.
+   */
+  public Flux<Inventory> findAll(Collection<String> fields) {
+    return Flux.defer(() -> this.mongoTemplate.find(
+      InventoryDAO.project(new Query(), fields).cursorBatchSize(InventoryDAO.STREAM_BATCH_SIZE), Inventory.class));
+  }
+
+  /**
+   * Find the first Inventory in sort order, reading only the requested fields.
+   * @param sortVariable variable to sort by
+   * @param direction direction to sort in
+   * @param limit maximum number of Inventory to return, all when null
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory.
+   */
+  public Flux<Inventory> findSorted(String sortVariable, String direction, Integer limit, Collection<String> fields) {
+    return Flux.defer(() -> this.mongoTemplate.find(
+      InventoryDAO.project(InventoryDAO.sortedQuery(sortVariable, direction, limit), fields), Inventory.class));
+  }
+
+  /**
+   * Find a Page of Inventory, reading only the requested fields and those the cursor needs.
+   * @param size maximum number of Inventory on the page.
+   * @param cursor continuation token from the previous page, null for the first page.
+   * @param sortVariable variable to sort by: name or productType, null to page in id order.
+   * @param direction direction to sort in.
+   * @param estimateTotal include the estimated number of Inventory in the collection.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Page of found Inventory.
+   */
+  public Mono<CursorPage<Inventory>> findPage(int size, String cursor, String sortVariable, String direction,
+                                              boolean estimateTotal, Collection<String> fields) {
+    return Mono.defer(() -> {
+      Query query = InventoryDAO.pageQuery(size, cursor, sortVariable, direction, fields);
+      Mono<List<Inventory>> results = this.mongoTemplate.find(query, Inventory.class).collectList();
+      if (!estimateTotal) {
+        return results.map(items -> PageCursor.toPage(items, size, InventoryDAO.keysetValue(sortVariable),
+          Inventory::getId, null));
+      }
+
+      Mono<Long> estimatedTotal = Mono.from(this.mongoTemplate
+        .getCollection(this.mongoTemplate.getCollectionName(Inventory.class)).estimatedDocumentCount());
+      return Mono.zip(results, estimatedTotal, (items, total) -> PageCursor.toPage(items, size,
+        InventoryDAO.keysetValue(sortVariable), Inventory::getId, total));
+    });
+  }
+
+  /**
+   * Filter Retrieve Inventory, reading only the requested fields.
+   * @param measurementUnit Unit of measurement to filter on, optional.
+   * @param amount Amount to look for, optional.
+   * @param bestBeforeDate Best before date to look for, optional.
+   * @param fields Inventory fields to read, or "summary", all when empty
+   * @return Found Inventory.
+   */
+  public Flux<Inventory> filterRetrieve(UnitOfMeasurement measurementUnit, BigDecimal amount, Instant bestBeforeDate,
+                                        Collection<String> fields) {
+    return Flux.defer(() -> this.mongoTemplate.find(
+      InventoryDAO.project(InventoryDAO.filterQuery(measurementUnit, amount, bestBeforeDate), fields)
+        .cursorBatchSize(InventoryDAO.STREAM_BATCH_SIZE), Inventory.class));
+  }
+
+  /**
+   * Save Inventory.
+   * @param inventory Inventory to Save.
+   * @return Created Inventory.
+   */
+  public Mono<Inventory> create(Inventory inventory) {
+    inventory.setId(null);
+    InventoryDAO.derive(inventory);
+    return this.mongoTemplate.insert(inventory).doOnNext(created -> {
+      this.inventoryCache.put(created);
+      this.eventPublisher.publishEvent(InventoryChange.created(created));
+    });
+  }
+
+  /**
+   * Retrieve Inventory. Reads go to the database, the near-cache only serves the blocking API.
+   * @param id Inventory id to Retrieve.
+   * @return Found Inventory, empty if there is none with the id.
+   */
+  public Mono<Inventory> retrieve(String id) {
+    return this.mongoTemplate.findById(id, Inventory.class);
+  }
+
+  /**
+   * Update Inventory if it is still at the version the caller read, returning it as stored from the
+   * one round trip. Signals OptimisticLockingFailureException if the Inventory was changed since it
+   * was read.
+   * @param id Inventory id to Update.
+   * @param inventory Inventory to Update.
+   * @return Updated Inventory, empty if there is no Inventory with the id.
+   */
+  public Mono<Inventory> update(String id, Inventory inventory) {
+    return this.mongoTemplate.findAndModify(InventoryDAO.versionedQuery(id, inventory.getVersion()),
+        InventoryDAO.versionedUpdate(inventory), FindAndModifyOptions.options().returnNew(false).upsert(false),
+        Inventory.class)
+      .map(previous -> {
+        Inventory updated = InventoryDAO.updated(previous, inventory);
+        this.inventoryCache.put(updated);
+        this.eventPublisher.publishEvent(InventoryChange.updated(updated, previous));
+        return updated;
+      })
+      .switchIfEmpty(Mono.defer(() -> {
+        this.inventoryCache.invalidate(List.of(id));
+        return this.mongoTemplate.exists(query(where(PageCursor.ID).is(id)), Inventory.class)
+          .flatMap(exists -> exists
+            ? Mono.<Inventory>error(new OptimisticLockingFailureException(
+              "Inventory " + id + " is no longer at version " + inventory.getVersion() + "."))
+            : Mono.<Inventory>empty());
+      }));
+  }
+
+  /**
+   * Delete Inventory By Id. Only the Inventory returned is read in full, as InventoryDAO.delete does.
+   * @param id Id of Inventory.
+   * @return Deleted Inventory of the last id, empty if it was not found.
+   */
+  public Mono<Inventory> delete(List<String> id) {
+    Assert.notNull(id, "Inventory Ids were not provided");
+    Mono<Optional<Inventory>> last = id.isEmpty() ? Mono.just(Optional.empty())
+      : this.mongoTemplate.findById(id.get(id.size() - 1), Inventory.class).map(Optional::of)
+        .defaultIfEmpty(Optional.empty());
+    return last.flatMap(inventory -> deleteAll(id, false).flatMap(result -> Mono.justOrEmpty(
+      inventory.filter(found -> result.getDeletedIds().contains(found.getId())))));
+  }
+
+  /**
+   * Delete many Inventory By Id, one chunk after the other as InventoryDAO.deleteAll does.
+   * @param ids Ids of Inventory.
+   * @param returnDocuments whether to fetch and return the deleted Inventory.
+   * @return Deleted and missing ids.
+   */
+  public Mono<BulkDeleteResult<Inventory>> deleteAll(List<String> ids, boolean returnDocuments) {
+    Assert.notNull(ids, "Inventory Ids were not provided");
+    List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+    BulkDeleteResult<Inventory> result = new BulkDeleteResult<>();
+    if (returnDocuments) {
+      result.setDeleted(new ArrayList<>());
+    }
+
+    List<List<String>> chunks = new ArrayList<>();
+    for (int from = 0; from < distinctIds.size(); from += InventoryDAO.DELETE_CHUNK_SIZE) {
+      chunks.add(distinctIds.subList(from, Math.min(from + InventoryDAO.DELETE_CHUNK_SIZE, distinctIds.size())));
+    }
+    return Flux.fromIterable(chunks)
+      .concatMap(chunk -> deleteChunk(chunk, returnDocuments, result))
+      .then(Mono.just(result));
+  }
+
+  /**
+   * Delete one chunk of ids, recording the outcome on the result.
+   * @param chunk Ids of Inventory.
+   * @param returnDocuments whether to fetch and return the deleted Inventory.
+   * @param result result to record on.
+   * @return Completes once the chunk is deleted.
+   */
+  private Mono<Void> deleteChunk(List<String> chunk, boolean returnDocuments, BulkDeleteResult<Inventory> result) {
+    Query existing = query(where(PageCursor.ID).in(chunk));
+    if (!returnDocuments) {
+      for (String field : InventoryRollups.FIELDS) {
+        existing.fields().include(field);
+      }
+    }
+
+    return this.mongoTemplate.find(existing, Inventory.class).collectList().flatMap(found -> {
+      Set<String> foundIds = new HashSet<>();
+      for (Inventory inventory : found) {
+        foundIds.add(inventory.getId());
+      }
+      Mono<?> removed = foundIds.isEmpty() ? Mono.empty()
+        : this.mongoTemplate.remove(query(where(PageCursor.ID).in(foundIds)), Inventory.class);
+
+      return removed.then(Mono.fromRunnable(() -> {
+        this.inventoryCache.invalidate(chunk);
+        for (Inventory inventory : found) {
+          this.eventPublisher.publishEvent(InventoryChange.deleted(inventory));
+        }
+        for (String id : chunk) {
+          (foundIds.contains(id) ? result.getDeletedIds() : result.getMissingIds()).add(id);
+        }
+        if (returnDocuments) {
+          result.getDeleted().addAll(found);
+        }
+      }));
+    });
+  }
+}
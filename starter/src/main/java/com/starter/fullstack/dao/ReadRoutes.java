@@ -0,0 +1,183 @@
+package com.starter.fullstack.dao;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.Tag;
+import com.mongodb.TagSet;
+import com.mongodb.client.MongoCollection;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * MongoTemplates for reads that may leave the primary, one per operation name. An operation without a
+ * route reads through the primary template. Routed templates share the client and converter of the
+ * primary one and only differ in the read preference and read concern of their collections, so
+ * operations routed alike share a template.
+ */
+public final class ReadRoutes {
+  // Smallest maxStaleness a server accepts.
+  static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+  private final MongoTemplate primary;
+  private final Map<String, MongoTemplate> templates;
+
+  /**
+   * Default Constructor.
+   * @param primary MongoTemplate reading from the primary, also used for every operation without a route.
+   * @param routes Route per operation name.
+   */
+  public ReadRoutes(MongoTemplate primary, Map<String, Route> routes) {
+    Assert.notNull(primary, "MongoTemplate must not be null.");
+    Assert.notNull(routes, "Routes must not be null.");
+    this.primary = primary;
+    Map<Route, MongoTemplate> shared = new HashMap<>();
+    Map<String, MongoTemplate> templates = new HashMap<>();
+    routes.forEach((operation, route) -> {
+      Assert.notNull(route, "Route must not be null.");
+      templates.put(operation, route.isPrimary() ? primary
+          : shared.computeIfAbsent(route, key -> new RoutedMongoTemplate(primary, key)));
+    });
+    this.templates = Collections.unmodifiableMap(templates);
+  }
+
+  /**
+   * Every read on the primary.
+   * @param primary MongoTemplate.
+   * @return ReadRoutes.
+   */
+  public static ReadRoutes primary(MongoTemplate primary) {
+    return new ReadRoutes(primary, Map.of());
+  }
+
+  /**
+   * Template to read with.
+   * @param operation operation name, as recorded by DaoMetrics.
+   * @return MongoTemplate.
+   */
+  public MongoTemplate get(String operation) {
+    return this.templates.getOrDefault(operation, this.primary);
+  }
+
+  /**
+   * Read preference and read concern of an operation.
+   */
+  public static final class Route {
+    private final ReadPreference readPreference;
+    private final ReadConcern readConcern;
+
+    /**
+     * Default Constructor.
+     * @param readPreference ReadPreference.
+     * @param readConcern ReadConcern.
+     */
+    public Route(ReadPreference readPreference, ReadConcern readConcern) {
+      Assert.notNull(readPreference, "Read Preference must not be null.");
+      Assert.notNull(readConcern, "Read Concern must not be null.");
+      this.readPreference = readPreference;
+      this.readConcern = readConcern;
+    }
+
+    /**
+     * Route from its configuration.
+     * @param mode read preference mode: primary, primaryPreferred, secondary, secondaryPreferred or nearest.
+     * @param maxStaleness how far a secondary may lag behind the primary, at least 90 seconds, null for no limit.
+     * @param tags tags a member must carry, empty for any member.
+     * @param readConcern read concern level: local, available, majority or linearizable, null for the default.
+     * @return Route.
+     */
+    public static Route of(String mode, Duration maxStaleness, Map<String, String> tags, String readConcern) {
+      Assert.hasText(mode, "Read Preference must not be empty.");
+      Assert.isTrue(maxStaleness == null || maxStaleness.compareTo(MIN_MAX_STALENESS) >= 0,
+          "Max staleness must be at least " + MIN_MAX_STALENESS.getSeconds() + " seconds.");
+      List<TagSet> tagSets = tags == null || tags.isEmpty() ? List.of() : List.of(new TagSet(tags.entrySet().stream()
+          .map(tag -> new Tag(tag.getKey(), tag.getValue())).collect(Collectors.toList())));
+      ReadPreference readPreference = maxStaleness == null
+          ? ReadPreference.valueOf(mode, tagSets)
+          : ReadPreference.valueOf(mode, tagSets, maxStaleness.getSeconds(), TimeUnit.SECONDS);
+      return new Route(readPreference, readConcern == null ? ReadConcern.DEFAULT
+          : new ReadConcern(ReadConcernLevel.fromString(readConcern)));
+    }
+
+    /**
+     * Read preference.
+     * @return ReadPreference.
+     */
+    public ReadPreference getReadPreference() {
+      return this.readPreference;
+    }
+
+    /**
+     * Read concern.
+     * @return ReadConcern.
+     */
+    public ReadConcern getReadConcern() {
+      return this.readConcern;
+    }
+
+    /**
+     * Whether the route reads as the primary template does.
+     * @return true when it does.
+     */
+    boolean isPrimary() {
+      return ReadPreference.primary().equals(this.readPreference) && this.readConcern.isServerDefault();
+    }
+
+    /**
+     * Routes are equal when they read with the same preference and concern.
+     * @param o other object.
+     * @return true when equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Route)) {
+        return false;
+      }
+      Route route = (Route) o;
+      return this.readPreference.equals(route.readPreference) && this.readConcern.equals(route.readConcern);
+    }
+
+    /**
+     * Hash of the read preference and concern.
+     * @return Hash code.
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.readPreference, this.readConcern);
+    }
+  }
+
+  /**
+   * MongoTemplate whose collections carry the read preference and read concern of a Route.
+   */
+  private static final class RoutedMongoTemplate extends MongoTemplate {
+    private final ReadConcern readConcern;
+
+    /**
+     * Default Constructor.
+     * @param primary MongoTemplate to share the client and converter of.
+     * @param route Route.
+     */
+    private RoutedMongoTemplate(MongoTemplate primary, Route route) {
+      super(primary.getMongoDbFactory(), primary.getConverter());
+      this.readConcern = route.getReadConcern();
+      setReadPreference(route.getReadPreference());
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+      return super.prepareCollection(collection).withReadConcern(this.readConcern);
+    }
+  }
+}
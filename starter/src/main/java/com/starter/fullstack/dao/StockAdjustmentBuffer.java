@@ -0,0 +1,205 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.StockAdjustmentResult;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.util.Assert;
+
+/**
+ * Write-behind buffer of stock adjustments. Deltas are summed per Inventory in memory, in stripes
+ * locked separately so adjusters of different Inventory rarely wait on each other, and applied by
+ * adjustAmounts as one bulk write every interval, or sooner once threshold Inventory are pending.
+ * A hot Inventory adjusted hundreds of times between flushes costs one update. Pending deltas are
+ * flushed on shutdown, but lost if the process dies first. Deltas that would leave a negative
+ * amount are dropped at the flush and logged, those that conflicted with another write are kept
+ * for the next flush. A batch whose write failed is retried under the same id, so none of its
+ * deltas are applied twice.
+ */
+public class StockAdjustmentBuffer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StockAdjustmentBuffer.class);
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+  private final InventoryDAO inventoryDAO;
+  private final List<Map<String, BigDecimal>> stripes;
+  private final int threshold;
+  private final Duration interval;
+  // Number of Inventory with a pending delta.
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicBoolean flushQueued = new AtomicBoolean();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  // Batch whose write failed, retried first by the next flush.
+  private volatile Map<String, BigDecimal> unsettled = Map.of();
+  private String unsettledId;
+
+  /**
+   * Default Constructor.
+   * @param inventoryDAO InventoryDAO.
+   * @param stripes number of separately locked stripes.
+   * @param threshold number of pending Inventory that triggers a flush.
+   * @param interval time between flushes.
+   */
+  public StockAdjustmentBuffer(InventoryDAO inventoryDAO, int stripes, int threshold, Duration interval) {
+    Assert.notNull(inventoryDAO, "Inventory DAO must not be null.");
+    Assert.isTrue(stripes > 0, "Stripes must be positive.");
+    Assert.isTrue(threshold > 0, "Threshold must be positive.");
+    Assert.isTrue(interval != null && !interval.isNegative() && !interval.isZero(), "Interval must be positive.");
+    this.inventoryDAO = inventoryDAO;
+    this.stripes = new ArrayList<>(stripes);
+    for (int i = 0; i < stripes; i++) {
+      this.stripes.add(new HashMap<>());
+    }
+    this.threshold = threshold;
+    this.interval = interval;
+  }
+
+  /**
+   * Flush every interval.
+   */
+  public void start() {
+    this.scheduler.scheduleWithFixedDelay(this::flushQuietly, this.interval.toMillis(), this.interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop flushing on the interval, then flush what is pending.
+   * @throws InterruptedException when interrupted waiting for a running flush.
+   */
+  public void shutdown() throws InterruptedException {
+    this.scheduler.shutdown();
+    this.scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    flush();
+  }
+
+  /**
+   * Add a delta to what is pending for an Inventory.
+   * @param id Inventory id.
+   * @param delta amount to add, negative to remove stock.
+   */
+  public void add(String id, BigDecimal delta) {
+    Assert.notNull(id, "Inventory Id was not provided");
+    Assert.notNull(delta, "Stock Adjustment delta was not provided");
+    if (this.scheduler.isShutdown()) {
+      throw new IllegalStateException("Stock adjustments are no longer buffered.");
+    }
+
+    if (merge(id, delta) && this.pending.incrementAndGet() >= this.threshold
+        && this.flushQueued.compareAndSet(false, true)) {
+      this.scheduler.execute(this::flushQuietly);
+    }
+  }
+
+  /**
+   * Apply every pending delta with one bulk write, after retrying a batch whose write failed.
+   * @return Outcome by Inventory id.
+   */
+  public synchronized StockAdjustmentResult flush() {
+    this.flushQueued.set(false);
+    StockAdjustmentResult result = new StockAdjustmentResult();
+    if (!this.unsettled.isEmpty()) {
+      // The write may have applied part of the batch, so it is retried as it was, under the same id,
+      // which skips the Inventory it did adjust.
+      settle(this.unsettledId, this.unsettled, result);
+    }
+
+    Map<String, BigDecimal> deltas = new HashMap<>();
+    for (Map<String, BigDecimal> stripe : this.stripes) {
+      synchronized (stripe) {
+        deltas.putAll(stripe);
+        stripe.clear();
+      }
+    }
+    this.pending.addAndGet(-deltas.size());
+    deltas.values().removeIf(delta -> delta.signum() == 0);
+    if (!deltas.isEmpty()) {
+      settle(UUID.randomUUID().toString(), deltas, result);
+    }
+    return result;
+  }
+
+  /**
+   * Number of Inventory with a pending delta.
+   * @return Size.
+   */
+  public int size() {
+    return this.pending.get() + this.unsettled.size();
+  }
+
+  /**
+   * Apply one batch of deltas, keeping it to retry if the write fails.
+   * @param adjustmentId id of the batch.
+   * @param deltas deltas by Inventory id.
+   * @param result StockAdjustmentResult to add the outcome to.
+   */
+  private void settle(String adjustmentId, Map<String, BigDecimal> deltas, StockAdjustmentResult result) {
+    StockAdjustmentResult settled;
+    try {
+      settled = this.inventoryDAO.adjustAmounts(adjustmentId, deltas);
+    } catch (DataAccessException e) {
+      this.unsettledId = adjustmentId;
+      this.unsettled = deltas;
+      throw e;
+    }
+    this.unsettled = Map.of();
+    settled.getConflicted().forEach(id -> requeue(id, deltas.get(id)));
+    if (!settled.getRejected().isEmpty() || !settled.getNotFound().isEmpty()) {
+      LOGGER.warn("Dropped stock adjustments that would have left a negative amount {} or whose Inventory is gone {}",
+          settled.getRejected(), settled.getNotFound());
+    }
+    result.getAdjusted().addAll(settled.getAdjusted());
+    result.getRejected().addAll(settled.getRejected());
+    result.getNotFound().addAll(settled.getNotFound());
+    result.getConflicted().addAll(settled.getConflicted());
+  }
+
+  /**
+   * Put a delta that was not applied back, for the next flush.
+   * @param id Inventory id.
+   * @param delta delta.
+   */
+  private void requeue(String id, BigDecimal delta) {
+    if (merge(id, delta)) {
+      this.pending.incrementAndGet();
+    }
+  }
+
+  /**
+   * Add a delta to the sum of an Inventory in its stripe.
+   * @param id Inventory id.
+   * @param delta delta.
+   * @return true when the Inventory had no pending delta.
+   */
+  private boolean merge(String id, BigDecimal delta) {
+    Map<String, BigDecimal> stripe = this.stripes.get(Math.floorMod(id.hashCode(), this.stripes.size()));
+    synchronized (stripe) {
+      BigDecimal sum = stripe.get(id);
+      stripe.put(id, sum == null ? delta : sum.add(delta));
+      return sum == null;
+    }
+  }
+
+  /**
+   * Flush, logging a failure rather than ending the schedule: a scheduled task that throws is never
+   * run again, and the buffered deltas would wait for shutdown.
+   */
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (DataAccessException e) {
+      LOGGER.warn("Could not flush {} stock adjustments, retrying in {}", size(), this.interval, e);
+    } catch (IllegalArgumentException e) {
+      LOGGER.error("Dropped stock adjustments that failed to flush, {} are pending for the next flush", size(), e);
+    }
+  }
+}
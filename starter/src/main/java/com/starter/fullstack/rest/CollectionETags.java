@@ -0,0 +1,61 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryImported;
+import com.starter.fullstack.api.Product;
+import com.starter.fullstack.dao.CollectionVersions;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.Assert;
+
+/**
+ * Entity tags for collection responses, taken from the collection version every instance moves on
+ * with each write it makes. A list answered with the current tag is unchanged since it was served,
+ * so a conditional GET costs two small reads instead of a query.
+ * The tags are weak: the JSON, CBOR, Smile and compressed forms of a list share one, told apart by
+ * Vary: Accept, and Tomcat does not compress responses carrying a strong tag.
+ */
+public class CollectionETags {
+  private final CollectionVersions collectionVersions;
+
+  /**
+   * Default Constructor.
+   * @param collectionVersions CollectionVersions.
+   */
+  public CollectionETags(CollectionVersions collectionVersions) {
+    Assert.notNull(collectionVersions, "Collection Versions must not be null.");
+    this.collectionVersions = collectionVersions;
+  }
+
+  /**
+   * Count an Inventory write or imported batch.
+   */
+  @EventListener({InventoryChange.class, InventoryImported.class})
+  public void inventoryChanged() {
+    this.collectionVersions.bump(Inventory.class);
+  }
+
+  /**
+   * Count a Product write.
+   */
+  public void productsChanged() {
+    this.collectionVersions.bump(Product.class);
+  }
+
+  /**
+   * Tag of the Inventory collection. Read it before querying, so a write racing the query leaves
+   * the response with an older tag rather than a newer one.
+   * @return ETag.
+   */
+  public String inventory() {
+    return "W/\"inventory-" + this.collectionVersions.current(Inventory.class) + "\"";
+  }
+
+  /**
+   * Tag of the Product collection. Read it before querying.
+   * @return ETag.
+   */
+  public String products() {
+    return "W/\"products-" + this.collectionVersions.current(Product.class) + "\"";
+  }
+}
@@ -0,0 +1,66 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.CacheStats;
+import com.starter.fullstack.api.InventoryRollup;
+import com.starter.fullstack.api.QueryShapeReport;
+import com.starter.fullstack.dao.InventoryDAO;
+import com.starter.fullstack.dao.InventoryIndexAdvisor;
+import com.starter.fullstack.dao.InventoryRollups;
+import java.util.List;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Inventory Admin Controller.
+ */
+@RestController
+public class InventoryAdminController {
+  private final InventoryDAO inventoryDAO;
+  private final InventoryIndexAdvisor inventoryIndexAdvisor;
+  private final InventoryRollups inventoryRollups;
+
+  /**
+   * Default Constructor.
+   * @param inventoryDAO inventoryDAO.
+   * @param inventoryIndexAdvisor inventoryIndexAdvisor.
+   * @param inventoryRollups inventoryRollups.
+   */
+  public InventoryAdminController(InventoryDAO inventoryDAO, InventoryIndexAdvisor inventoryIndexAdvisor,
+                                  InventoryRollups inventoryRollups) {
+    Assert.notNull(inventoryDAO, "Inventory DAO must not be null.");
+    Assert.notNull(inventoryIndexAdvisor, "Inventory Index Advisor must not be null.");
+    Assert.notNull(inventoryRollups, "Inventory Rollups must not be null.");
+    this.inventoryDAO = inventoryDAO;
+    this.inventoryIndexAdvisor = inventoryIndexAdvisor;
+    this.inventoryRollups = inventoryRollups;
+  }
+
+  /**
+   * Inventory near-cache hit and miss counters.
+   * @return Stats.
+   */
+  @GetMapping(value = "/admin/inventory/cache")
+  public CacheStats cacheStats() {
+    return this.inventoryDAO.cacheStats();
+  }
+
+  /**
+   * Explain every inventory query shape, flagging collection scans.
+   * @return Report per shape.
+   */
+  @GetMapping(value = "/admin/inventory/indexes")
+  public List<QueryShapeReport> indexReport() {
+    return this.inventoryIndexAdvisor.explain();
+  }
+
+  /**
+   * Recompute the inventory rollups from the inventory collection.
+   * @return Rebuilt rollups.
+   */
+  @PostMapping(value = "/admin/inventory/rollups")
+  public List<InventoryRollup> rebuildRollups() {
+    return this.inventoryRollups.rebuild();
+  }
+}
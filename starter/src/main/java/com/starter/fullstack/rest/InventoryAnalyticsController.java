@@ -0,0 +1,35 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.InventoryRollup;
+import com.starter.fullstack.dao.InventoryRollups;
+import java.util.List;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Inventory Analytics Controller.
+ */
+@RestController
+public class InventoryAnalyticsController {
+  private final InventoryRollups inventoryRollups;
+
+  /**
+   * Default Constructor.
+   * @param inventoryRollups inventoryRollups.
+   */
+  public InventoryAnalyticsController(InventoryRollups inventoryRollups) {
+    Assert.notNull(inventoryRollups, "Inventory Rollups must not be null.");
+    this.inventoryRollups = inventoryRollups;
+  }
+
+  /**
+   * Item count, total stock value and earliest bestBeforeDate per productType and unitOfMeasurement.
+   * Read from the maintained rollups, so the cost follows the number of groups, not of Inventory.
+   * @return Rollups ordered by productType and unitOfMeasurement.
+   */
+  @GetMapping(value = "/inventory/rollups")
+  public List<InventoryRollup> rollups() {
+    return this.inventoryRollups.findAll();
+  }
+}
@@ -0,0 +1,173 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryImported;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes InventoryChanges to Server-Sent Event subscribers. Publishing only queues the change for
+ * each subscriber, sending happens on a small pool of sender threads, so a write never waits on a
+ * client. Each subscriber queues at most one change per Inventory, a newer change replacing the one
+ * still waiting, and a subscriber that falls further behind than its queue capacity has its queue
+ * replaced by a single reload.
+ */
+public class InventoryChangeBroadcaster {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InventoryChangeBroadcaster.class);
+  private static final String RELOAD = "";
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService senders;
+  private final int queueCapacity;
+  private final Duration timeout;
+
+  /**
+   * Default Constructor.
+   * @param senderThreads threads sending to subscribers.
+   * @param queueCapacity changes queued per subscriber before it is told to reload instead.
+   * @param timeout time after which a subscription ends, clients then reconnect.
+   */
+  public InventoryChangeBroadcaster(int senderThreads, int queueCapacity, Duration timeout) {
+    Assert.isTrue(senderThreads > 0, "Sender threads must be positive.");
+    Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive.");
+    Assert.notNull(timeout, "Timeout must not be null.");
+    this.senders = Executors.newFixedThreadPool(senderThreads);
+    this.queueCapacity = queueCapacity;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Subscribe to InventoryChanges made from now on.
+   * @return Emitter for the response.
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = new SseEmitter(this.timeout.toMillis());
+    Subscriber subscriber = new Subscriber(emitter);
+    this.subscribers.add(subscriber);
+    emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+    emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+    emitter.onError(e -> this.subscribers.remove(subscriber));
+    return emitter;
+  }
+
+  /**
+   * Queue a change for every subscriber.
+   * @param change InventoryChange.
+   */
+  @EventListener
+  public void publish(InventoryChange change) {
+    for (Subscriber subscriber : this.subscribers) {
+      subscriber.offer(change);
+    }
+  }
+
+  /**
+   * Tell every subscriber to reload after a bulk import.
+   * @param imported InventoryImported.
+   */
+  @EventListener
+  public void imported(InventoryImported imported) {
+    publish(InventoryChange.reload());
+  }
+
+  /**
+   * End every subscription and stop the senders.
+   */
+  public void shutdown() {
+    this.senders.shutdownNow();
+    for (Subscriber subscriber : this.subscribers) {
+      subscriber.emitter.complete();
+    }
+    this.subscribers.clear();
+  }
+
+  /**
+   * One client and the changes waiting to be sent to it.
+   */
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    // Keyed by Inventory id, or RELOAD. Insertion order is the order the changes are sent in.
+    private final Map<String, InventoryChange> pending = new LinkedHashMap<>();
+    private boolean sending;
+
+    /**
+     * Default Constructor.
+     * @param emitter Emitter of the subscribed response.
+     */
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    /**
+     * Queue a change, coalescing it with any change of the same Inventory still waiting.
+     * @param change InventoryChange.
+     */
+    private synchronized void offer(InventoryChange change) {
+      if (this.pending.containsKey(RELOAD)) {
+        // The client reloads everything anyway.
+        return;
+      }
+
+      if (change.getType() == InventoryChange.Type.RELOAD) {
+        this.pending.clear();
+        this.pending.put(RELOAD, change);
+      } else {
+        this.pending.remove(change.getId());
+        this.pending.put(change.getId(), change);
+        if (this.pending.size() > InventoryChangeBroadcaster.this.queueCapacity) {
+          this.pending.clear();
+          this.pending.put(RELOAD, InventoryChange.reload());
+        }
+      }
+
+      if (!this.sending) {
+        this.sending = true;
+        InventoryChangeBroadcaster.this.senders.execute(this::send);
+      }
+    }
+
+    /**
+     * Send what is waiting, then hand the thread back if more arrived in the meantime.
+     */
+    private void send() {
+      List<InventoryChange> changes;
+      synchronized (this) {
+        if (this.pending.isEmpty()) {
+          this.sending = false;
+          return;
+        }
+        changes = new ArrayList<>(this.pending.values());
+        this.pending.clear();
+      }
+
+      try {
+        for (InventoryChange change : changes) {
+          this.emitter.send(SseEmitter.event()
+              .name(change.getType().name().toLowerCase(Locale.ROOT))
+              .data(change, MediaType.APPLICATION_JSON));
+        }
+      } catch (IOException | IllegalStateException e) {
+        // The client went away or the subscription already ended.
+        LOGGER.debug("Dropping Inventory change subscriber", e);
+        InventoryChangeBroadcaster.this.subscribers.remove(this);
+        this.emitter.completeWithError(e);
+        return;
+      }
+      InventoryChangeBroadcaster.this.senders.execute(this::send);
+    }
+  }
+}
@@ -1,21 +1,39 @@
 package com.starter.fullstack.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.starter.fullstack.api.BulkDeleteResult;
 import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryFields;
+import com.starter.fullstack.api.InventoryFilter;
+import com.starter.fullstack.api.StoreUpdateResult;
 import com.starter.fullstack.api.UnitOfMeasurement;
 import com.starter.fullstack.dao.InventoryDAO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -24,25 +42,55 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 public class InventoryController {
+  static final String NDJSON = "application/x-ndjson";
   private final InventoryDAO inventoryDAO;
+  private final ObjectMapper objectMapper;
+  private final CollectionETags collectionETags;
 
   /**
    * Default Constructor.
    * @param inventoryDAO inventoryDAO.
+   * @param objectMapper objectMapper.
+   * @param collectionETags collectionETags.
    */
-  public InventoryController(InventoryDAO inventoryDAO) {
+  public InventoryController(InventoryDAO inventoryDAO, ObjectMapper objectMapper, CollectionETags collectionETags) {
     Assert.notNull(inventoryDAO, "Inventory DAO must not be null.");
+    Assert.notNull(objectMapper, "Object Mapper must not be null.");
+    Assert.notNull(collectionETags, "Collection ETags must not be null.");
     this.inventoryDAO = inventoryDAO;
+    this.objectMapper = objectMapper;
+    this.collectionETags = collectionETags;
   }
 
 
   /**
-   * Find Inventory.
+   * Find Inventory. Returns every Inventory unless a page size is given, in which case the
+   * cursor for the next page is returned in the X-Next-Cursor header.
+   * @param size maximum number of Inventory to return.
+   * @param cursor X-Next-Cursor of the previous page.
+   * @param sortVariable variable to page by: name or productType, defaults to id.
+   * @param direction direction to sort in.
+   * @param withTotal include the estimated total in the X-Total-Count header.
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
    * @return List of Inventory.
    */
   @GetMapping(value = "/inventory")
-  public List<Inventory> findInventories() {
-    return this.inventoryDAO.findAll();
+  public ResponseEntity<MappingJacksonValue> findInventories(@RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) String sortVariable,
+                                                            @RequestParam(defaultValue = "asc") String direction,
+                                                            @RequestParam(defaultValue = "false") boolean withTotal,
+                                                            @RequestParam(required = false) List<String> fields,
+                                                            WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    if (size == null) {
+      return ResponseEntity.ok(withFields(this.inventoryDAO.findAll(fields), fields));
+    }
+    return PageResponses.of(this.inventoryDAO.findPage(size, cursor, sortVariable, direction, withTotal, fields),
+      items -> withFields(items, fields));
   }
 
 
@@ -50,11 +98,20 @@ public class InventoryController {
    * Find Inventory.
    * @param sortVariable variable to sort by
    * @param direction direction to sort in
+   * @param limit only return the first Inventory in sort order
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
    * @return List of Inventory.
    */
   @GetMapping(value = "/inventorySorted/")
-  public List<Inventory> findSortedInventories(@RequestParam String sortVariable, @RequestParam String direction) {
-    return this.inventoryDAO.findSorted(sortVariable, direction);
+  public MappingJacksonValue findSortedInventories(@RequestParam String sortVariable, @RequestParam String direction,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(required = false) List<String> fields,
+                                                   WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    return withFields(this.inventoryDAO.findSorted(sortVariable, direction, limit, fields), fields);
   }
 
 
@@ -64,13 +121,174 @@ public class InventoryController {
    * @param unitOfMeasure Unit of measurement to filter on: c, gal, oz, pt, lb, qt
    * @param quantity Amount to look for. Will find specific amount given
    * @param bestBefore Best before date to look for. Will give products before date
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
    * @return Found Inventory.
    */
   @GetMapping(value = "/filterRetrieve/")
-  public List<Inventory> filterRetrieve(@RequestParam(required = false) UnitOfMeasurement unitOfMeasure, 
-                                        @RequestParam(required = false) BigDecimal quantity,
-                                        @RequestParam(required = false) Instant bestBefore) {
-    return this.inventoryDAO.filterRetrieve(unitOfMeasure, quantity, bestBefore);
+  public MappingJacksonValue filterRetrieve(@RequestParam(required = false) UnitOfMeasurement unitOfMeasure, 
+                                            @RequestParam(required = false) BigDecimal quantity,
+                                            @RequestParam(required = false) Instant bestBefore,
+                                            @RequestParam(required = false) List<String> fields,
+                                            WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    return withFields(this.inventoryDAO.filterRetrieve(unitOfMeasure, quantity, bestBefore, fields), fields);
+  }
+
+  /**
+   * Search Inventory with range and set conditions on the allow-listed fields, combined with an
+   * optional sort and limit.
+   * @param filter conditions, sort, limit and fields.
+   * @return Found Inventory.
+   */
+  @PostMapping(value = "/inventory/search")
+  public MappingJacksonValue search(@RequestBody InventoryFilter filter) {
+    return withFields(this.inventoryDAO.search(filter), filter.getFields());
+  }
+
+  /**
+   * Suggest Inventory while a search box is typed in, matching word prefixes of the name,
+   * productType and description.
+   * @param q text typed so far.
+   * @param limit maximum number of suggestions.
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
+   * @return Found Inventory, best match first.
+   */
+  @GetMapping(value = "/inventory/typeahead")
+  public MappingJacksonValue typeahead(@RequestParam String q, @RequestParam(defaultValue = "10") int limit,
+                                       @RequestParam(required = false) List<String> fields,
+                                       WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    return withFields(this.inventoryDAO.typeahead(q, limit, fields), fields);
+  }
+
+  /**
+   * Full-text search of the name, productType and description.
+   * @param q words or "quoted phrases" to search for, -word to exclude.
+   * @param limit maximum number of Inventory.
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
+   * @return Found Inventory, most relevant first.
+   */
+  @GetMapping(value = "/inventory/text")
+  public MappingJacksonValue textSearch(@RequestParam String q, @RequestParam(defaultValue = "20") int limit,
+                                        @RequestParam(required = false) List<String> fields,
+                                        WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    return withFields(this.inventoryDAO.textSearch(q, limit, fields), fields);
+  }
+
+  /**
+   * Find Inventory holding between min and max of a unit, counting every unit of the same
+   * dimension, so min=2 with GALLON also finds 32 cups.
+   * @param unit unit min and max are given in.
+   * @param min least quantity, optional.
+   * @param max greatest quantity, optional.
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
+   * @return Found Inventory, smallest quantity first.
+   */
+  @GetMapping(value = "/inventory/quantity")
+  public MappingJacksonValue findByQuantity(@RequestParam UnitOfMeasurement unit,
+                                            @RequestParam(required = false) BigDecimal min,
+                                            @RequestParam(required = false) BigDecimal max,
+                                            @RequestParam(required = false) List<String> fields,
+                                            WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    return withFields(this.inventoryDAO.findByQuantity(unit, min, max, fields), fields);
+  }
+
+
+
+  /**
+   * Find the Inventory available at a store. Returns all of it unless a page size is given, in which
+   * case the cursor for the next page is returned in the X-Next-Cursor header.
+   * @param store store name.
+   * @param productType only return Inventory of this productType.
+   * @param size maximum number of Inventory to return.
+   * @param cursor X-Next-Cursor of the previous page.
+   * @param fields only return these Inventory fields, or "summary".
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
+   * @return List of Inventory, in id order.
+   */
+  @GetMapping(value = "/inventory/stores/{store}")
+  public ResponseEntity<MappingJacksonValue> findByStore(@PathVariable String store,
+                                                         @RequestParam(required = false) String productType,
+                                                         @RequestParam(required = false) Integer size,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) List<String> fields,
+                                                         WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.inventory())) {
+      return null;
+    }
+    if (size == null) {
+      return ResponseEntity.ok(withFields(this.inventoryDAO.findByStore(store, productType, fields), fields));
+    }
+    return PageResponses.of(this.inventoryDAO.findStorePage(store, productType, size, cursor, fields),
+      items -> withFields(items, fields));
+  }
+
+  /**
+   * Make Inventory available at a store.
+   * @param store store name.
+   * @param ids Ids of Inventory.
+   * @return Number of Inventory changed.
+   */
+  @PostMapping(value = "/inventory/stores/{store}")
+  public StoreUpdateResult addStore(@PathVariable String store, @RequestBody List<String> ids) {
+    return this.inventoryDAO.addStore(store, ids);
+  }
+
+  /**
+   * Stop Inventory being available at a store.
+   * @param store store name.
+   * @param ids Ids of Inventory.
+   * @return Number of Inventory changed.
+   */
+  @DeleteMapping(value = "/inventory/stores/{store}")
+  public StoreUpdateResult removeStore(@PathVariable String store, @RequestBody List<String> ids) {
+    return this.inventoryDAO.removeStore(store, ids);
+  }
+
+
+
+  /**
+   * Export Inventory as newline delimited JSON, one Inventory per line, written as it is read
+   * from the database.
+   * @param unitOfMeasure Unit of measurement to filter on, optional.
+   * @param quantity Amount to look for, optional.
+   * @param bestBefore Best before date to look for, optional.
+   * @return Streamed Inventory.
+   */
+  @GetMapping(value = "/inventory/export", produces = NDJSON)
+  public StreamingResponseBody export(@RequestParam(required = false) UnitOfMeasurement unitOfMeasure,
+                                      @RequestParam(required = false) BigDecimal quantity,
+                                      @RequestParam(required = false) Instant bestBefore) {
+    return outputStream -> {
+      try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+        // Lines are delimited explicitly, so no separator between root values.
+        generator.setRootValueSeparator(null);
+        this.inventoryDAO.stream(unitOfMeasure, quantity, bestBefore, inventory -> {
+          try {
+            this.objectMapper.writeValue(generator, inventory);
+            generator.writeRaw('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
   }
 
 
@@ -87,33 +305,31 @@ public class InventoryController {
 
 
   /**
-   * update Inventory
+   * update Inventory, answering 409 if it changed since the caller read its version
    * @param inventory inventory 
-   * @return inventory
+   * @return stored inventory
    */
   @PostMapping(value = "/update")
   public Inventory update(@Valid @RequestBody Inventory inventory) {
-    Optional<Inventory> optInv = this.inventoryDAO.update(inventory.getId(), inventory);
-
-    if (optInv.isEmpty()) {
-      return null;
-    }
-    return optInv.get(); 
+    return this.inventoryDAO.update(inventory.getId(), inventory)
+      .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+        "Inventory " + inventory.getId() + " not found."));
   }
 
 
   /**
-   * Retrieve Inventory.
+   * Retrieve Inventory, tagged with its version.
    * @param id Inventory id to Retrieve.
+   * @param webRequest answered 304 when If-None-Match holds the stored version.
    * @return Found Inventory.
    */
   @GetMapping(value = "/retrieveInventory/")
   @ResponseBody
-  public Inventory retrieveInventoryById(@RequestParam String id) {
+  public Inventory retrieveInventoryById(@RequestParam String id, WebRequest webRequest) {
 
     Optional<Inventory> optInv = this.inventoryDAO.retrieve(id);
 
-    if (optInv.isEmpty()) {
+    if (optInv.isEmpty() || webRequest.checkNotModified(String.valueOf(optInv.get().getVersion()))) {
       return null;
     }
     return optInv.get(); 
@@ -134,4 +350,35 @@ public class InventoryController {
 
     return optInv.get();
   } 
+
+  /**
+   * Delete many Inventory By Id in bulk.
+   *
+   * @param ids Ids of Inventory.
+   * @param returnDocuments whether to return the deleted Inventory.
+   * @return Deleted and missing ids.
+   */
+  @DeleteMapping(value = "/inventory/bulk")
+  public BulkDeleteResult<Inventory> deleteInventoriesById(@RequestBody List<String> ids,
+                                                           @RequestParam(defaultValue = "false")
+                                                           boolean returnDocuments) {
+    Assert.notEmpty(ids, "Inventory Ids were not provided");
+    return this.inventoryDAO.deleteAll(ids, returnDocuments);
+  }
+
+  /**
+   * Serialize only the requested Inventory fields.
+   * @param body Inventory to serialize.
+   * @param fields requested fields, all when empty.
+   * @return body with its field filter.
+   */
+  private static MappingJacksonValue withFields(Object body, List<String> fields) {
+    MappingJacksonValue value = new MappingJacksonValue(body);
+    Set<String> projected = InventoryFields.expand(fields);
+    if (!projected.isEmpty()) {
+      value.setFilters(new SimpleFilterProvider()
+          .addFilter(InventoryFields.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(projected)));
+    }
+    return value;
+  }
 }
@@ -0,0 +1,35 @@
+package com.starter.fullstack.rest;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Inventory Event Controller.
+ */
+@RestController
+public class InventoryEventController {
+  private final InventoryChangeBroadcaster inventoryChangeBroadcaster;
+
+  /**
+   * Default Constructor.
+   * @param inventoryChangeBroadcaster inventoryChangeBroadcaster.
+   */
+  public InventoryEventController(InventoryChangeBroadcaster inventoryChangeBroadcaster) {
+    Assert.notNull(inventoryChangeBroadcaster, "Inventory Change Broadcaster must not be null.");
+    this.inventoryChangeBroadcaster = inventoryChangeBroadcaster;
+  }
+
+  /**
+   * Stream Inventory changes as Server-Sent Events named created, updated, deleted or reload, each
+   * carrying the id and new version so clients can patch what they already hold. A reload means
+   * changes were missed and the collection should be fetched again.
+   * @return Event stream.
+   */
+  @GetMapping(value = "/inventory/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter inventoryEvents() {
+    return this.inventoryChangeBroadcaster.subscribe();
+  }
+}
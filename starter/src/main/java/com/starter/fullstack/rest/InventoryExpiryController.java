@@ -0,0 +1,36 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.InventoryExpiry;
+import com.starter.fullstack.dao.InventoryExpiryScanner;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Inventory Expiry Controller.
+ */
+@RestController
+public class InventoryExpiryController {
+  private final InventoryExpiryScanner inventoryExpiryScanner;
+
+  /**
+   * Default Constructor.
+   * @param inventoryExpiryScanner inventoryExpiryScanner.
+   */
+  public InventoryExpiryController(InventoryExpiryScanner inventoryExpiryScanner) {
+    Assert.notNull(inventoryExpiryScanner, "Inventory Expiry Scanner must not be null.");
+    this.inventoryExpiryScanner = inventoryExpiryScanner;
+  }
+
+  /**
+   * Inventory expiring within the tracked horizon and Inventory that expired most recently, read
+   * from memory. Expiring Inventory is read from the database once per scan, not per request.
+   * @param limit maximum number of each.
+   * @return InventoryExpiry.
+   */
+  @GetMapping(value = "/inventory/expiry")
+  public InventoryExpiry expiry(@RequestParam(defaultValue = "100") int limit) {
+    return this.inventoryExpiryScanner.report(limit);
+  }
+}
@@ -0,0 +1,12 @@
+package com.starter.fullstack.rest;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.starter.fullstack.api.InventoryFields;
+
+/**
+ * Jackson mix-in naming the filter responses narrow Inventory fields with. Only the application's
+ * ObjectMapper carries it, so any other mapper writes Inventory without needing the filter.
+ */
+@JsonFilter(InventoryFields.FILTER)
+public interface InventoryFieldsMixIn {
+}
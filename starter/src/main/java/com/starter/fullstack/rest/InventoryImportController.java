@@ -0,0 +1,57 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.ImportFormat;
+import com.starter.fullstack.api.ImportJob;
+import com.starter.fullstack.dao.InventoryImporter;
+import java.io.IOException;
+import java.net.URI;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Inventory Import Controller.
+ */
+@RestController
+public class InventoryImportController {
+  private final InventoryImporter inventoryImporter;
+
+  /**
+   * Default Constructor.
+   * @param inventoryImporter inventoryImporter.
+   */
+  public InventoryImportController(InventoryImporter inventoryImporter) {
+    Assert.notNull(inventoryImporter, "Inventory Importer must not be null.");
+    this.inventoryImporter = inventoryImporter;
+  }
+
+  /**
+   * Start importing Inventory from a JSON array, newline delimited JSON or CSV body.
+   * @param request request carrying the body.
+   * @return Queued Job.
+   * @throws IOException if the body can not be read.
+   */
+  @PostMapping(value = "/inventory/import", consumes = {"application/json", "application/x-ndjson", "text/csv"})
+  public ResponseEntity<ImportJob> importInventory(HttpServletRequest request) throws IOException {
+    ImportJob job = this.inventoryImporter.submit(request.getInputStream(),
+        ImportFormat.fromContentType(request.getContentType()));
+    return ResponseEntity.accepted().location(URI.create("/inventory/import/" + job.getId())).body(job);
+  }
+
+  /**
+   * Retrieve Import Job progress and row errors.
+   * @param id Job id.
+   * @return Found Job.
+   */
+  @GetMapping(value = "/inventory/import/{id}")
+  public ImportJob retrieveImportJob(@PathVariable String id) {
+    return this.inventoryImporter.find(id)
+      .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job " + id + " not found."));
+  }
+}
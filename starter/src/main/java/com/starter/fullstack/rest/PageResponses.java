@@ -0,0 +1,50 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.CursorPage;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Maps a CursorPage onto a list response body, carrying the paging state in headers
+ * so unpaged clients keep receiving a plain JSON array.
+ */
+final class PageResponses {
+  static final String NEXT_CURSOR = "X-Next-Cursor";
+  static final String TOTAL_COUNT = "X-Total-Count";
+
+  /**
+   * Utility Class.
+   */
+  private PageResponses() {
+  }
+
+  /**
+   * Build a response for a page.
+   * @param page page.
+   * @param <T> type of item.
+   * @return response.
+   */
+  static <T> ResponseEntity<List<T>> of(CursorPage<T> page) {
+    return of(page, Function.identity());
+  }
+
+  /**
+   * Build a response for a page, wrapping the items.
+   * @param page page.
+   * @param body wraps the items into the response body.
+   * @param <T> type of item.
+   * @param <B> type of body.
+   * @return response.
+   */
+  static <T, B> ResponseEntity<B> of(CursorPage<T> page, Function<List<T>, B> body) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      builder.header(NEXT_CURSOR, page.getNextCursor());
+    }
+    if (page.getEstimatedTotal() != null) {
+      builder.header(TOTAL_COUNT, String.valueOf(page.getEstimatedTotal()));
+    }
+    return builder.body(body.apply(page.getItems()));
+  }
+}
@@ -1,15 +1,19 @@
 package com.starter.fullstack.rest;
 
 import com.starter.fullstack.api.Product;
+import com.starter.fullstack.dao.ProductCatalog;
 import com.starter.fullstack.dao.ProductDAO;
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Product Controller.
@@ -17,23 +21,45 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class ProductController {
   private final ProductDAO productDAO;
+  private final ProductCatalog productCatalog;
+  private final CollectionETags collectionETags;
 
   /**
    * Default Constructor.
    * @param productDAO productDAO.
+   * @param productCatalog productCatalog.
+   * @param collectionETags collectionETags.
    */
-  public ProductController(ProductDAO productDAO) {
+  public ProductController(ProductDAO productDAO, ProductCatalog productCatalog, CollectionETags collectionETags) {
     Assert.notNull(productDAO, "Product DAO must not be null.");
+    Assert.notNull(productCatalog, "Product Catalog must not be null.");
+    Assert.notNull(collectionETags, "Collection ETags must not be null.");
     this.productDAO = productDAO;
+    this.productCatalog = productCatalog;
+    this.collectionETags = collectionETags;
   }
 
   /**
-   * Find Products.
+   * Find Products. Returns every Product unless a page size is given, in which case the
+   * cursor for the next page is returned in the X-Next-Cursor header.
+   * @param size maximum number of Products to return.
+   * @param cursor X-Next-Cursor of the previous page.
+   * @param withTotal include the estimated total in the X-Total-Count header.
+   * @param webRequest answered 304 when If-None-Match holds the current collection ETag.
    * @return List of Product.
    */
   @GetMapping("/products")
-  public List<Product> findProducts() {
-    return this.productDAO.findAll();
+  public ResponseEntity<List<Product>> findProducts(@RequestParam(required = false) Integer size,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "false") boolean withTotal,
+                                                    WebRequest webRequest) {
+    if (webRequest.checkNotModified(this.collectionETags.products())) {
+      return null;
+    }
+    if (size == null) {
+      return ResponseEntity.ok(this.productDAO.findAll());
+    }
+    return PageResponses.of(this.productDAO.findPage(size, cursor, withTotal));
   }
 
   /**
@@ -43,7 +69,10 @@ public class ProductController {
    */
   @PostMapping("/products")
   public Product saveProduct(@Valid @RequestBody Product product) {
-    return this.productDAO.save(product);
+    Product saved = this.productDAO.save(product);
+    this.productCatalog.refresh();
+    this.collectionETags.productsChanged();
+    return saved;
   }
 
   /**
@@ -55,6 +84,8 @@ public class ProductController {
   public void deleteProductById(@RequestBody List<String> ids) {
     Assert.notEmpty(ids, "Product Ids were not provided");
     this.productDAO.deleteProductsByIdIn(ids);
+    this.productCatalog.refresh();
+    this.collectionETags.productsChanged();
   }
 }
 
@@ -0,0 +1,374 @@
+package com.starter.fullstack.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.starter.fullstack.api.CursorPage;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryFields;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import com.starter.fullstack.dao.ReactiveInventoryDAO;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of InventoryController, served under /reactive from its own event loop.
+ * Lists are written element by element as the database cursor delivers them, so a slow client
+ * slows the cursor down instead of the response being buffered in memory.
+ */
+public class ReactiveInventoryHandler {
+  static final String PREFIX = "/reactive";
+  private static final List<MediaType> STREAMING_TYPES =
+      List.of(MediaType.APPLICATION_STREAM_JSON, MediaType.parseMediaType(InventoryController.NDJSON));
+  private final ReactiveInventoryDAO inventoryDAO;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+
+  /**
+   * Default Constructor.
+   * @param inventoryDAO reactive inventoryDAO.
+   * @param objectMapper objectMapper.
+   * @param validator validator for Inventory bodies.
+   */
+  public ReactiveInventoryHandler(ReactiveInventoryDAO inventoryDAO, ObjectMapper objectMapper, Validator validator) {
+    Assert.notNull(inventoryDAO, "Reactive Inventory DAO must not be null.");
+    Assert.notNull(objectMapper, "Object Mapper must not be null.");
+    Assert.notNull(validator, "Validator must not be null.");
+    this.inventoryDAO = inventoryDAO;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+  }
+
+  /**
+   * Routes mirroring InventoryController.
+   * @return routes.
+   */
+  public RouterFunction<ServerResponse> routes() {
+    return RouterFunctions.route()
+      .GET(PREFIX + "/inventory/export", this::export)
+      .GET(PREFIX + "/inventory", this::findInventories)
+      .GET(PREFIX + "/inventorySorted/", this::findSortedInventories)
+      .GET(PREFIX + "/filterRetrieve/", this::filterRetrieve)
+      .GET(PREFIX + "/retrieveInventory/", this::retrieveInventoryById)
+      .POST(PREFIX + "/inventory", this::create)
+      .POST(PREFIX + "/update", this::update)
+      .DELETE(PREFIX + "/inventory/bulk", this::deleteInventoriesById)
+      .DELETE(PREFIX + "/inventory", this::deleteInventoryById)
+      .onError(ResponseStatusException.class, (e, request) -> message(e.getStatus(), e.getReason()))
+      .onError(IllegalArgumentException.class, (e, request) -> message(HttpStatus.BAD_REQUEST, e.getMessage()))
+      .onError(OptimisticLockingFailureException.class, (e, request) -> message(HttpStatus.CONFLICT, e.getMessage()))
+      .build();
+  }
+
+  /**
+   * Find Inventory, every Inventory unless a page size is given.
+   * @param request request.
+   * @return Inventory.
+   */
+  Mono<ServerResponse> findInventories(ServerRequest request) {
+    List<String> fields = fields(request);
+    if (request.queryParam("size").isEmpty()) {
+      return Mono.defer(() -> list(request, this.inventoryDAO.findAll(fields), fields));
+    }
+
+    return Mono.defer(() -> this.inventoryDAO.findPage(Integer.parseInt(request.queryParam("size").get()),
+        request.queryParam("cursor").orElse(null), request.queryParam("sortVariable").orElse(null),
+        request.queryParam("direction").orElse("asc"),
+        Boolean.parseBoolean(request.queryParam("withTotal").orElse("false")), fields))
+      .flatMap(page -> page(page, fields));
+  }
+
+  /**
+   * Find the first Inventory in sort order.
+   * @param request request.
+   * @return Inventory.
+   */
+  Mono<ServerResponse> findSortedInventories(ServerRequest request) {
+    List<String> fields = fields(request);
+    return Mono.defer(() -> list(request, this.inventoryDAO.findSorted(required(request, "sortVariable"),
+      required(request, "direction"), request.queryParam("limit").map(Integer::valueOf).orElse(null), fields),
+      fields));
+  }
+
+  /**
+   * Find filtered Inventory.
+   * @param request request.
+   * @return Inventory.
+   */
+  Mono<ServerResponse> filterRetrieve(ServerRequest request) {
+    List<String> fields = fields(request);
+    return Mono.defer(() -> list(request, this.inventoryDAO.filterRetrieve(unitOfMeasure(request), quantity(request),
+      bestBefore(request), fields), fields));
+  }
+
+  /**
+   * Export Inventory as newline delimited JSON.
+   * @param request request.
+   * @return Streamed Inventory.
+   */
+  Mono<ServerResponse> export(ServerRequest request) {
+    return Mono.defer(() -> lines(MediaType.parseMediaType(InventoryController.NDJSON),
+      this.inventoryDAO.filterRetrieve(unitOfMeasure(request), quantity(request), bestBefore(request), null),
+      this.objectMapper.writer()));
+  }
+
+  /**
+   * Create Inventory.
+   * @param request request.
+   * @return Created Inventory.
+   */
+  Mono<ServerResponse> create(ServerRequest request) {
+    return body(request).flatMap(this.inventoryDAO::create).flatMap(this::json);
+  }
+
+  /**
+   * Update Inventory, answering 409 if it changed since the caller read its version.
+   * @param request request.
+   * @return Stored Inventory.
+   */
+  Mono<ServerResponse> update(ServerRequest request) {
+    return body(request)
+      .flatMap(inventory -> this.inventoryDAO.update(inventory.getId(), inventory)
+        .switchIfEmpty(Mono.defer(() -> Mono.<Inventory>error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+          "Inventory " + inventory.getId() + " not found.")))))
+      .flatMap(this::json);
+  }
+
+  /**
+   * Retrieve Inventory.
+   * @param request request.
+   * @return Found Inventory, an empty body if there is none.
+   */
+  Mono<ServerResponse> retrieveInventoryById(ServerRequest request) {
+    return Mono.defer(() -> this.inventoryDAO.retrieve(required(request, "id")))
+      .flatMap(this::json)
+      .switchIfEmpty(ServerResponse.ok().build());
+  }
+
+  /**
+   * Delete Inventory By Id.
+   * @param request request.
+   * @return Last deleted Inventory, an empty body if none was deleted.
+   */
+  Mono<ServerResponse> deleteInventoryById(ServerRequest request) {
+    return request.bodyToMono(new ParameterizedTypeReference<List<String>>() { })
+      .flatMap(this.inventoryDAO::delete)
+      .flatMap(this::json)
+      .switchIfEmpty(ServerResponse.ok().build());
+  }
+
+  /**
+   * Delete many Inventory By Id in bulk.
+   * @param request request.
+   * @return Deleted and missing ids.
+   */
+  Mono<ServerResponse> deleteInventoriesById(ServerRequest request) {
+    boolean returnDocuments = Boolean.parseBoolean(request.queryParam("returnDocuments").orElse("false"));
+    return request.bodyToMono(new ParameterizedTypeReference<List<String>>() { })
+      .defaultIfEmpty(List.of())
+      .flatMap(ids -> {
+        Assert.notEmpty(ids, "Inventory Ids were not provided");
+        return this.inventoryDAO.deleteAll(ids, returnDocuments);
+      })
+      .flatMap(this::json);
+  }
+
+  /**
+   * Write a list of Inventory, as a JSON array unless the client accepts a stream of JSON values.
+   * Either way each Inventory is written as soon as it is read.
+   * @param request request.
+   * @param inventory Inventory to write.
+   * @param fields requested fields, all when empty.
+   * @return response.
+   */
+  private Mono<ServerResponse> list(ServerRequest request, Flux<Inventory> inventory, List<String> fields) {
+    ObjectWriter writer = writer(fields);
+    for (MediaType accepted : request.headers().accept()) {
+      for (MediaType streaming : STREAMING_TYPES) {
+        if (accepted.isCompatibleWith(streaming) && !accepted.isWildcardSubtype()) {
+          return lines(streaming, inventory, writer);
+        }
+      }
+    }
+
+    Flux<String> array = Flux.concat(Flux.just("["),
+      inventory.index().map(item -> (item.getT1() == 0 ? "" : ",") + write(writer, item.getT2())),
+      Flux.just("]"));
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(array, String.class);
+  }
+
+  /**
+   * Write a stream of Inventory, one JSON value per line.
+   * @param contentType content type of the stream.
+   * @param inventory Inventory to write.
+   * @param writer writer for one Inventory.
+   * @return response.
+   */
+  private static Mono<ServerResponse> lines(MediaType contentType, Flux<Inventory> inventory, ObjectWriter writer) {
+    return ServerResponse.ok().contentType(contentType)
+      .body(inventory.map(item -> write(writer, item) + "\n"), String.class);
+  }
+
+  /**
+   * Write a page of Inventory, carrying the paging state in headers.
+   * @param page page.
+   * @param fields requested fields, all when empty.
+   * @return response.
+   */
+  private Mono<ServerResponse> page(CursorPage<Inventory> page, List<String> fields) {
+    ServerResponse.BodyBuilder builder = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+    if (page.getNextCursor() != null) {
+      builder.header(PageResponses.NEXT_CURSOR, page.getNextCursor());
+    }
+    if (page.getEstimatedTotal() != null) {
+      builder.header(PageResponses.TOTAL_COUNT, String.valueOf(page.getEstimatedTotal()));
+    }
+    return builder.bodyValue(write(writer(fields), page.getItems()));
+  }
+
+  /**
+   * Write a single value as JSON.
+   * @param body value.
+   * @return response.
+   */
+  private Mono<ServerResponse> json(Object body) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+      .bodyValue(write(this.objectMapper.writer(), body));
+  }
+
+  /**
+   * Read and validate the Inventory in the request body.
+   * @param request request.
+   * @return Inventory.
+   */
+  private Mono<Inventory> body(ServerRequest request) {
+    return request.bodyToMono(Inventory.class)
+      .switchIfEmpty(Mono.defer(() -> Mono.<Inventory>error(new ServerWebInputException("Inventory was not provided"))))
+      .flatMap(inventory -> {
+        Set<ConstraintViolation<Inventory>> violations = this.validator.validate(inventory);
+        if (!violations.isEmpty()) {
+          ConstraintViolation<Inventory> violation = violations.iterator().next();
+          return Mono.<Inventory>error(
+            new ServerWebInputException(violation.getPropertyPath() + " " + violation.getMessage()));
+        }
+        return Mono.just(inventory);
+      });
+  }
+
+  /**
+   * Writer serializing only the requested Inventory fields.
+   * @param fields requested fields, all when empty.
+   * @return writer.
+   */
+  private ObjectWriter writer(List<String> fields) {
+    Set<String> projected = InventoryFields.expand(fields);
+    if (projected.isEmpty()) {
+      return this.objectMapper.writer();
+    }
+    return this.objectMapper.writer(new SimpleFilterProvider()
+      .addFilter(InventoryFields.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(projected)));
+  }
+
+  /**
+   * Serialize a value.
+   * @param writer writer.
+   * @param value value.
+   * @return JSON.
+   */
+  private static String write(ObjectWriter writer, Object value) {
+    try {
+      return writer.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Requested fields, given either repeated or comma separated.
+   * @param request request.
+   * @return fields, empty for all.
+   */
+  private static List<String> fields(ServerRequest request) {
+    List<String> fields = new ArrayList<>();
+    for (String value : request.queryParams().getOrDefault("fields", List.of())) {
+      fields.addAll(StringUtils.commaDelimitedListToSet(value));
+    }
+    return fields;
+  }
+
+  /**
+   * Read a required query parameter.
+   * @param request request.
+   * @param name parameter name.
+   * @return value.
+   */
+  private static String required(ServerRequest request, String name) {
+    return request.queryParam(name)
+      .orElseThrow(() -> new ServerWebInputException("Required parameter '" + name + "' is not present"));
+  }
+
+  /**
+   * Unit of measurement filter.
+   * @param request request.
+   * @return unit, null when not given.
+   */
+  private static UnitOfMeasurement unitOfMeasure(ServerRequest request) {
+    return request.queryParam("unitOfMeasure").map(UnitOfMeasurement::valueOf).orElse(null);
+  }
+
+  /**
+   * Amount filter.
+   * @param request request.
+   * @return amount, null when not given.
+   */
+  private static BigDecimal quantity(ServerRequest request) {
+    return request.queryParam("quantity").map(BigDecimal::new).orElse(null);
+  }
+
+  /**
+   * Best before filter.
+   * @param request request.
+   * @return date, null when not given.
+   */
+  private static Instant bestBefore(ServerRequest request) {
+    try {
+      return request.queryParam("bestBefore").map(Instant::parse).orElse(null);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("bestBefore is not an ISO instant.", e);
+    }
+  }
+
+  /**
+   * Plain text error response.
+   * @param status status.
+   * @param message message.
+   * @return response.
+   */
+  private static Mono<ServerResponse> message(HttpStatus status, String message) {
+    return message == null ? ServerResponse.status(status).build()
+      : ServerResponse.status(status).contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+  }
+}
@@ -0,0 +1,36 @@
+package com.starter.fullstack.rest;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps exceptions thrown by the DAOs onto HTTP statuses.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+  /**
+   * Invalid arguments from the caller are a bad request.
+   * @param e exception.
+   * @return message.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public String badRequest(IllegalArgumentException e) {
+    return e.getMessage();
+  }
+
+  /**
+   * Writes against a stale version conflict with the stored document.
+   * @param e exception.
+   * @return message.
+   */
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public String conflict(OptimisticLockingFailureException e) {
+    return e.getMessage();
+  }
+}
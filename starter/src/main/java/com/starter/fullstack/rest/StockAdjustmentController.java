@@ -0,0 +1,53 @@
+package com.starter.fullstack.rest;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.StockAdjustment;
+import com.starter.fullstack.dao.InventoryDAO;
+import com.starter.fullstack.dao.StockAdjustmentBuffer;
+import javax.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Stock Adjustment Controller.
+ */
+@RestController
+public class StockAdjustmentController {
+  private final InventoryDAO inventoryDAO;
+  private final StockAdjustmentBuffer stockAdjustmentBuffer;
+
+  /**
+   * Default Constructor.
+   * @param inventoryDAO inventoryDAO.
+   * @param stockAdjustmentBuffer stockAdjustmentBuffer.
+   */
+  public StockAdjustmentController(InventoryDAO inventoryDAO, StockAdjustmentBuffer stockAdjustmentBuffer) {
+    Assert.notNull(inventoryDAO, "Inventory DAO must not be null.");
+    Assert.notNull(stockAdjustmentBuffer, "Stock Adjustment Buffer must not be null.");
+    this.inventoryDAO = inventoryDAO;
+    this.stockAdjustmentBuffer = stockAdjustmentBuffer;
+  }
+
+  /**
+   * Add to, or remove from, the amount of one Inventory without reading or rewriting the rest of it.
+   * Answers 400 when the amount would go negative. With writeBehind the delta is buffered, summed
+   * with the other deltas of the Inventory and applied within the flush interval, and 202 is
+   * answered at once. A buffered delta that would go negative is dropped when flushed.
+   * @param adjustment adjustment.
+   * @param writeBehind buffer the adjustment instead of applying it now.
+   * @return Adjusted Inventory, none when buffered.
+   */
+  @PostMapping(value = "/inventory/adjust")
+  public ResponseEntity<Inventory> adjust(@Valid @RequestBody StockAdjustment adjustment,
+                                          @RequestParam(defaultValue = "false") boolean writeBehind) {
+    if (writeBehind) {
+      this.stockAdjustmentBuffer.add(adjustment.getId(), adjustment.getDelta());
+      return ResponseEntity.accepted().build();
+    }
+    return ResponseEntity.of(this.inventoryDAO.adjustAmount(adjustment.getId(), adjustment.getDelta()));
+  }
+}
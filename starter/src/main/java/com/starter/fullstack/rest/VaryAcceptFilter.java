@@ -0,0 +1,31 @@
+package com.starter.fullstack.rest;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Adds Vary: Accept to every response. Bodies are negotiated between JSON, CBOR and Smile, and the
+ * forms of one resource share its ETag, so a cache must also key what it stores on Accept.
+ */
+public class VaryAcceptFilter extends OncePerRequestFilter {
+
+  /**
+   * Add the header before the response can be committed.
+   * @param request request.
+   * @param response response.
+   * @param chain filter chain.
+   * @throws ServletException see FilterChain
+   * @throws IOException see FilterChain
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    chain.doFilter(request, response);
+  }
+}
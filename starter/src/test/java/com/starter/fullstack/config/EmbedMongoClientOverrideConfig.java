@@ -1,16 +1,21 @@
 package com.starter.fullstack.config;
 
 import com.mongodb.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
- * Configuration for integration tests
+ * Configuration for integration tests, against the server the embedmongo plugin starts. Spring Boot's
+ * embedded Mongo is excluded, its library is only there for EmbeddedReplicaSet.
  */
-@EnableAutoConfiguration
+@EnableAutoConfiguration(exclude = EmbeddedMongoAutoConfiguration.class)
 @Configuration
+@Import(MongoConfig.class)
 @ActiveProfiles("test")
 public class EmbedMongoClientOverrideConfig {
 
@@ -18,5 +23,10 @@ public class EmbedMongoClientOverrideConfig {
   public MongoClient mongoClient() {
     return new MongoClient("127.0.0.1", Integer.parseInt(System.getProperty("mongo.port")));
   }
+
+  @Bean
+  public com.mongodb.reactivestreams.client.MongoClient reactiveStreamsMongoClient() {
+    return MongoClients.create("mongodb://127.0.0.1:" + System.getProperty("mongo.port"));
+  }
 }
 
@@ -0,0 +1,117 @@
+package com.starter.fullstack.config;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.rules.ExternalResource;
+
+/**
+ * Replica set for tests that read from secondaries, the embedmongo plugin only starts a standalone
+ * server. Used as a ClassRule it starts three embedded mongod members of the plugin's version before
+ * the tests and stops them after. When mongo.replset.uri is set that replica set is used instead, e.g.
+ * -Dmongo.replset.uri=mongodb://localhost:27017,localhost:27018,localhost:27019/test?replicaSet=rs0
+ */
+public class EmbeddedReplicaSet extends ExternalResource {
+  private static final String NAME = "rs0";
+  private static final String HOST = "127.0.0.1";
+  private static final int MEMBERS = 3;
+  private static final int OPLOG_SIZE_MB = 16;
+  private static final Duration ELECTION_TIMEOUT = Duration.ofMinutes(1);
+  private final List<MongodExecutable> members = new ArrayList<>();
+  private final List<String> hosts = new ArrayList<>();
+  private String uri = System.getProperty("mongo.replset.uri");
+
+  /**
+   * Start the members and elect a primary, unless mongo.replset.uri names a replica set.
+   * @throws Throwable when a member does not start or no primary is elected.
+   */
+  @Override
+  protected void before() throws Throwable {
+    if (this.uri != null) {
+      return;
+    }
+    MongodStarter starter = MongodStarter.getDefaultInstance();
+    for (int member = 0; member < MEMBERS; member++) {
+      int port = Network.getFreeServerPort();
+      MongodExecutable executable = starter.prepare(new MongodConfigBuilder()
+          .version(Version.V3_6_5)
+          .net(new Net(HOST, port, false))
+          .replication(new Storage(null, NAME, OPLOG_SIZE_MB))
+          .build());
+      this.members.add(executable);
+      executable.start();
+      this.hosts.add(HOST + ":" + port);
+    }
+
+    List<Document> config = new ArrayList<>();
+    for (int member = 0; member < MEMBERS; member++) {
+      config.add(new Document("_id", member).append("host", this.hosts.get(member)));
+    }
+    MongoClient client = new MongoClient(new ServerAddress(this.hosts.get(0)));
+    try {
+      client.getDatabase("admin").runCommand(new Document("replSetInitiate",
+          new Document("_id", NAME).append("members", config)));
+      awaitMembers(client);
+    } finally {
+      client.close();
+    }
+    this.uri = "mongodb://" + String.join(",", this.hosts) + "/test?replicaSet=" + NAME;
+  }
+
+  /**
+   * Stop the members.
+   */
+  @Override
+  protected void after() {
+    for (MongodExecutable member : this.members) {
+      member.stop();
+    }
+    this.members.clear();
+  }
+
+  /**
+   * Connection string of the replica set.
+   * @return URI.
+   */
+  public String getUri() {
+    return this.uri;
+  }
+
+  /**
+   * Wait until one member is primary and the others are secondaries.
+   * @param client client of a member.
+   * @throws InterruptedException when interrupted while waiting.
+   */
+  private static void awaitMembers(MongoClient client) throws InterruptedException {
+    Instant deadline = Instant.now().plus(ELECTION_TIMEOUT);
+    List<String> states = List.of();
+    while (Instant.now().isBefore(deadline)) {
+      try {
+        Document status = client.getDatabase("admin").runCommand(new Document("replSetGetStatus", 1));
+        states = status.getList("members", Document.class).stream()
+            .map(member -> member.getString("stateStr")).collect(Collectors.toList());
+        if (states.stream().filter("PRIMARY"::equals).count() == 1
+            && states.stream().filter("SECONDARY"::equals).count() == MEMBERS - 1) {
+          return;
+        }
+      } catch (MongoCommandException e) {
+        // The configuration has not reached every member yet.
+      }
+      Thread.sleep(200);
+    }
+    throw new IllegalStateException("Replica set " + NAME + " did not elect a primary, members are " + states);
+  }
+}
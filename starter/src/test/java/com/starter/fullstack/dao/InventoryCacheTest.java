@@ -0,0 +1,116 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Inventory Cache.
+ */
+public class InventoryCacheTest {
+  private static final String ID = "ID";
+  private AtomicInteger loads;
+  private Function<String, Optional<Inventory>> loader;
+
+  @Before
+  public void setup() {
+    this.loads = new AtomicInteger();
+    this.loader = id -> {
+      this.loads.incrementAndGet();
+      Inventory inventory = new Inventory();
+      inventory.setId(id);
+      return Optional.of(inventory);
+    };
+  }
+
+  /**
+   * Test repeated reads are served from the cache until invalidated.
+   */
+  @Test
+  public void readThrough() {
+    InventoryCache cache = new InventoryCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+
+    cache.get(ID, this.loader);
+    cache.get(ID, this.loader);
+    Assert.assertEquals(1, this.loads.get());
+    Assert.assertEquals(1, cache.stats().getHits());
+    Assert.assertEquals(1, cache.stats().getMisses());
+
+    cache.invalidate(List.of(ID));
+    cache.get(ID, this.loader);
+    Assert.assertEquals(2, this.loads.get());
+  }
+
+  /**
+   * Test the least recently used entry is evicted when full.
+   */
+  @Test
+  public void eviction() {
+    InventoryCache cache = new InventoryCache(1, Duration.ofMinutes(1), Clock.systemUTC());
+
+    cache.get(ID, this.loader);
+    cache.get("OTHER", this.loader);
+    cache.get(ID, this.loader);
+    Assert.assertEquals(3, this.loads.get());
+    Assert.assertEquals(1, cache.stats().getSize());
+    Assert.assertEquals(2, cache.stats().getEvictions());
+  }
+
+  /**
+   * Test expired entries are reloaded.
+   */
+  @Test
+  public void expiry() {
+    InventoryCache cache = new InventoryCache(10, Duration.ZERO, Clock.systemUTC());
+
+    cache.get(ID, this.loader);
+    cache.get(ID, this.loader);
+    Assert.assertEquals(2, this.loads.get());
+  }
+
+  /**
+   * Test a write refreshes the entry unless a newer version is cached.
+   */
+  @Test
+  public void put() {
+    InventoryCache cache = new InventoryCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+    Inventory newer = new Inventory();
+    newer.setId(ID);
+    newer.setVersion(2);
+    Inventory older = new Inventory();
+    older.setId(ID);
+    older.setVersion(1);
+
+    cache.put(newer);
+    cache.put(older);
+    Assert.assertEquals(newer, cache.get(ID, this.loader).get());
+    Assert.assertEquals(0, this.loads.get());
+  }
+
+  /**
+   * Test changes to Inventory handed to or read from the cache do not reach the cached entry.
+   */
+  @Test
+  public void copies() {
+    InventoryCache cache = new InventoryCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+    Inventory written = new Inventory();
+    written.setId(ID);
+    written.setName("Amber");
+
+    cache.put(written);
+    written.setName("Changed by the writer");
+    Inventory read = cache.get(ID, this.loader).get();
+    Assert.assertNotSame(written, read);
+    Assert.assertEquals("Amber", read.getName());
+
+    read.setName("Changed by a reader");
+    Assert.assertEquals("Amber", cache.get(ID, this.loader).get().getName());
+  }
+}
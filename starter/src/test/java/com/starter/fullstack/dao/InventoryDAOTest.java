@@ -1,22 +1,39 @@
 package com.starter.fullstack.dao;
 
+import com.starter.fullstack.api.BulkDeleteResult;
+import com.starter.fullstack.api.CursorPage;
 import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryFilter;
+import com.starter.fullstack.api.StockAdjustmentResult;
+import com.starter.fullstack.api.StoreUpdateResult;
 import com.starter.fullstack.api.UnitOfMeasurement;
 import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test; 
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -105,6 +122,341 @@ public class InventoryDAOTest {
 
 
 
+  /**
+  * Test findSorted method.
+  */
+  @Test
+  public void findSorted() {
+    for (int i = 0; i < 12; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + " " + i);
+      inventory.setProductType(PRODUCT_TYPE);
+      this.inventoryDAO.create(inventory);
+    }
+
+    List<Inventory> sorted = this.inventoryDAO.findSorted("name", "desc", 2);
+    Assert.assertEquals(2, sorted.size());
+    // Numeric ordering puts 11 after 2.
+    Assert.assertEquals(NAME + " 11", sorted.get(0).getName());
+    Assert.assertEquals(NAME + " 10", sorted.get(1).getName());
+
+    Assert.assertEquals(12, this.inventoryDAO.findSorted("name", "asc").size());
+
+    // Only text sorts run under the collation.
+    Assert.assertTrue(InventoryDAO.sortedQuery("name", "asc", null).getCollation().isPresent());
+    Assert.assertFalse(InventoryDAO.sortedQuery("amount", "asc", null).getCollation().isPresent());
+  }
+
+  /**
+  * Test setupIndexes drops the indexes the catalog no longer has.
+  */
+  @Test
+  public void dropObsoleteIndexes() {
+    IndexOperations indexOps = this.mongoTemplate.indexOps(Inventory.class);
+    indexOps.ensureIndex(new Index("amount", Sort.Direction.ASC).named("amount_sort")
+        .collation(InventoryIndexes.SORT_COLLATION));
+    this.inventoryDAO.setupIndexes();
+    Assert.assertTrue(indexOps.getIndexInfo().stream().noneMatch(index -> "amount_sort".equals(index.getName())));
+  }
+
+  /**
+  * Test findSorted rejects fields that are not sortable.
+  */
+  @Test(expected = IllegalArgumentException.class)
+  public void findSortedUnknownField() {
+    this.inventoryDAO.findSorted("calories", "asc");
+  }
+
+
+
+  /**
+  * Test findPage method.
+  */
+  @Test
+  public void findPage() {
+    for (int i = 0; i < 5; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + i);
+      inventory.setProductType(PRODUCT_TYPE);
+      this.inventoryDAO.create(inventory);
+    }
+
+    CursorPage<Inventory> page = this.inventoryDAO.findPage(2, null, "name", "desc", true);
+    Assert.assertEquals(2, page.getItems().size());
+    Assert.assertEquals(NAME + 4, page.getItems().get(0).getName());
+    Assert.assertEquals(Long.valueOf(5), page.getEstimatedTotal());
+    Assert.assertNotNull(page.getNextCursor());
+
+    page = this.inventoryDAO.findPage(2, page.getNextCursor(), "name", "desc", false);
+    Assert.assertEquals(NAME + 2, page.getItems().get(0).getName());
+    Assert.assertNull(page.getEstimatedTotal());
+
+    page = this.inventoryDAO.findPage(2, page.getNextCursor(), "name", "desc", false);
+    Assert.assertEquals(1, page.getItems().size());
+    Assert.assertEquals(NAME + 0, page.getItems().get(0).getName());
+    Assert.assertNull(page.getNextCursor());
+  }
+
+  /**
+  * Test a descending page reaches Inventory missing the sort variable after every value.
+  */
+  @Test
+  public void findPageDescendingMissing() {
+    for (int i = 0; i < 2; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + i);
+      inventory.setProductType(i == 0 ? null : PRODUCT_TYPE);
+      this.mongoTemplate.save(inventory);
+    }
+
+    CursorPage<Inventory> page = this.inventoryDAO.findPage(1, null, "productType", "desc", false);
+    Assert.assertEquals(NAME + 1, page.getItems().get(0).getName());
+
+    page = this.inventoryDAO.findPage(1, page.getNextCursor(), "productType", "desc", false);
+    Assert.assertEquals(1, page.getItems().size());
+    Assert.assertEquals(NAME + 0, page.getItems().get(0).getName());
+  }
+
+
+
+  /**
+  * Test stream method.
+  */
+  @Test
+  public void stream() {
+    for (int i = 0; i < 3; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME);
+      inventory.setProductType(PRODUCT_TYPE);
+      inventory.setUnitOfMeasurement(i == 0 ? UnitOfMeasurement.CUP : UnitOfMeasurement.PINT);
+      this.inventoryDAO.create(inventory);
+    }
+
+    List<Inventory> streamed = new ArrayList<>();
+    Assert.assertEquals(3, this.inventoryDAO.stream(null, null, null, streamed::add));
+    Assert.assertEquals(3, streamed.size());
+
+    streamed.clear();
+    Assert.assertEquals(2, this.inventoryDAO.stream(UnitOfMeasurement.PINT, null, null, streamed::add));
+    Assert.assertEquals(UnitOfMeasurement.PINT, streamed.get(0).getUnitOfMeasurement());
+  }
+
+  /**
+  * Test search combines range, set and flag conditions with a sort and limit.
+  */
+  @Test
+  public void search() {
+    for (int i = 0; i < NUMS.length; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + " " + i);
+      inventory.setProductType(i % 2 == 0 ? PRODUCT_TYPE : "Malt");
+      inventory.setAmount(NUMS[i]);
+      inventory.setAveragePrice(BigDecimal.valueOf(i));
+      inventory.setUnitOfMeasurement(UnitOfMeasurement.values()[i]);
+      inventory.setBestBeforeDate(DATES[i]);
+      inventory.setNeverExpires(i == 3 ? Boolean.TRUE : i == 4 ? Boolean.FALSE : null);
+      this.inventoryDAO.create(inventory);
+    }
+
+    // amount 1 to 15, in CUP, GALLON, OUNCE, PINT or POUND, that expires: NUMS 1, 5 and 15.
+    InventoryFilter filter = new InventoryFilter();
+    filter.getConditions().add(condition("neverExpires", InventoryFilter.Operator.EQ, "false"));
+    filter.getConditions().add(condition("amount", InventoryFilter.Operator.BETWEEN, "1", "15"));
+    filter.getConditions().add(condition("unitOfMeasurement", InventoryFilter.Operator.IN,
+        "CUP", "GALLON", "OUNCE", "PINT", "POUND"));
+    filter.setSort("amount");
+    filter.setDirection("desc");
+    filter.setLimit(2);
+    List<Inventory> found = this.inventoryDAO.search(filter);
+    Assert.assertEquals(2, found.size());
+    Assert.assertEquals(0, NUMS[4].compareTo(found.get(0).getAmount()));
+    Assert.assertEquals(0, NUMS[2].compareTo(found.get(1).getAmount()));
+
+    filter = new InventoryFilter();
+    filter.getConditions().add(condition("bestBeforeDate", InventoryFilter.Operator.GTE, DATES[3].toString()));
+    filter.getConditions().add(condition("productType", InventoryFilter.Operator.EQ, "Malt"));
+    filter.getConditions().add(condition("averagePrice", InventoryFilter.Operator.LT, "5"));
+    found = this.inventoryDAO.search(filter);
+    Assert.assertEquals(1, found.size());
+    Assert.assertEquals(NAME + " 3", found.get(0).getName());
+  }
+
+  /**
+  * Test search templates are shared by filters of one shape and reject fields outside the allow-list.
+  */
+  @Test
+  public void searchTemplates() {
+    InventoryFilterTemplates templates = new InventoryFilterTemplates();
+    InventoryFilter first = new InventoryFilter();
+    first.getConditions().add(condition("amount", InventoryFilter.Operator.GT, "1"));
+    first.getConditions().add(condition("productType", InventoryFilter.Operator.IN, "Hops"));
+    InventoryFilter second = new InventoryFilter();
+    second.getConditions().add(condition("productType", InventoryFilter.Operator.IN, "Malt", "Hops"));
+    second.getConditions().add(condition("amount", InventoryFilter.Operator.GT, "7"));
+
+    Assert.assertSame(templates.template(first), templates.template(second));
+    Assert.assertEquals(1, templates.size());
+    Assert.assertEquals("{\"amount\": {\"$gt\": {\"$numberDecimal\": \"7\"}}, "
+        + "\"productType\": {\"$in\": [\"Malt\", \"Hops\"]}}",
+        templates.template(second).bind(second).getQueryObject().toJson());
+
+    InventoryFilter unknown = new InventoryFilter();
+    unknown.getConditions().add(condition("description", InventoryFilter.Operator.EQ, "Amber"));
+    try {
+      templates.template(unknown);
+      Assert.fail("description is not filterable");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(1, templates.size());
+    }
+
+    InventoryFilter overlapping = new InventoryFilter();
+    overlapping.getConditions().add(condition("amount", InventoryFilter.Operator.BETWEEN, "1", "10"));
+    overlapping.getConditions().add(condition("amount", InventoryFilter.Operator.GTE, "5"));
+    try {
+      templates.template(overlapping);
+      Assert.fail("BETWEEN and GTE both bound amount with $gte");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(1, templates.size());
+    }
+
+    InventoryFilter expiring = new InventoryFilter();
+    expiring.getConditions().add(condition("neverExpires", InventoryFilter.Operator.EQ, "false"));
+    Assert.assertEquals("{\"neverExpires\": {\"$eq\": false}}",
+        templates.template(expiring).bind(expiring).getQueryObject().toJson());
+  }
+
+  private static InventoryFilter.Condition condition(String field, InventoryFilter.Operator operator,
+                                                     String... values) {
+    InventoryFilter.Condition condition = new InventoryFilter.Condition();
+    condition.setField(field);
+    condition.setOperator(operator);
+    condition.setValues(Arrays.asList(values));
+    return condition;
+  }
+
+  /**
+  * Test typeahead puts name prefixes first and finds word prefixes of every searched field.
+  */
+  @Test
+  public void typeahead() {
+    this.inventoryDAO.setupIndexes();
+    this.inventoryDAO.create(searchable("Amber Ale", "Hops", "Citrus bitterness"));
+    this.inventoryDAO.create(searchable("Pale Amber", "Malt", null));
+    this.inventoryDAO.create(searchable("Stout", "Barley", "Roasted, amber notes"));
+    // Stored before search terms were computed.
+    this.mongoTemplate.save(searchable("Amberjack", "Fish", null));
+    Assert.assertEquals(1, this.inventoryDAO.indexSearchTerms());
+
+    List<Inventory> found = this.inventoryDAO.typeahead("Amb", 10, null);
+    Assert.assertEquals(4, found.size());
+    Assert.assertEquals("Amber Ale", found.get(0).getName());
+    Assert.assertEquals("Amberjack", found.get(1).getName());
+    Assert.assertEquals("Pale Amber", found.get(2).getName());
+    Assert.assertEquals("Stout", found.get(3).getName());
+    Assert.assertNull(found.get(0).getSearchTerms());
+
+    found = this.inventoryDAO.typeahead("amber no", 10, List.of("summary"));
+    Assert.assertEquals(1, found.size());
+    Assert.assertEquals("Stout", found.get(0).getName());
+
+    Assert.assertEquals(1, this.inventoryDAO.typeahead("Amb", 1, null).size());
+    Assert.assertTrue(this.inventoryDAO.typeahead("ambers", 10, null).isEmpty());
+  }
+
+  /**
+  * Test textSearch ranks name matches above description matches.
+  */
+  @Test
+  public void textSearch() {
+    this.inventoryDAO.setupIndexes();
+    this.inventoryDAO.create(searchable("Stout", "Barley", "Roasted, amber notes"));
+    this.inventoryDAO.create(searchable("Amber Ale", "Hops", "Citrus bitterness"));
+
+    List<Inventory> found = this.inventoryDAO.textSearch("ambers", 10, null);
+    Assert.assertEquals(2, found.size());
+    Assert.assertEquals("Amber Ale", found.get(0).getName());
+    Assert.assertEquals("Stout", found.get(1).getName());
+
+    Assert.assertEquals(1, this.inventoryDAO.textSearch("bitter", 10, null).size());
+  }
+
+  private static Inventory searchable(String name, String productType, String description) {
+    Inventory inventory = new Inventory();
+    inventory.setName(name);
+    inventory.setProductType(productType);
+    inventory.setDescription(description);
+    return inventory;
+  }
+
+  /**
+  * Test findByQuantity matches across units of one dimension.
+  */
+  @Test
+  public void findByQuantity() {
+    UnitOfMeasurement[] units = { UnitOfMeasurement.GALLON, UnitOfMeasurement.CUP, UnitOfMeasurement.QUART,
+                                  UnitOfMeasurement.POUND };
+    String[] amounts = { "1", "40", "8", "5" };
+    for (int i = 0; i < units.length; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME);
+      inventory.setProductType(PRODUCT_TYPE);
+      inventory.setUnitOfMeasurement(units[i]);
+      inventory.setAmount(new BigDecimal(amounts[i]));
+      this.inventoryDAO.create(inventory);
+    }
+
+    // 40 cups and 8 quarts are both at least 2 gallons, 1 gallon is not and pounds are weight.
+    List<Inventory> found = this.inventoryDAO.findByQuantity(UnitOfMeasurement.GALLON, BigDecimal.valueOf(2),
+        null, null);
+    Assert.assertEquals(2, found.size());
+    Assert.assertEquals(UnitOfMeasurement.QUART, found.get(0).getUnitOfMeasurement());
+    Assert.assertEquals(0, BigDecimal.valueOf(256).compareTo(found.get(0).getNormalizedAmount()));
+    Assert.assertEquals(UnitOfMeasurement.CUP, found.get(1).getUnitOfMeasurement());
+
+    found = this.inventoryDAO.findByQuantity(UnitOfMeasurement.CUP, null, BigDecimal.valueOf(16), null);
+    Assert.assertEquals(1, found.size());
+    Assert.assertEquals(UnitOfMeasurement.GALLON, found.get(0).getUnitOfMeasurement());
+
+    // An update re-normalizes, Inventory stored without a normalized amount is filled in.
+    Inventory gallon = found.get(0);
+    gallon.setAmount(BigDecimal.valueOf(3));
+    this.inventoryDAO.update(gallon.getId(), gallon);
+    Inventory legacy = new Inventory();
+    legacy.setName(NAME);
+    legacy.setProductType(PRODUCT_TYPE);
+    legacy.setUnitOfMeasurement(UnitOfMeasurement.PINT);
+    legacy.setAmount(BigDecimal.valueOf(18));
+    this.mongoTemplate.save(legacy);
+    Assert.assertEquals(1, this.inventoryDAO.normalizeAmounts());
+
+    found = this.inventoryDAO.findByQuantity(UnitOfMeasurement.GALLON, BigDecimal.valueOf(2), null, null);
+    Assert.assertEquals(4, found.size());
+    Assert.assertEquals(UnitOfMeasurement.QUART, found.get(0).getUnitOfMeasurement());
+    Assert.assertEquals(UnitOfMeasurement.PINT, found.get(1).getUnitOfMeasurement());
+    Assert.assertEquals(UnitOfMeasurement.CUP, found.get(2).getUnitOfMeasurement());
+    Assert.assertEquals(UnitOfMeasurement.GALLON, found.get(3).getUnitOfMeasurement());
+  }
+
+  /**
+   * Test amounts and prices stored as strings are converted to Decimal128 and then filter as numbers.
+   */
+  @Test
+  public void storeDecimals() {
+    this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(Inventory.class)).insertOne(
+        new Document("name", NAME).append("productType", PRODUCT_TYPE).append("amount", "2.50")
+            .append("averagePrice", "3"));
+    Assert.assertTrue(this.inventoryDAO.filterRetrieve(null, BigDecimal.valueOf(2.5), null).isEmpty());
+
+    Assert.assertEquals(1, this.inventoryDAO.storeDecimals());
+    Assert.assertEquals(0, this.inventoryDAO.storeDecimals());
+    Document stored = this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(Inventory.class))
+        .find().first();
+    Assert.assertEquals(new Decimal128(new BigDecimal("3")), stored.get("averagePrice"));
+    Assert.assertEquals(1, this.inventoryDAO.filterRetrieve(null, BigDecimal.valueOf(2.5), null).size());
+  }
+
+
+
   /**
   * Test delete method.
   */
@@ -122,12 +474,228 @@ public class InventoryDAOTest {
 
     Optional<Inventory> opt = this.inventoryDAO.delete(idNumber);
     Assert.assertTrue(opt.isPresent());
+    Assert.assertEquals(NAME, opt.get().getName());
 
     actualInventory = this.inventoryDAO.findAll();
     Assert.assertTrue(actualInventory.isEmpty());
+    Assert.assertFalse(this.inventoryDAO.delete(idNumber).isPresent());
+  }
+
+
+
+  /**
+  * Test deleteAll method.
+  */
+  @Test
+  public void deleteAll() {
+    Inventory inventory = new Inventory();
+    inventory.setName(NAME);
+    inventory.setProductType(PRODUCT_TYPE);
+    this.mongoTemplate.save(inventory);
+    String missingId = "5f0c8a7e2b3c4d5e6f708192";
+
+    List<String> ids = Arrays.asList(inventory.getId(), missingId);
+
+    BulkDeleteResult<Inventory> result = this.inventoryDAO.deleteAll(ids, false);
+    Assert.assertEquals(Arrays.asList(inventory.getId()), result.getDeletedIds());
+    Assert.assertEquals(Arrays.asList(missingId), result.getMissingIds());
+    Assert.assertNull(result.getDeleted());
+    Assert.assertTrue(this.inventoryDAO.findAll().isEmpty());
+  }
+
+
+
+  /**
+  * Test update method.
+  */
+  @Test
+  public void update() {
+    Inventory inventory = new Inventory();
+    inventory.setName(NAME);
+    inventory.setProductType(PRODUCT_TYPE);
+    this.inventoryDAO.create(inventory);
+    long version = inventory.getVersion();
+
+    inventory.setName(NAME + " Updated");
+    Optional<Inventory> updated = this.inventoryDAO.update(inventory.getId(), inventory);
+    Assert.assertTrue(updated.isPresent());
+    Assert.assertEquals(NAME + " Updated", updated.get().getName());
+    Assert.assertEquals(version + 1, updated.get().getVersion());
+    Assert.assertEquals(this.mongoTemplate.findById(inventory.getId(), Inventory.class), updated.get());
+
+    // The caller's copy is now stale.
+    try {
+      this.inventoryDAO.update(inventory.getId(), inventory);
+      Assert.fail("Stale update was applied.");
+    } catch (OptimisticLockingFailureException e) {
+      Assert.assertEquals(NAME + " Updated", this.inventoryDAO.retrieve(inventory.getId()).get().getName());
+    }
+
+    // Updating a missing Inventory does not create it.
+    Assert.assertFalse(this.inventoryDAO.update("5f0c8a7e2b3c4d5e6f708192", inventory).isPresent());
+    Assert.assertEquals(1, this.inventoryDAO.findAll().size());
+  }
+
+
+  /**
+   * Test stock adjustments add to the amount and normalizedAmount, and never leave it negative.
+   */
+  @Test
+  public void adjustAmount() {
+    Inventory inventory = new Inventory();
+    inventory.setName(NAME);
+    inventory.setProductType(PRODUCT_TYPE);
+    inventory.setAmount(BigDecimal.valueOf(3));
+    inventory.setUnitOfMeasurement(UnitOfMeasurement.PINT);
+    this.inventoryDAO.create(inventory);
+
+    Inventory adjusted = this.inventoryDAO.adjustAmount(inventory.getId(), new BigDecimal("-1.5")).get();
+    Assert.assertEquals(0, new BigDecimal("1.5").compareTo(adjusted.getAmount()));
+    Assert.assertEquals(inventory.getVersion() + 1, adjusted.getVersion());
+    Inventory stored = this.mongoTemplate.findById(inventory.getId(), Inventory.class);
+    Assert.assertEquals(0, new BigDecimal("1.5").compareTo(stored.getAmount()));
+    Assert.assertEquals(0, BigDecimal.valueOf(24).compareTo(stored.getNormalizedAmount()));
+    Assert.assertEquals(adjusted.getVersion(), stored.getVersion());
+
+    try {
+      this.inventoryDAO.adjustAmount(inventory.getId(), BigDecimal.valueOf(-2));
+      Assert.fail("Amount went negative.");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(0, new BigDecimal("1.5")
+          .compareTo(this.mongoTemplate.findById(inventory.getId(), Inventory.class).getAmount()));
+    }
+    Assert.assertFalse(this.inventoryDAO.adjustAmount("5f0c8a7e2b3c4d5e6f708192", BigDecimal.ONE).isPresent());
+  }
+
+  /**
+   * Test bulk stock adjustments report what they adjusted, rejected and did not find.
+   */
+  @Test
+  public void adjustAmounts() {
+    List<InventoryChange> changes = new ArrayList<>();
+    InventoryDAO publishingDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), change -> changes.add((InventoryChange) change));
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + i);
+      inventory.setProductType(PRODUCT_TYPE);
+      inventory.setAmount(BigDecimal.valueOf(5));
+      ids.add(publishingDAO.create(inventory).getId());
+    }
+    changes.clear();
+
+    Map<String, BigDecimal> deltas = Map.of(ids.get(0), BigDecimal.valueOf(7), ids.get(1), BigDecimal.valueOf(-6),
+        "5f0c8a7e2b3c4d5e6f708192", BigDecimal.ONE);
+    StockAdjustmentResult result = publishingDAO.adjustAmounts("batch", deltas);
+    Assert.assertEquals(List.of(ids.get(0)), result.getAdjusted());
+    Assert.assertEquals(List.of(ids.get(1)), result.getRejected());
+    Assert.assertEquals(List.of("5f0c8a7e2b3c4d5e6f708192"), result.getNotFound());
+    Assert.assertTrue(result.getConflicted().isEmpty());
+    Assert.assertEquals(2, this.mongoTemplate.findAll(Inventory.class).size());
+    Assert.assertEquals(0, BigDecimal.valueOf(12)
+        .compareTo(this.mongoTemplate.findById(ids.get(0), Inventory.class).getAmount()));
+
+    Assert.assertEquals(1, changes.size());
+    Assert.assertEquals(0, BigDecimal.valueOf(5).compareTo(changes.get(0).getPrevious().getAmount()));
+    Assert.assertEquals(0, BigDecimal.valueOf(12).compareTo(changes.get(0).getInventory().getAmount()));
+
+    // Retrying the batch does not adjust again.
+    Assert.assertEquals(List.of(ids.get(0)), publishingDAO.adjustAmounts("batch", deltas).getAdjusted());
+    Assert.assertEquals(0, BigDecimal.valueOf(12)
+        .compareTo(this.mongoTemplate.findById(ids.get(0), Inventory.class).getAmount()));
+    Assert.assertEquals(InventoryChange.Type.RELOAD, changes.get(1).getType());
+  }
+
+  /**
+   * Test store queries page in id order and bulk store updates only change the Inventory that needs it.
+   */
+  @Test
+  public void stores() {
+    List<InventoryChange> changes = new ArrayList<>();
+    InventoryDAO publishingDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), change -> changes.add((InventoryChange) change));
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + i);
+      inventory.setProductType(i == 2 ? "Malt" : PRODUCT_TYPE);
+      inventory.setAvailableStores(i == 0 ? List.of("Downtown") : null);
+      ids.add(publishingDAO.create(inventory).getId());
+    }
+    changes.clear();
+
+    StoreUpdateResult added = publishingDAO.addStore("Uptown", ids);
+    Assert.assertEquals("Uptown", added.getStore());
+    Assert.assertEquals(3, added.getModified());
+    Assert.assertEquals(0, publishingDAO.addStore("Uptown", ids).getModified());
+    Assert.assertEquals(List.of("Downtown", "Uptown"),
+        this.mongoTemplate.findById(ids.get(0), Inventory.class).getAvailableStores());
+    Assert.assertEquals(1, this.mongoTemplate.findById(ids.get(1), Inventory.class).getVersion());
+    Assert.assertEquals(1, changes.size());
+    Assert.assertEquals(InventoryChange.Type.RELOAD, changes.get(0).getType());
+
+    Assert.assertEquals(ids, publishingDAO.findByStore("Uptown", null, null).stream().map(Inventory::getId)
+        .collect(Collectors.toList()));
+    Assert.assertEquals(List.of(ids.get(2)), publishingDAO.findByStore("Uptown", "Malt", null).stream()
+        .map(Inventory::getId).collect(Collectors.toList()));
+    CursorPage<Inventory> page = publishingDAO.findStorePage("Uptown", PRODUCT_TYPE, 1, null, null);
+    Assert.assertEquals(ids.get(0), page.getItems().get(0).getId());
+    page = publishingDAO.findStorePage("Uptown", PRODUCT_TYPE, 1, page.getNextCursor(), null);
+    Assert.assertEquals(ids.get(1), page.getItems().get(0).getId());
+    Assert.assertNull(page.getNextCursor());
+
+    Assert.assertEquals(2, publishingDAO.removeStore("Uptown", ids.subList(0, 2)).getModified());
+    Assert.assertEquals(List.of("Downtown"),
+        this.mongoTemplate.findById(ids.get(0), Inventory.class).getAvailableStores());
+    Assert.assertEquals(List.of(ids.get(2)), publishingDAO.findByStore("Uptown", null, null).stream()
+        .map(Inventory::getId).collect(Collectors.toList()));
+  }
+
+  /**
+   * Test operations are timed by operation and query shape.
+   */
+  @Test
+  public void metrics() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    InventoryDAO timedDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        new DaoMetrics(meterRegistry, "inventory"));
+
+    timedDAO.filterRetrieve(UnitOfMeasurement.CUP, null, DATES[0]);
+    timedDAO.findSorted("name", "asc", 10);
+
+    Timer filterRetrieve = meterRegistry.find(DaoMetrics.TIMER).tag("operation", "filterRetrieve")
+        .tag("shape", "unitOfMeasurement=,bestBeforeDate<").tag("outcome", "success").timer();
+    Assert.assertNotNull(filterRetrieve);
+    Assert.assertEquals(1, filterRetrieve.count());
+    Assert.assertNotNull(meterRegistry.find(DaoMetrics.TIMER).tag("operation", "findSorted")
+        .tag("shape", "sort:name").timer());
   }
 
+  /**
+   * Test every write publishes an InventoryChange carrying the new version.
+   */
+  @Test
+  public void changes() {
+    List<InventoryChange> changes = new ArrayList<>();
+    InventoryDAO publishingDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), change -> changes.add((InventoryChange) change));
 
+    Inventory inventory = new Inventory();
+    inventory.setName(NAME);
+    inventory.setProductType(PRODUCT_TYPE);
+    Inventory created = publishingDAO.create(inventory);
+    Inventory updated = publishingDAO.update(created.getId(), created).get();
+    publishingDAO.deleteAll(List.of(created.getId()), false);
+
+    Assert.assertEquals(3, changes.size());
+    Assert.assertEquals(InventoryChange.Type.CREATED, changes.get(0).getType());
+    Assert.assertEquals(Long.valueOf(0), changes.get(0).getVersion());
+    Assert.assertEquals(InventoryChange.Type.UPDATED, changes.get(1).getType());
+    Assert.assertEquals(Long.valueOf(updated.getVersion()), changes.get(1).getVersion());
+    Assert.assertEquals(InventoryChange.Type.DELETED, changes.get(2).getType());
+    Assert.assertEquals(created.getId(), changes.get(2).getId());
+  }
 
  /**
   * Test filter method. 
@@ -203,6 +771,15 @@ public class InventoryDAOTest {
 
 
 
+    // Test projected fields
+    filteredList = this.inventoryDAO.filterRetrieve(filterType[1], emptyBigDecimal, emptyInstant,
+        Arrays.asList("unitOfMeasurement", "amount"));
+    Assert.assertEquals(NUMS[1], filteredList.get(0).getAmount());
+    Assert.assertNull(filteredList.get(0).getId());
+    Assert.assertNull(filteredList.get(0).getName());
+
+
+
     // Test multiple arguments
     filteredList = this.inventoryDAO.filterRetrieve(filterType[1], NUMS[1], DATES[2]);
 
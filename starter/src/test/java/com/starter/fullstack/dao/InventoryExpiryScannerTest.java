@@ -0,0 +1,175 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryExpiry;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Inventory Expiry Scanner.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class InventoryExpiryScannerTest {
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+  @Resource
+  private MongoTemplate mongoTemplate;
+  private MutableClock clock;
+  private InventoryExpiryScanner scanner;
+  private InventoryDAO inventoryDAO;
+
+  @Before
+  public void setup() {
+    this.clock = new MutableClock(NOW);
+    this.scanner = new InventoryExpiryScanner(this.mongoTemplate, this.clock, Duration.ofMinutes(1),
+        Duration.ofHours(1), Duration.ofSeconds(1), 100);
+    this.inventoryDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), event -> this.scanner.changed((InventoryChange) event));
+    this.inventoryDAO.setupIndexes();
+  }
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+  }
+
+  /**
+   * Test a scan tracks the Inventory expiring within the horizon, which expires as the wheel ticks.
+   */
+  @Test
+  public void scan() {
+    this.inventoryDAO.create(inventory("Soon", NOW.plus(10, ChronoUnit.MINUTES), null));
+    this.inventoryDAO.create(inventory("Later", NOW.plus(30, ChronoUnit.MINUTES), null));
+    this.inventoryDAO.create(inventory("Forever", NOW.plus(20, ChronoUnit.MINUTES), true));
+    this.inventoryDAO.create(inventory("Tomorrow", NOW.plus(1, ChronoUnit.DAYS), false));
+
+    Assert.assertEquals(2, this.scanner.scan());
+    Assert.assertEquals(List.of("Soon", "Later"), names(this.scanner.report(10).getExpiring()));
+
+    this.clock.instant = NOW.plus(15, ChronoUnit.MINUTES);
+    Assert.assertEquals(List.of("Soon"), names(this.scanner.advance()));
+    InventoryExpiry report = this.scanner.report(10);
+    Assert.assertEquals(List.of("Later"), names(report.getExpiring()));
+    Assert.assertEquals(List.of("Soon"), names(report.getExpired()));
+
+    // Only Inventory that entered the horizon since the last scan is read.
+    Assert.assertEquals(0, this.scanner.scan());
+    this.clock.instant = NOW.plus(1, ChronoUnit.DAYS).minus(30, ChronoUnit.MINUTES);
+    Assert.assertEquals(1, this.scanner.scan());
+    Assert.assertEquals(List.of("Tomorrow"), names(this.scanner.report(10).getExpiring()));
+    Assert.assertEquals(List.of("Later", "Soon"), names(this.scanner.report(10).getExpired()));
+  }
+
+  /**
+   * Test writes move, add and remove tracked Inventory without a scan.
+   */
+  @Test
+  public void changes() {
+    Inventory moved = this.inventoryDAO.create(inventory("Moved", NOW.plus(10, ChronoUnit.MINUTES), null));
+    Inventory deleted = this.inventoryDAO.create(inventory("Deleted", NOW.plus(20, ChronoUnit.MINUTES), null));
+    this.scanner.scan();
+
+    this.inventoryDAO.create(inventory("Created", NOW.plus(5, ChronoUnit.MINUTES), null));
+    moved.setBestBeforeDate(NOW.plus(40, ChronoUnit.MINUTES));
+    this.inventoryDAO.update(moved.getId(), moved);
+    this.inventoryDAO.delete(List.of(deleted.getId()));
+    Assert.assertEquals(List.of("Created", "Moved"), names(this.scanner.report(10).getExpiring()));
+
+    moved.setVersion(moved.getVersion() + 1);
+    moved.setNeverExpires(true);
+    this.inventoryDAO.update(moved.getId(), moved);
+    this.clock.instant = NOW.plus(2, ChronoUnit.HOURS);
+    Assert.assertEquals(List.of("Created"), names(this.scanner.advance()));
+    Assert.assertTrue(this.scanner.report(10).getExpiring().isEmpty());
+  }
+
+  /**
+   * Test expired Inventory that is deleted, or moved to a later date, is no longer reported expired.
+   */
+  @Test
+  public void expiredChanges() {
+    Inventory moved = this.inventoryDAO.create(inventory("Moved", NOW.plus(10, ChronoUnit.MINUTES), null));
+    Inventory deleted = this.inventoryDAO.create(inventory("Deleted", NOW.plus(20, ChronoUnit.MINUTES), null));
+    this.scanner.scan();
+    this.clock.instant = NOW.plus(30, ChronoUnit.MINUTES);
+    Assert.assertEquals(List.of("Moved", "Deleted"), names(this.scanner.advance()));
+
+    moved.setBestBeforeDate(NOW.plus(50, ChronoUnit.MINUTES));
+    this.inventoryDAO.update(moved.getId(), moved);
+    this.inventoryDAO.delete(List.of(deleted.getId()));
+    InventoryExpiry report = this.scanner.report(10);
+    Assert.assertTrue(report.getExpired().isEmpty());
+    Assert.assertEquals(List.of("Moved"), names(report.getExpiring()));
+  }
+
+  /**
+   * Test Inventory written without neverExpires stores it as false, so the partial index holds it.
+   */
+  @Test
+  public void storeNeverExpires() {
+    Inventory legacy = inventory("Legacy", NOW.plus(10, ChronoUnit.MINUTES), null);
+    this.mongoTemplate.save(legacy);
+    Assert.assertEquals(1, this.inventoryDAO.storeNeverExpires());
+    Assert.assertEquals(Boolean.FALSE,
+        this.mongoTemplate.findById(legacy.getId(), Inventory.class).getNeverExpires());
+    Assert.assertEquals(1, this.scanner.scan());
+  }
+
+  private static Inventory inventory(String name, Instant bestBeforeDate, Boolean neverExpires) {
+    Inventory inventory = new Inventory();
+    inventory.setName(name);
+    inventory.setProductType("Food");
+    inventory.setBestBeforeDate(bestBeforeDate);
+    inventory.setNeverExpires(neverExpires);
+    return inventory;
+  }
+
+  private static List<String> names(List<InventoryExpiry.Item> items) {
+    return items.stream().map(InventoryExpiry.Item::getName).collect(Collectors.toList());
+  }
+
+  /**
+   * Clock the tests move by hand.
+   */
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+  }
+}
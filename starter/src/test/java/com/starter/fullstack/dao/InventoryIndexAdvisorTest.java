@@ -0,0 +1,54 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.QueryShapeReport;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Inventory Index Advisor.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class InventoryIndexAdvisorTest {
+  @Resource
+  private MongoTemplate mongoTemplate;
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+  }
+
+  /**
+   * Test every query shape is flagged without the catalog and served by an index with it.
+   */
+  @Test
+  public void explain() {
+    this.mongoTemplate.createCollection(Inventory.class);
+    InventoryIndexAdvisor advisor = new InventoryIndexAdvisor(this.mongoTemplate);
+
+    List<QueryShapeReport> reports = advisor.explain();
+    Assert.assertEquals(29, reports.size());
+    // Shapes in id order may walk the _id index instead.
+    for (QueryShapeReport report : reports) {
+      Assert.assertTrue(report.getShape(), report.isCollectionScan() || "_id_".equals(report.getIndexName()));
+    }
+
+    new InventoryDAO(this.mongoTemplate).setupIndexes();
+    for (QueryShapeReport report : advisor.explain()) {
+      Assert.assertFalse(report.getShape(), report.isCollectionScan());
+      Assert.assertFalse(report.getShape(), report.isBlockingSort());
+      Assert.assertNotNull(report.getShape(), report.getIndexName());
+    }
+  }
+}
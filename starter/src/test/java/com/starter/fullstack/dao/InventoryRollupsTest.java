@@ -0,0 +1,128 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.InventoryChange;
+import com.starter.fullstack.api.InventoryRollup;
+import com.starter.fullstack.api.UnitOfMeasurement;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Inventory Rollups.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class InventoryRollupsTest {
+  private static final Instant TODAY = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+  @Resource
+  private MongoTemplate mongoTemplate;
+  private InventoryRollups inventoryRollups;
+  private InventoryDAO inventoryDAO;
+
+  @Before
+  public void setup() {
+    // Updates run on the calling thread, so the rollups are current once a write returns.
+    this.inventoryRollups = new InventoryRollups(this.mongoTemplate, Runnable::run);
+    this.inventoryRollups.setup();
+    this.inventoryDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), event -> this.inventoryRollups.changed((InventoryChange) event));
+    this.inventoryDAO.setupIndexes();
+  }
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+    this.mongoTemplate.dropCollection(InventoryRollup.class);
+  }
+
+  /**
+   * Test the rollups follow creates, updates and deletes, and match a rebuild.
+   */
+  @Test
+  public void incremental() {
+    Inventory first = this.inventoryDAO.create(inventory(UnitOfMeasurement.CUP, "2.50", "2", TODAY));
+    Inventory second = this.inventoryDAO.create(inventory(UnitOfMeasurement.CUP, "1.00", "3",
+        TODAY.plus(1, ChronoUnit.DAYS)));
+    this.inventoryDAO.create(inventory(UnitOfMeasurement.POUND, "4.00", "1", null));
+
+    List<InventoryRollup> rollups = this.inventoryRollups.findAll();
+    Assert.assertEquals(2, rollups.size());
+    assertRollup(rollups.get(0), UnitOfMeasurement.CUP, 2, "8.00", TODAY);
+    assertRollup(rollups.get(1), UnitOfMeasurement.POUND, 1, "4.00", null);
+
+    // Same group, the value changes.
+    second.setAmount(new BigDecimal("5"));
+    second = this.inventoryDAO.update(second.getId(), second).get();
+    assertRollup(this.inventoryRollups.findAll().get(0), UnitOfMeasurement.CUP, 2, "10.00", TODAY);
+
+    // The earliest Inventory leaves the group, the next date takes its place.
+    first.setUnitOfMeasurement(UnitOfMeasurement.POUND);
+    this.inventoryDAO.update(first.getId(), first);
+    rollups = this.inventoryRollups.findAll();
+    assertRollup(rollups.get(0), UnitOfMeasurement.CUP, 1, "5.00", TODAY.plus(1, ChronoUnit.DAYS));
+    assertRollup(rollups.get(1), UnitOfMeasurement.POUND, 2, "9.00", TODAY);
+
+    // The last Inventory of a group goes, and the group with it.
+    this.inventoryDAO.deleteAll(List.of(second.getId()), false);
+    rollups = this.inventoryRollups.findAll();
+    Assert.assertEquals(1, rollups.size());
+    assertRollup(rollups.get(0), UnitOfMeasurement.POUND, 2, "9.00", TODAY);
+
+    rollups = this.inventoryRollups.rebuild();
+    Assert.assertEquals(1, rollups.size());
+    assertRollup(rollups.get(0), UnitOfMeasurement.POUND, 2, "9.00", TODAY);
+  }
+
+  /**
+   * Test a rebuild replaces rollups that drifted and removes those of empty groups.
+   */
+  @Test
+  public void rebuild() {
+    this.inventoryDAO.create(inventory(UnitOfMeasurement.CUP, "2.50", "2", TODAY));
+    this.inventoryDAO.create(inventory(UnitOfMeasurement.CUP, null, "3", null));
+    this.mongoTemplate.dropCollection(InventoryRollup.class);
+    InventoryRollup drifted = new InventoryRollup();
+    drifted.setProductType("Hops");
+    drifted.setUnitOfMeasurement(UnitOfMeasurement.QUART);
+    drifted.setCount(7);
+    this.mongoTemplate.save(drifted);
+
+    List<InventoryRollup> rollups = this.inventoryRollups.rebuild();
+    Assert.assertEquals(1, rollups.size());
+    assertRollup(rollups.get(0), UnitOfMeasurement.CUP, 2, "5.00", TODAY);
+  }
+
+  private static Inventory inventory(UnitOfMeasurement unit, String price, String amount, Instant bestBefore) {
+    Inventory inventory = new Inventory();
+    inventory.setName("Amber");
+    inventory.setProductType("Hops");
+    inventory.setUnitOfMeasurement(unit);
+    inventory.setAveragePrice(price == null ? null : new BigDecimal(price));
+    inventory.setAmount(new BigDecimal(amount));
+    inventory.setBestBeforeDate(bestBefore);
+    return inventory;
+  }
+
+  private static void assertRollup(InventoryRollup rollup, UnitOfMeasurement unit, long count, String totalValue,
+                                   Instant earliest) {
+    Assert.assertEquals("Hops", rollup.getProductType());
+    Assert.assertEquals(unit, rollup.getUnitOfMeasurement());
+    Assert.assertEquals(count, rollup.getCount());
+    Assert.assertEquals(0, new BigDecimal(totalValue).compareTo(rollup.getTotalValue()));
+    Assert.assertEquals(earliest, rollup.getEarliestBestBeforeDate());
+  }
+}
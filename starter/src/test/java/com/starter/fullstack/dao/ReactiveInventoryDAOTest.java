@@ -0,0 +1,104 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.BulkDeleteResult;
+import com.starter.fullstack.api.CursorPage;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Reactive Inventory DAO.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class ReactiveInventoryDAOTest {
+  @Resource
+  private MongoTemplate mongoTemplate;
+  @Resource
+  private ReactiveMongoTemplate reactiveMongoTemplate;
+  private ReactiveInventoryDAO inventoryDAO;
+  private static final String NAME = "Amber";
+  private static final String PRODUCT_TYPE = "Hops";
+
+  @Before
+  public void setup() {
+    this.inventoryDAO = new ReactiveInventoryDAO(this.reactiveMongoTemplate, InventoryCache.disabled());
+  }
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+  }
+
+  /**
+   * Test create, findAll and findPage.
+   */
+  @Test
+  public void findPage() {
+    for (int i = 0; i < 5; i++) {
+      Inventory inventory = new Inventory();
+      inventory.setName(NAME + " " + i);
+      inventory.setProductType(PRODUCT_TYPE);
+      Assert.assertNotNull(this.inventoryDAO.create(inventory).block().getId());
+    }
+    Assert.assertEquals(5, this.inventoryDAO.findAll(null).collectList().block().size());
+
+    CursorPage<Inventory> first = this.inventoryDAO.findPage(3, null, "name", "asc", true, null).block();
+    Assert.assertEquals(3, first.getItems().size());
+    Assert.assertEquals(Long.valueOf(5), first.getEstimatedTotal());
+    CursorPage<Inventory> second = this.inventoryDAO.findPage(3, first.getNextCursor(), "name", "asc", false, null)
+      .block();
+    Assert.assertEquals(2, second.getItems().size());
+    Assert.assertEquals(NAME + " 3", second.getItems().get(0).getName());
+    Assert.assertNull(second.getNextCursor());
+  }
+
+  /**
+   * Test findSorted signals invalid sorts as errors.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void findSortedUnknownField() {
+    this.inventoryDAO.findSorted("calories", "asc", null, null).blockLast();
+  }
+
+  /**
+   * Test update and deleteAll.
+   */
+  @Test
+  public void updateAndDelete() {
+    Inventory inventory = new Inventory();
+    inventory.setName(NAME);
+    inventory.setProductType(PRODUCT_TYPE);
+    Inventory created = this.inventoryDAO.create(inventory).block();
+
+    created.setName(NAME + " Ale");
+    Inventory updated = this.inventoryDAO.update(created.getId(), created).block();
+    Assert.assertEquals(NAME + " Ale", updated.getName());
+    Assert.assertEquals(1L, updated.getVersion());
+    try {
+      this.inventoryDAO.update(created.getId(), created).block();
+      Assert.fail("Stale update was not rejected.");
+    } catch (OptimisticLockingFailureException e) {
+      Assert.assertNotNull(e.getMessage());
+    }
+
+    BulkDeleteResult<Inventory> result = this.inventoryDAO.deleteAll(List.of(created.getId(), "missing"), false)
+      .block();
+    Assert.assertEquals(List.of(created.getId()), result.getDeletedIds());
+    Assert.assertEquals(List.of("missing"), result.getMissingIds());
+    Assert.assertNull(this.inventoryDAO.retrieve(created.getId()).block());
+  }
+}
@@ -0,0 +1,119 @@
+package com.starter.fullstack.dao;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import com.starter.fullstack.config.EmbeddedReplicaSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Read Routes. The replica set test runs against an EmbeddedReplicaSet.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class ReadRoutesTest {
+  @ClassRule
+  public static final EmbeddedReplicaSet REPLICA_SET = new EmbeddedReplicaSet();
+  @Resource
+  private MongoTemplate mongoTemplate;
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+  }
+
+  /**
+   * Test operations routed alike share a template, and those without a route read from the primary.
+   */
+  @Test
+  public void routes() {
+    ReadRoutes.Route nearest = ReadRoutes.Route.of("nearest", Duration.ofMinutes(2), Map.of(), "local");
+    ReadRoutes readRoutes = new ReadRoutes(this.mongoTemplate, Map.of("findAll", nearest,
+        "findSorted", ReadRoutes.Route.of("nearest", Duration.ofMinutes(2), null, "local"),
+        "filterRetrieve", ReadRoutes.Route.of("primary", null, Map.of(), null)));
+    Assert.assertEquals(ReadPreference.nearest(120, TimeUnit.SECONDS), nearest.getReadPreference());
+    Assert.assertEquals(ReadConcern.LOCAL, nearest.getReadConcern());
+
+    Assert.assertNotSame(this.mongoTemplate, readRoutes.get("findAll"));
+    Assert.assertSame(readRoutes.get("findAll"), readRoutes.get("findSorted"));
+    Assert.assertSame(this.mongoTemplate, readRoutes.get("filterRetrieve"));
+    Assert.assertSame(this.mongoTemplate, readRoutes.get("retrieve"));
+
+    // A standalone server answers every read preference.
+    InventoryDAO inventoryDAO = new InventoryDAO(this.mongoTemplate, InventoryCache.disabled(),
+        DaoMetrics.disabled("inventory"), change -> { }, readRoutes);
+    Inventory created = inventoryDAO.create(inventory("Nearest"));
+    Assert.assertEquals(List.of(created.getId()), ids(inventoryDAO.findAll()));
+    Assert.assertEquals(List.of(created.getId()), ids(inventoryDAO.findSorted(InventoryIndexes.NAME, "asc")));
+  }
+
+  /**
+   * Test a maxStaleness the server would refuse is rejected when the route is built.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void maxStaleness() {
+    ReadRoutes.Route.of("secondary", Duration.ofSeconds(10), Map.of(), null);
+  }
+
+  /**
+   * Test list reads routed to secondaries of a replica set find what was written to the primary,
+   * while retrieve reads it back from the primary.
+   */
+  @Test
+  public void replicaSet() {
+    MongoClientURI uri = new MongoClientURI(REPLICA_SET.getUri());
+    MongoClient client = new MongoClient(uri);
+    try {
+      MongoTemplate primary = new MongoTemplate(client, uri.getDatabase() == null ? "test" : uri.getDatabase());
+      List<?> hosts = primary.executeCommand(new Document("isMaster", 1)).get("hosts", List.class);
+      Assert.assertTrue("not a replica set", hosts != null && hosts.size() > 1);
+      // Acknowledged by every member, so whichever secondary is read has the write.
+      primary.setWriteConcern(new WriteConcern(hosts.size()));
+
+      ReadRoutes readRoutes = new ReadRoutes(primary, Map.of(
+          "findAll", ReadRoutes.Route.of("secondary", Duration.ofMinutes(2), Map.of(), "majority"),
+          "filterRetrieve", ReadRoutes.Route.of("nearest", null, Map.of(), "local")));
+      InventoryDAO inventoryDAO = new InventoryDAO(primary, InventoryCache.disabled(),
+          DaoMetrics.disabled("inventory"), change -> { }, readRoutes);
+      Inventory created = inventoryDAO.create(inventory("Replicated"));
+
+      Assert.assertEquals(List.of(created.getId()), ids(inventoryDAO.findAll()));
+      Assert.assertEquals(List.of(created.getId()), ids(inventoryDAO.filterRetrieve(null, null, null)));
+      Assert.assertEquals(created.getId(), inventoryDAO.retrieve(created.getId()).orElseThrow().getId());
+      primary.dropCollection(Inventory.class);
+    } finally {
+      client.close();
+    }
+  }
+
+  private static Inventory inventory(String name) {
+    Inventory inventory = new Inventory();
+    inventory.setName(name);
+    inventory.setProductType("Food");
+    return inventory;
+  }
+
+  private static List<String> ids(List<Inventory> inventory) {
+    return inventory.stream().map(Inventory::getId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,89 @@
+package com.starter.fullstack.dao;
+
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.StockAdjustmentResult;
+import com.starter.fullstack.config.EmbedMongoClientOverrideConfig;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import javax.annotation.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Test Stock Adjustment Buffer.
+ */
+@ContextConfiguration(classes = {EmbedMongoClientOverrideConfig.class})
+@DataMongoTest
+@RunWith(SpringRunner.class)
+public class StockAdjustmentBufferTest {
+  @Resource
+  private MongoTemplate mongoTemplate;
+  private InventoryDAO inventoryDAO;
+  private StockAdjustmentBuffer buffer;
+
+  @Before
+  public void setup() {
+    this.inventoryDAO = new InventoryDAO(this.mongoTemplate);
+    // Not started, the tests flush by hand.
+    this.buffer = new StockAdjustmentBuffer(this.inventoryDAO, 4, 1000, Duration.ofMinutes(1));
+  }
+
+  @After
+  public void tearDown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+  }
+
+  /**
+   * Test deltas are summed per Inventory and applied in one flush, negative ones dropped.
+   */
+  @Test
+  public void coalesce() {
+    Inventory hot = inventory("Hot", 10);
+    Inventory cold = inventory("Cold", 1);
+    for (int i = 0; i < 100; i++) {
+      this.buffer.add(hot.getId(), i % 2 == 0 ? BigDecimal.valueOf(2) : BigDecimal.valueOf(-1));
+    }
+    this.buffer.add(cold.getId(), BigDecimal.valueOf(-3));
+    Assert.assertEquals(2, this.buffer.size());
+
+    StockAdjustmentResult result = this.buffer.flush();
+    Assert.assertEquals(List.of(hot.getId()), result.getAdjusted());
+    Assert.assertEquals(List.of(cold.getId()), result.getRejected());
+    Assert.assertEquals(0, this.buffer.size());
+    Inventory stored = this.mongoTemplate.findById(hot.getId(), Inventory.class);
+    Assert.assertEquals(0, BigDecimal.valueOf(60).compareTo(stored.getAmount()));
+    Assert.assertEquals(hot.getVersion() + 1, stored.getVersion());
+    Assert.assertEquals(0, BigDecimal.ONE.compareTo(this.mongoTemplate.findById(cold.getId(), Inventory.class)
+        .getAmount()));
+  }
+
+  /**
+   * Test pending deltas are flushed on shutdown.
+   * @throws InterruptedException see shutdown
+   */
+  @Test
+  public void shutdown() throws InterruptedException {
+    Inventory inventory = inventory("Pending", 0);
+    this.buffer.start();
+    this.buffer.add(inventory.getId(), BigDecimal.valueOf(4));
+    this.buffer.shutdown();
+    Assert.assertEquals(0, BigDecimal.valueOf(4).compareTo(this.mongoTemplate.findById(inventory.getId(),
+        Inventory.class).getAmount()));
+  }
+
+  private Inventory inventory(String name, long amount) {
+    Inventory inventory = new Inventory();
+    inventory.setName(name);
+    inventory.setProductType("Food");
+    inventory.setAmount(BigDecimal.valueOf(amount));
+    return this.inventoryDAO.create(inventory);
+  }
+}
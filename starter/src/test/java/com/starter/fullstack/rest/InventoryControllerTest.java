@@ -1,8 +1,11 @@
 package com.starter.fullstack.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.Product;
 import com.starter.fullstack.api.UnitOfMeasurement;
+import com.starter.fullstack.dao.ProductCatalog;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
@@ -19,12 +22,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -32,6 +40,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @RunWith(SpringRunner.class)
 public class InventoryControllerTest {
 
+  private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+  private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
   private Instant testDate = Instant.now().truncatedTo(ChronoUnit.DAYS);
 
   @Autowired
@@ -43,10 +54,21 @@ public class InventoryControllerTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  @Autowired
+  private ProductCatalog productCatalog;
+
   private Inventory inventory;
 
   @Before
   public void setup() throws Throwable {
+    Product beer = new Product();
+    beer.setName("Beer");
+    this.mongoTemplate.save(beer);
+    this.productCatalog.refresh();
+
     this.inventory = new Inventory();
     this.inventory.setId(null);
     this.inventory.setName("TEST");
@@ -60,6 +82,7 @@ public class InventoryControllerTest {
   @After
   public void teardown() {
     this.mongoTemplate.dropCollection(Inventory.class);
+    this.mongoTemplate.dropCollection(Product.class);
   }
 
 
@@ -86,6 +109,127 @@ public class InventoryControllerTest {
     Assert.assertEquals(2, this.mongoTemplate.findAll(Inventory.class).size());
   }
 
+  /**
+   * Test writes naming a productType that is not a Product are rejected.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void unknownProductType() throws Throwable {
+    Inventory cider = new Inventory();
+    cider.setName("CIDER");
+    cider.setProductType("Cider");
+
+    this.mockMvc.perform(post("/inventory")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(this.objectMapper.writeValueAsString(cider)))
+      .andExpect(status().isBadRequest());
+    Assert.assertEquals(1, this.mongoTemplate.findAll(Inventory.class).size());
+  }
+
+  /**
+   * Test CBOR and Smile bodies are negotiated like JSON.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void binaryFormats() throws Throwable {
+    ObjectMapper cbor = this.objectMapperBuilder.factory(new CBORFactory()).build();
+    Inventory created = new Inventory();
+    created.setName("CBOR");
+    created.setProductType("Beer");
+    created.setAmount(BigDecimal.valueOf(2.5));
+
+    byte[] body = this.mockMvc.perform(post("/inventory")
+        .accept(CBOR)
+        .contentType(CBOR)
+        .content(cbor.writeValueAsBytes(created)))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(CBOR))
+      .andReturn().getResponse().getContentAsByteArray();
+    Assert.assertEquals(created.getAmount(), cbor.readValue(body, Inventory.class).getAmount());
+
+    this.mockMvc.perform(get("/inventory").accept(SMILE))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(SMILE))
+      .andExpect(header().string("Vary", "Accept"));
+    this.mockMvc.perform(get("/inventory"))
+      .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+  }
+
+  /**
+   * Test conditional GETs of one Inventory and of the collection.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void conditionalGets() throws Throwable {
+    String etag = "\"" + this.inventory.getVersion() + "\"";
+    this.mockMvc.perform(get("/retrieveInventory/").param("id", this.inventory.getId()))
+      .andExpect(status().isOk())
+      .andExpect(header().string("ETag", etag));
+    this.mockMvc.perform(get("/retrieveInventory/").param("id", this.inventory.getId())
+        .header("If-None-Match", etag))
+      .andExpect(status().isNotModified())
+      .andExpect(content().string(""));
+
+    String listTag = this.mockMvc.perform(get("/inventory"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getHeader("ETag");
+    Assert.assertNotNull(listTag);
+    this.mockMvc.perform(get("/inventory").header("If-None-Match", listTag))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string("Vary", "Accept"));
+
+    // Any write moves the collection on.
+    this.inventory.setProductType("Beer");
+    this.mockMvc.perform(post("/update")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(this.objectMapper.writeValueAsString(this.inventory)))
+      .andExpect(status().isOk());
+    this.mockMvc.perform(get("/inventory").header("If-None-Match", listTag))
+      .andExpect(status().isOk());
+    this.mockMvc.perform(get("/retrieveInventory/").param("id", this.inventory.getId())
+        .header("If-None-Match", etag))
+      .andExpect(status().isOk());
+
+    // So does an insert made outside the application.
+    listTag = this.mockMvc.perform(get("/inventory"))
+      .andReturn().getResponse().getHeader("ETag");
+    Inventory imported = new Inventory();
+    imported.setName("Imported");
+    imported.setProductType("Beer");
+    this.mongoTemplate.insert(imported);
+    this.mockMvc.perform(get("/inventory").header("If-None-Match", listTag))
+      .andExpect(status().isOk());
+  }
+
+  /**
+   * Test writes are pushed to event subscribers.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void events() throws Throwable {
+    MvcResult events = this.mockMvc.perform(get("/inventory/events").accept(MediaType.TEXT_EVENT_STREAM))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    this.inventory.setName("RENAMED");
+    this.inventory.setProductType("Beer");
+    this.mockMvc.perform(post("/update")
+        .accept(MediaType.APPLICATION_JSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(this.objectMapper.writeValueAsString(this.inventory)))
+      .andExpect(status().isOk());
+
+    // Events are sent on a sender thread.
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!events.getResponse().getContentAsString().contains("event:updated")
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    String sent = events.getResponse().getContentAsString();
+    Assert.assertTrue(sent.contains("event:updated"));
+    Assert.assertTrue(sent.contains("\"version\":" + (this.inventory.getVersion() + 1)));
+  }
+
  /**
    * Test delete endpoint.
    * @throws Throwable see MockMvc
@@ -107,6 +251,137 @@ public class InventoryControllerTest {
 
 
 
+  /**
+   * Test paged findInventories endpoint.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void findInventoriesPaged() throws Throwable {
+    this.mockMvc.perform(get("/inventory")
+        .param("size", "1")
+        .param("withTotal", "true"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("X-Total-Count", "1"))
+      .andExpect(header().doesNotExist("X-Next-Cursor"))
+      .andExpect(content().json("[" + this.objectMapper.writeValueAsString(inventory) + "]"));
+
+    this.mockMvc.perform(get("/inventory")
+        .param("size", "0"))
+      .andExpect(status().isBadRequest());
+  }
+
+
+
+  /**
+   * Test store endpoints add a store, list and page the Inventory at it, and remove it again.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void stores() throws Throwable {
+    String ids = this.objectMapper.writeValueAsString(List.of(this.inventory.getId()));
+    this.mockMvc.perform(post("/inventory/stores/Uptown")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(ids))
+      .andExpect(status().isOk())
+      .andExpect(content().json("{\"store\":\"Uptown\",\"modified\":1}"));
+
+    this.mockMvc.perform(get("/inventory/stores/Uptown")
+        .param("fields", "name", "availableStores"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("[{\"name\":\"TEST\",\"availableStores\":[\"Uptown\"]}]"));
+    this.mockMvc.perform(get("/inventory/stores/Uptown")
+        .param("size", "1"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist("X-Next-Cursor"))
+      .andExpect(content().json("[{\"id\":\"" + this.inventory.getId() + "\"}]"));
+    this.mockMvc.perform(get("/inventory/stores/Uptown")
+        .param("productType", "Beer"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("[]"));
+
+    this.mockMvc.perform(delete("/inventory/stores/Uptown")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(ids))
+      .andExpect(status().isOk())
+      .andExpect(content().json("{\"store\":\"Uptown\",\"modified\":1}"));
+    this.mockMvc.perform(get("/inventory/stores/Uptown"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("[]"));
+  }
+
+
+
+  /**
+   * Test export endpoint.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void export() throws Throwable {
+    MvcResult result = this.mockMvc.perform(get("/inventory/export")
+        .param("unitOfMeasure", "CUP"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    this.mockMvc.perform(asyncDispatch(result))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType("application/x-ndjson"))
+      .andExpect(content().string(this.objectMapper.writeValueAsString(inventory) + "\n"));
+  }
+
+
+
+  /**
+   * Test update endpoint.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void update() throws Throwable {
+    this.inventory.setName("UPDATED");
+    this.inventory.setProductType("Beer");
+
+    this.mockMvc.perform(post("/update")
+        .accept(MediaType.APPLICATION_JSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(this.objectMapper.writeValueAsString(this.inventory)))
+      .andExpect(status().isOk())
+      .andExpect(content().json("{\"name\":\"UPDATED\",\"version\":" + (this.inventory.getVersion() + 1) + "}"));
+
+    this.mockMvc.perform(post("/update")
+        .accept(MediaType.APPLICATION_JSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(this.objectMapper.writeValueAsString(this.inventory)))
+      .andExpect(status().isConflict());
+  }
+
+
+
+  /**
+   * Test fields parameter.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void findInventoriesFields() throws Throwable {
+    this.mockMvc.perform(get("/inventorySorted/")
+        .param("sortVariable", "name")
+        .param("direction", "asc")
+        .param("fields", "name,amount"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("[{\"name\":\"TEST\",\"amount\":1}]", true));
+
+    this.mockMvc.perform(get("/filterRetrieve/")
+        .param("unitOfMeasure", "CUP")
+        .param("fields", "summary"))
+      .andExpect(status().isOk())
+      .andExpect(content().json("[{\"id\":\"" + this.inventory.getId() + "\",\"version\":0,\"name\":\"TEST\","
+          + "\"productType\":null,\"amount\":1,\"unitOfMeasurement\":\"CUP\"}]", true));
+
+    this.mockMvc.perform(get("/inventory")
+        .param("fields", "calories"))
+      .andExpect(status().isBadRequest());
+  }
+
+
+
    /**
    * Test findSortedInventories
    * @throws Throwable see MockMvc
@@ -0,0 +1,161 @@
+package com.starter.fullstack.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starter.fullstack.api.ImportJob;
+import com.starter.fullstack.api.Inventory;
+import com.starter.fullstack.api.Product;
+import com.starter.fullstack.dao.ProductCatalog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+public class InventoryImportControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ProductCatalog productCatalog;
+
+  @Before
+  public void setup() {
+    for (String name : new String[] {"Malt", "Hops"}) {
+      Product product = new Product();
+      product.setName(name);
+      this.mongoTemplate.save(product);
+    }
+    this.productCatalog.refresh();
+  }
+
+  @After
+  public void teardown() {
+    this.mongoTemplate.dropCollection(Inventory.class);
+    this.mongoTemplate.dropCollection(Product.class);
+  }
+
+  /**
+   * Test importing newline delimited JSON.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void importNdjson() throws Throwable {
+    String body = "{\"name\":\"Amber\",\"productType\":\"Malt\",\"amount\":1}\n"
+        + "{\"name\":\"\",\"productType\":\"Malt\"}\n"
+        + "{\"name\":\"Cluster\",\"productType\":\"Hops\",\"unitOfMeasurement\":\"OUNCE\"}\n";
+
+    ImportJob job = awaitJob(submit(body, "application/x-ndjson"));
+
+    Assert.assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+    Assert.assertEquals(3, job.getProcessed());
+    Assert.assertEquals(2, job.getInserted());
+    Assert.assertEquals(1, job.getFailed());
+    Assert.assertEquals(2, job.getErrors().get(0).getRow());
+    Assert.assertEquals(2, this.mongoTemplate.findAll(Inventory.class).size());
+  }
+
+  /**
+   * Test a row that is not JSON stops the import after the rows before it are written.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void importMalformedNdjson() throws Throwable {
+    String body = "{\"name\":\"Amber\",\"productType\":\"Malt\"}\n"
+        + "{\"name\":\"Crystal\",,}\n"
+        + "{\"name\":\"Cluster\",\"productType\":\"Hops\"}\n";
+
+    ImportJob job = awaitJob(submit(body, "application/x-ndjson"));
+
+    Assert.assertEquals(ImportJob.Status.FAILED, job.getStatus());
+    Assert.assertEquals(1, job.getInserted());
+    Assert.assertEquals(1, job.getFailed());
+    Assert.assertEquals(2, job.getErrors().get(0).getRow());
+    Assert.assertEquals(1, this.mongoTemplate.findAll(Inventory.class).size());
+  }
+
+  /**
+   * Test importing CSV.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void importCsv() throws Throwable {
+    String body = "name,productType,description,amount,availableStores\n"
+        + "Amber,Malt,\"Plain, \"\"amber\"\" malt\",1.5,Downtown|Uptown\n"
+        + "Cluster,Hops,,not a number,\n";
+
+    ImportJob job = awaitJob(submit(body, "text/csv"));
+
+    Assert.assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+    Assert.assertEquals(1, job.getInserted());
+    Assert.assertEquals(1, job.getFailed());
+
+    Inventory imported = this.mongoTemplate.findAll(Inventory.class).get(0);
+    Assert.assertEquals("Plain, \"amber\" malt", imported.getDescription());
+    Assert.assertEquals(2, imported.getAvailableStores().size());
+  }
+
+  /**
+   * Test unknown jobs are not found.
+   * @throws Throwable see MockMvc
+   */
+  @Test
+  public void unknownJob() throws Throwable {
+    this.mockMvc.perform(get("/inventory/import/unknown"))
+      .andExpect(status().isNotFound());
+  }
+
+  /**
+   * Submit an import.
+   * @param body body.
+   * @param contentType content type.
+   * @return Job id.
+   * @throws Throwable see MockMvc
+   */
+  private String submit(String body, String contentType) throws Throwable {
+    String response = this.mockMvc.perform(post("/inventory/import")
+        .contentType(contentType)
+        .content(body))
+      .andExpect(status().isAccepted())
+      .andReturn().getResponse().getContentAsString();
+    return this.objectMapper.readValue(response, ImportJob.class).getId();
+  }
+
+  /**
+   * Poll a job until it finishes.
+   * @param id Job id.
+   * @return Finished Job.
+   * @throws Throwable see MockMvc
+   */
+  private ImportJob awaitJob(String id) throws Throwable {
+    for (int attempt = 0; attempt < 50; attempt++) {
+      String response = this.mockMvc.perform(get("/inventory/import/" + id))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+      ImportJob job = this.objectMapper.readValue(response, ImportJob.class);
+      if (job.getFinished() != null) {
+        return job;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Import job " + id + " did not finish.");
+  }
+}
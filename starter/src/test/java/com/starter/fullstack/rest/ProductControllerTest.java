@@ -2,6 +2,7 @@ package com.starter.fullstack.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starter.fullstack.api.Product;
+import com.starter.fullstack.dao.ProductCatalog;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -34,6 +35,9 @@ public class ProductControllerTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private ProductCatalog productCatalog;
+
   private Product product;
 
   @Before
@@ -43,6 +47,7 @@ public class ProductControllerTest {
     this.product.setName("TEST");
     // Sets the Mongo ID for us
     this.product = this.mongoTemplate.save(this.product);
+    this.productCatalog.refresh();
   }
 
   @After
@@ -78,6 +83,7 @@ public class ProductControllerTest {
       .andExpect(status().isOk());
 
     Assert.assertEquals(2, this.mongoTemplate.findAll(Product.class).size());
+    Assert.assertTrue(this.productCatalog.contains("ALSO TEST"));
   }
 
   /**
@@ -93,6 +99,7 @@ public class ProductControllerTest {
       .andExpect(status().isOk());
     
     Assert.assertEquals(0, this.mongoTemplate.findAll(Product.class).size());
+    Assert.assertFalse(this.productCatalog.contains("TEST"));
   }
 }
 
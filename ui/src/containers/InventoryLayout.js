@@ -78,7 +78,7 @@ const InventoryLayout = (props) => {
 
   const normalizedInventory = normalizeInventory(inventory)
   const [order, setOrder] = React.useState('asc')
-  const [orderBy, setOrderBy] = React.useState('calories')
+  const [orderBy, setOrderBy] = React.useState('name')
   
   const [selected, setSelected] = React.useState([])
   const [defaultValues, updateDefaultValues] = React.useState(emptyValues)
@@ -104,6 +104,12 @@ const InventoryLayout = (props) => {
   }, [dispatch, isFetched])
 
 
+  // keeps the table current with changes made by other users
+  useEffect(() => {
+    const source = dispatch(inventoryDuck.subscribeInventory()).payload
+    return () => source.close()
+  }, [dispatch])
+
   // updates backend sorting
   useEffect(() => {
     dispatch(inventoryDuck.findSorted( orderBy.toString(), order.toString()))
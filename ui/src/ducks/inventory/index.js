@@ -12,12 +12,40 @@ const actions = {
   INVENTORY_SAVE: 'inventory/save',
   INVENTORY_DELETE: 'inventory/delete',
   INVENTORY_REFRESH: 'inventory/refresh',
+  INVENTORY_SUBSCRIBE: 'inventory/subscribe',
   INVENTORY_UPDATE: 'inventory/update'
 }
 
 export let defaultState = {
   all: [],
   fetched: false,
+  sort: null,
+}
+
+// Orders rows like the backend sort: missing values first, text in numeric aware English order
+const compareInventory = ({ sortVariable, direction }) => (a, b) => {
+  const x = a[sortVariable]
+  const y = b[sortVariable]
+  let compared
+  if (x == null || y == null) {
+    compared = (y == null) - (x == null)
+  } else if (typeof x === 'string') {
+    compared = x.localeCompare(y, 'en', { numeric: true })
+  } else {
+    compared = x - y
+  }
+  return direction === 'desc' ? -compared : compared
+}
+
+// Replaces an inventory in the list, keeping the rows in the current sort order
+const placeInventory = (all, inventory, sort) => {
+  const invs = all.filter(inv => inv.id !== inventory.id)
+  if (!sort) {
+    return [...invs, inventory]
+  }
+  const compare = compareInventory(sort)
+  const index = invs.findIndex(inv => compare(inventory, inv) < 0)
+  return index === -1 ? [...invs, inventory] : [...invs.slice(0, index), inventory, ...invs.slice(index)]
 }
 
 export const findInventory = createAction(actions.INVENTORY_GET_ALL, () => 
@@ -33,7 +61,8 @@ export const findSorted = createAction(actions.INVENTORY_GET_SORTED, (sortVariab
     .get(`${config.restAPIUrl}/inventorySorted/`, { params: { sortVariable: sortVariable, direction: direction }})
     .then((suc) => {
       dispatch(refreshInventory(JSON.parse(suc.request.response)))
-  })
+  }),
+  (sortVariable, direction) => ({ sortVariable, direction })
 )
 
 
@@ -65,14 +94,7 @@ export const updateInventory = createAction(actions.INVENTORY_UPDATE, (inventory
   (dispatch, getState, config) => axios
     .post(`${config.restAPIUrl}/update`, inventory)
     .then((suc) => {
-      const invs = []
-      getState().inventory.all.forEach(inv => {
-        if (inv.id !== suc.data.id) {
-          invs.push(inv)
-        }
-      })
-      
-      invs.push(suc.data)
+      const invs = placeInventory(getState().inventory.all, suc.data, getState().inventory.sort)
       dispatch(openSuccess(suc.data.name + " successfully updated"))
       dispatch(refreshInventory(invs))
   })
@@ -83,14 +105,7 @@ export const saveInventory = createAction(actions.INVENTORY_SAVE, (inventory) =>
   (dispatch, getState, config) => axios
     .post(`${config.restAPIUrl}/inventory`, inventory)
     .then((suc) => {
-      const invs = []
-      getState().inventory.all.forEach(inv => {
-        if (inv.id !== suc.data.id) {
-          invs.push(inv)
-        }
-      })
-      
-      invs.push(suc.data)
+      const invs = placeInventory(getState().inventory.all, suc.data, getState().inventory.sort)
       dispatch(openSuccess(suc.data.name + " successfully saved"))
       dispatch(refreshInventory(invs))
   })
@@ -129,6 +144,31 @@ export const removeInventory = createAction(actions.INVENTORY_DELETE, (ids) =>
     })
 )
 
+// Applies pushed changes to the loaded inventory instead of fetching the whole list again
+export const subscribeInventory = createAction(actions.INVENTORY_SUBSCRIBE, () =>
+  (dispatch, getState, config) => {
+    const source = new EventSource(`${config.restAPIUrl}/inventory/events`, { withCredentials: true })
+    const patch = (event) => {
+      const change = JSON.parse(event.data)
+      const { all, sort } = getState().inventory
+      const current = all.find(inv => inv.id === change.id)
+      if (change.type === 'DELETED') {
+        dispatch(refreshInventory(all.filter(inv => inv.id !== change.id)))
+      } else if (!current || current.version < change.version) {
+        dispatch(refreshInventory(placeInventory(all, change.inventory, sort)))
+      }
+    }
+    source.addEventListener('created', patch)
+    source.addEventListener('updated', patch)
+    source.addEventListener('deleted', patch)
+    source.addEventListener('reload', () => {
+      const { sort } = getState().inventory
+      dispatch(sort ? findSorted(sort.sortVariable, sort.direction) : findInventory())
+    })
+    return source
+  }
+)
+
 export const refreshInventory = createAction(actions.INVENTORY_REFRESH, (payload) =>
   (dispatcher, getState, config) =>
     payload
@@ -140,6 +180,10 @@ export default handleActions({
     ...state,
     fetched: false
   }),
+  [actions.INVENTORY_GET_SORTED]: (state, action) => ({
+    ...state,
+    sort: action.meta
+  }),
   [actions.INVENTORY_REFRESH]: (state, action) => ({
     ...state,
     all: action.payload,